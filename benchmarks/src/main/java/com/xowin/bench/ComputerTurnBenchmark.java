@@ -0,0 +1,50 @@
+package com.xowin.bench;
+
+import com.xowin.TicTacToeRules;
+import com.xowin.engine.MoveChoosers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The move decision of {@code TicTacToeGame.computerTurn} for every strategy on a set of fixed positions.
+ * The alpha-beta chooser keeps its transposition table between invocations, as it does between moves of a game.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComputerTurnBenchmark {
+
+    @Param({MoveChoosers.HEURISTIC, MoveChoosers.TABLE, MoveChoosers.ALPHA_BETA})
+    public String strategy;
+
+    @Param({Positions.EMPTY, Positions.OPENING, Positions.MIDGAME, Positions.FORK, Positions.NEARLY_FULL})
+    public String position;
+
+    private TicTacToeRules rules;
+
+    @Setup
+    public void setUp() {
+        rules = new TicTacToeRules(3, 3, 3, MoveChoosers.byName(strategy));
+
+        Positions.setUp(rules, position);
+    }
+
+    @Benchmark
+    public int computerTurn() {
+        return rules.chooseComputerMove();
+    }
+}
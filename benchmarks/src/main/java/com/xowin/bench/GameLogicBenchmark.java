@@ -0,0 +1,74 @@
+package com.xowin.bench;
+
+import com.xowin.TicTacToeRules;
+import com.xowin.engine.MoveChoosers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Win and empty-cell checks of the game rules ({@code TicTacToeGame.checkWin}, {@code checkFutureWin} and
+ * {@code hasEmptyCell} delegate to them) on a set of fixed positions.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLogicBenchmark {
+
+    @Param({Positions.EMPTY, Positions.OPENING, Positions.MIDGAME, Positions.FORK, Positions.NEARLY_FULL})
+    public String position;
+
+    private TicTacToeRules rules;
+
+    @Setup
+    public void setUp() {
+        rules = new TicTacToeRules(3, 3, 3, MoveChoosers.byName(MoveChoosers.HEURISTIC));
+
+        Positions.setUp(rules, position);
+    }
+
+    /**
+     * All 18 (cell, player) combinations.
+     */
+    @Benchmark
+    public void checkWin(Blackhole blackhole) {
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                blackhole.consume(rules.checkWin(x, y, 1));
+                blackhole.consume(rules.checkWin(x, y, 2));
+            }
+        }
+    }
+
+    /**
+     * All 18 (cell, player) combinations.
+     */
+    @Benchmark
+    public void checkFutureWin(Blackhole blackhole) {
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                blackhole.consume(rules.checkFutureWin(x, y, 1));
+                blackhole.consume(rules.checkFutureWin(x, y, 2));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean hasEmptyCell() {
+        return rules.hasEmptyCell();
+    }
+}
@@ -0,0 +1,43 @@
+package com.xowin.bench;
+
+import com.xowin.metrics.Counter;
+import com.xowin.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one metrics event ({@code com.xowin.metrics}), which must stay below 50 ns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram("bench", "bench");
+
+    private final Counter counter = new Counter("bench", "bench");
+
+    private long value;
+
+    @Benchmark
+    public void recordLatency() {
+        histogram.record(value++ & 0xFFFFF);
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        counter.increment();
+    }
+}
@@ -0,0 +1,49 @@
+package com.xowin.bench;
+
+import com.xowin.TicTacToeRules;
+
+/**
+ * Fixed 3x3 positions shared by the benchmarks, written as the cells played so far ({@code y * 3 + x}),
+ * starting with X.
+ */
+final class Positions {
+
+    static final String EMPTY = "empty";
+
+    static final String OPENING = "opening";
+
+    static final String MIDGAME = "midgame";
+
+    static final String FORK = "fork";
+
+    static final String NEARLY_FULL = "nearlyFull";
+
+    private Positions() {
+    }
+
+    static int[] moves(String name) {
+        return switch (name) {
+            case EMPTY -> new int[]{};
+            case OPENING -> new int[]{0, 4};
+            case MIDGAME -> new int[]{0, 4, 8, 2};
+            case FORK -> new int[]{4, 0, 8};
+            case NEARLY_FULL -> new int[]{4, 0, 2, 6, 3, 5, 1};
+            default -> throw new IllegalArgumentException("Unknown position '" + name + "'");
+        };
+    }
+
+    /**
+     * Replays the named position on freshly started rules, leaving the player to move as current player.
+     */
+    static void setUp(TicTacToeRules rules, String name) {
+        rules.startGame();
+
+        for (int cell : moves(name)) {
+            if (rules.setSignAndCheck(cell % 3, cell / 3) != TicTacToeRules.PLAYING) {
+                throw new IllegalStateException("Position '" + name + "' ends the game");
+            }
+
+            rules.switchPlayer();
+        }
+    }
+}
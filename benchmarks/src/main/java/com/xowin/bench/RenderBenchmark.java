@@ -0,0 +1,125 @@
+package com.xowin.bench;
+
+import com.xowin.Color;
+import com.xowin.Game;
+import com.xowin.TicTacToeGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View updates with AWT headless. The cell labels are created by {@link Game#setScreenSize(int, int)} but
+ * never added to a frame.
+ *
+ * Cell writes only update the board view model and queue one task that applies the changes to the labels on
+ * the event dispatch thread, so the plain benchmarks measure the model writes and that enqueue. The
+ * {@code Committed} variant also waits until the event dispatch thread has applied the changes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    private static final Runnable NOTHING = () -> {
+    };
+
+    private Game game;
+
+    private TicTacToeGame ticTacToe;
+
+    @Setup
+    public void setUp() {
+        game = new Game();
+        game.setScreenSize(3, 3);
+
+        ticTacToe = new TicTacToeGame();
+        ticTacToe.initialize();
+    }
+
+    /**
+     * Rewrites every cell with a value that differs from the previous invocation.
+     */
+    @Benchmark
+    public void setCellValueExAllCells(Screen screen) {
+        rewriteAllCells(screen);
+    }
+
+    /**
+     * {@link #setCellValueExAllCells(Screen)} up to the labels: the writes plus the flush on the event dispatch
+     * thread, which runs before a task queued after it.
+     */
+    @Benchmark
+    public void setCellValueExAllCellsCommitted(Screen screen) throws InterruptedException,
+            InvocationTargetException {
+        rewriteAllCells(screen);
+
+        SwingUtilities.invokeAndWait(NOTHING);
+    }
+
+    private static void rewriteAllCells(Screen screen) {
+        screen.flip = !screen.flip;
+
+        String value = screen.flip ? "X" : "O";
+
+        Color textColor = screen.flip ? Color.RED : Color.BLUE;
+
+        for (int y = 0; y < screen.size; y++) {
+            for (int x = 0; x < screen.size; x++) {
+                screen.game.setCellValueEx(x, y, Color.WHITE, value, textColor);
+            }
+        }
+    }
+
+    /**
+     * Re-applies the unchanged 3x3 model, which is what most cells see on every move.
+     */
+    @Benchmark
+    public void updateView() {
+        ticTacToe.updateView();
+    }
+
+    /**
+     * {@code getCellColor} and {@code getCellTextColor} go through {@code Game.toEngineColor}.
+     */
+    @Benchmark
+    public void toEngineColor(Blackhole blackhole) {
+        blackhole.consume(game.getCellColor(2, 2));
+        blackhole.consume(game.getCellTextColor(2, 2));
+    }
+
+    /**
+     * A screen of {@code size x size} cells.
+     */
+    @State(Scope.Thread)
+    public static class Screen {
+
+        @Param({"3", "15", "100"})
+        public int size;
+
+        private Game game;
+
+        private boolean flip;
+
+        @Setup
+        public void setUp() {
+            game = new Game();
+            game.setScreenSize(size, size);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.xowin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+/**
+ * The window background, {@code screen.png} scaled to the window size.
+ *
+ * Scaled images are cached per size, in memory and on disk: a launch with a window size seen before reads the
+ * raw pixels from {@code xowin.cache.dir} (default {@code ~/.cache/xowin}, empty to disable) and never loads
+ * ImageIO, whose plugin registry alone costs more than the rest of the image work. Otherwise the PNG is
+ * decoded once and scaled with a single bilinear draw. {@link #prefetch(int, int)} starts this on its own
+ * thread as soon as the size is known, so it overlaps with the creation of the window.
+ */
+final class BackgroundImage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundImage.class);
+
+    static final String CACHE_DIR_PROPERTY = "xowin.cache.dir";
+
+    private static final String RESOURCE = "screen.png";
+
+    private static final int MAGIC = 0x58424731; // "XBG1"
+
+    private static final int HEADER_BYTES = 12;
+
+    private static final Map<Long, FutureTask<BufferedImage>> SCALED = new ConcurrentHashMap<>();
+
+    private BackgroundImage() {
+    }
+
+    /**
+     * Starts preparing the background of the given size on a daemon thread.
+     */
+    static void prefetch(int width, int height) {
+        Thread thread = new Thread(task(width, height), "background-image");
+
+        thread.setDaemon(true);
+
+        thread.start();
+    }
+
+    /**
+     * Returns the background of the given size, waiting for a prefetch of it if one is running.
+     */
+    static BufferedImage get(int width, int height) {
+        FutureTask<BufferedImage> task = task(width, height);
+
+        task.run(); // does nothing if a prefetch has already run it or is running it
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while loading the background", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static FutureTask<BufferedImage> task(int width, int height) {
+        return SCALED.computeIfAbsent((long) width << 32 | height, key -> new FutureTask<>(() -> load(width, height)));
+    }
+
+    private static BufferedImage load(int width, int height) throws IOException {
+        byte[] png;
+
+        try (InputStream in = Objects.requireNonNull(BackgroundImage.class.getClassLoader().getResourceAsStream(RESOURCE))) {
+            png = in.readAllBytes();
+        }
+
+        CRC32 crc = new CRC32();
+
+        crc.update(png);
+
+        Path cached = cacheFile(crc.getValue(), width, height);
+
+        if (cached != null && Files.isRegularFile(cached)) {
+            BufferedImage image = readCached(cached, width, height);
+
+            if (image != null) {
+                return image;
+            }
+        }
+
+        BufferedImage image = scale(ImageIO.read(new ByteArrayInputStream(png)), width, height);
+
+        if (cached != null) {
+            writeCached(cached, image);
+        }
+
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g = image.createGraphics();
+
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    private static Path cacheFile(long crc, int width, int height) {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY, Paths.get(System.getProperty("user.home"), ".cache", "xowin").toString());
+
+        if (dir.isEmpty()) {
+            return null;
+        }
+
+        return Paths.get(dir, String.format("screen-%08x-%dx%d.bin", crc, width, height));
+    }
+
+    /**
+     * Reads the pixels into a new image. They are copied into the raster rather than written to its array, so
+     * the image stays eligible for acceleration by Java 2D.
+     *
+     * @return the image, or {@code null} if the file is not a complete cache entry of this size
+     */
+    private static BufferedImage readCached(Path file, int width, int height) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + width * height * 4);
+
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until full or end of file
+            }
+
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != width || buffer.getInt() != height) {
+                return null;
+            }
+
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+            int[] pixels = new int[width * height];
+
+            buffer.asIntBuffer().get(pixels);
+
+            image.getRaster().setDataElements(0, 0, width, height, pixels);
+
+            return image;
+        } catch (IOException e) {
+            LOGGER.error("Failed to read cached background {}: {}", file, e.getMessage());
+
+            return null;
+        }
+    }
+
+    private static void writeCached(Path file, BufferedImage image) {
+        int[] pixels = (int[]) image.getRaster().getDataElements(0, 0, image.getWidth(), image.getHeight(), null);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + pixels.length * 4);
+
+        buffer.putInt(MAGIC).putInt(image.getWidth()).putInt(image.getHeight());
+        buffer.asIntBuffer().put(pixels);
+
+        try {
+            Files.createDirectories(file.getParent());
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            Files.write(temp, buffer.array());
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Failed to cache background {}: {}", file, e.getMessage());
+        }
+    }
+}
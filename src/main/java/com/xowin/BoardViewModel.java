@@ -0,0 +1,237 @@
+package com.xowin;
+
+import javax.swing.Icon;
+import javax.swing.JLabel;
+import java.util.Arrays;
+
+/**
+ * What every cell of the board should show, kept apart from the Swing labels that show it.
+ *
+ * Writes that do not change a property are dropped. Changed cells are queued once, no matter how many of their
+ * properties change, and {@link #flush(JLabel[][])} applies the whole queue to the labels in one go on the
+ * event dispatch thread. A move that touches a handful of cells therefore costs a handful of label updates,
+ * even when the game re-applies the whole board.
+ *
+ * Writers may run on any thread; all access is guarded by the instance lock.
+ */
+final class BoardViewModel {
+
+    private static final int VALUE = 1;
+
+    private static final int BACKGROUND = 2;
+
+    private static final int FOREGROUND = 4;
+
+    private static final int FONT = 8;
+
+    private final int width;
+
+    private final String[] values;
+
+    private final Color[] backgrounds;
+
+    /**
+     * {@code null} until the game sets a text color; the label default is shown until then.
+     */
+    private final Color[] foregrounds;
+
+    /**
+     * 0 until the game sets a value or a text size; the label default font is shown until then.
+     */
+    private final float[] fontSizes;
+
+    private final byte[] dirtyFlags;
+
+    private final int[] dirtyCells;
+
+    private int dirtyCount;
+
+    BoardViewModel(int width, int height) {
+        int cells = width * height;
+
+        this.width = width;
+        this.values = new String[cells];
+        this.backgrounds = new Color[cells];
+        this.foregrounds = new Color[cells];
+        this.fontSizes = new float[cells];
+        this.dirtyFlags = new byte[cells];
+        this.dirtyCells = new int[cells];
+
+        Arrays.fill(values, "");
+        Arrays.fill(backgrounds, Color.WHITE);
+    }
+
+    /**
+     * @return true if the cell had no pending changes before, i.e. a flush may need to be scheduled
+     */
+    synchronized boolean setValue(int x, int y, String value, float fontSize) {
+        int cell = y * width + x;
+
+        if (values[cell].equals(value)) {
+            return false;
+        }
+
+        values[cell] = value;
+
+        int flags = VALUE;
+
+        if (fontSizes[cell] != fontSize) {
+            fontSizes[cell] = fontSize;
+            flags |= FONT;
+        }
+
+        return markDirty(cell, flags);
+    }
+
+    /**
+     * Sets value, background and text color of a cell under one lock acquisition; a {@code null} or
+     * {@link Color#NONE} background is left unchanged.
+     *
+     * @return true if the cell had no pending changes before, i.e. a flush may need to be scheduled
+     */
+    synchronized boolean setCell(int x, int y, Color background, String value, float fontSize, Color foreground) {
+        int cell = y * width + x;
+
+        int flags = 0;
+
+        if (!values[cell].equals(value)) {
+            values[cell] = value;
+            flags |= VALUE;
+
+            if (fontSizes[cell] != fontSize) {
+                fontSizes[cell] = fontSize;
+                flags |= FONT;
+            }
+        }
+
+        if (background != null && background != Color.NONE && backgrounds[cell] != background) {
+            backgrounds[cell] = background;
+            flags |= BACKGROUND;
+        }
+
+        if (foregrounds[cell] != foreground) {
+            foregrounds[cell] = foreground;
+            flags |= FOREGROUND;
+        }
+
+        return flags != 0 && markDirty(cell, flags);
+    }
+
+    synchronized boolean setBackground(int x, int y, Color color) {
+        int cell = y * width + x;
+
+        if (backgrounds[cell] == color) {
+            return false;
+        }
+
+        backgrounds[cell] = color;
+
+        return markDirty(cell, BACKGROUND);
+    }
+
+    synchronized boolean setForeground(int x, int y, Color color) {
+        int cell = y * width + x;
+
+        if (foregrounds[cell] == color) {
+            return false;
+        }
+
+        foregrounds[cell] = color;
+
+        return markDirty(cell, FOREGROUND);
+    }
+
+    synchronized boolean setFontSize(int x, int y, float fontSize) {
+        int cell = y * width + x;
+
+        if (fontSizes[cell] == fontSize) {
+            return false;
+        }
+
+        fontSizes[cell] = fontSize;
+
+        return markDirty(cell, FONT);
+    }
+
+    synchronized String getValue(int x, int y) {
+        return values[y * width + x];
+    }
+
+    synchronized Color getBackground(int x, int y) {
+        return backgrounds[y * width + x];
+    }
+
+    /**
+     * @return the text color set by the game, or {@code null} if it has not set one
+     */
+    synchronized Color getForeground(int x, int y) {
+        return foregrounds[y * width + x];
+    }
+
+    /**
+     * @return the font size set by the game, or 0 if it has not set one
+     */
+    synchronized float getFontSize(int x, int y) {
+        return fontSizes[y * width + x];
+    }
+
+    synchronized boolean hasPendingChanges() {
+        return dirtyCount > 0;
+    }
+
+    private boolean markDirty(int cell, int flags) {
+        if (dirtyFlags[cell] == 0) {
+            dirtyCells[dirtyCount++] = cell;
+            dirtyFlags[cell] = (byte) flags;
+
+            return dirtyCount == 1;
+        }
+
+        dirtyFlags[cell] |= (byte) flags;
+
+        return false;
+    }
+
+    /**
+     * Applies every pending change to the labels. Must run on the event dispatch thread.
+     *
+     * @return the number of cells updated
+     */
+    synchronized int flush(JLabel[][] labels) {
+        int count = dirtyCount;
+
+        for (int i = 0; i < count; i++) {
+            int cell = dirtyCells[i];
+
+            int flags = dirtyFlags[cell];
+
+            JLabel label = labels[cell / width][cell % width];
+
+            if ((flags & FONT) != 0) {
+                label.setFont(FontCache.derive(label.getFont(), fontSizes[cell]));
+            }
+
+            if ((flags & BACKGROUND) != 0) {
+                label.setBackground(ColorPalette.toAwtColor(backgrounds[cell]));
+            }
+
+            if ((flags & FOREGROUND) != 0) {
+                label.setForeground(ColorPalette.toAwtColor(foregrounds[cell]));
+            }
+
+            if ((flags & (VALUE | FONT | FOREGROUND)) != 0) {
+                // common values are drawn from a shared pre-rendered image instead of as text
+                Icon glyph = GlyphCache.get(values[cell], label.getFont(), label.getForeground());
+
+                label.setIcon(glyph);
+                label.setText(glyph == null ? values[cell] : "");
+            }
+
+            dirtyFlags[cell] = 0;
+        }
+
+        dirtyCount = 0;
+
+        return count;
+    }
+}
@@ -0,0 +1,313 @@
+package com.xowin;
+
+import com.xowin.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link GameScreen} that keeps the cells, the message and the score in plain arrays and renders them
+ * without Swing, so a {@link Game} started on it with {@link Game#start(CellScreen)} never opens a window or
+ * initializes AWT.
+ *
+ * The game calls the display methods; the input methods ({@link #onMouseLeftClick(int, int)},
+ * {@link #onKeyPress(Key)}, ...) work the other way round and deliver a click or key press to the game as if it
+ * came from the mouse or the keyboard. After every game event that changed something, the screen is rendered
+ * once with {@link #render()}.
+ */
+public abstract class CellScreen implements GameScreen {
+
+    /**
+     * System property selecting the screen of the desktop game: {@code swing} (default) or {@code terminal}.
+     */
+    public static final String PROPERTY = "xowin.screen";
+
+    /**
+     * Text size of a cell value, in percent of the cell, until the game sets one.
+     */
+    public static final int DEFAULT_TEXT_SIZE = 40;
+
+    protected int width;
+
+    protected int height;
+
+    protected String[] values = new String[0];
+
+    protected Color[] backgrounds = new Color[0];
+
+    protected Color[] foregrounds = new Color[0];
+
+    /**
+     * Percent of the cell size.
+     */
+    protected int[] textSizes = new int[0];
+
+    /**
+     * {@code null} while no message is shown.
+     */
+    protected String message;
+
+    protected Color messageColor;
+
+    /**
+     * {@link Color#NONE} for a message without background.
+     */
+    protected Color messageBackground;
+
+    protected int messageSize;
+
+    protected int score;
+
+    private boolean dirty = true;
+
+    private LongConsumer input;
+
+    /**
+     * Creates the screen selected by the {@value #PROPERTY} system property, or returns {@code null} for the
+     * Swing window.
+     */
+    public static CellScreen fromSystemProperty() {
+        return switch (System.getProperty(PROPERTY, "swing")) {
+            case "swing" -> null;
+            case "terminal" -> new TerminalScreen(System.out, System.in);
+            default -> throw new IllegalArgumentException("Unknown screen '" + System.getProperty(PROPERTY) + "'");
+        };
+    }
+
+    /**
+     * Connects the screen to the game it shows; input goes to {@code input} as game loop events.
+     */
+    final void attach(LongConsumer input) {
+        this.input = input;
+    }
+
+    /**
+     * Called once the game has initialized, before the first frame.
+     */
+    protected void open() {
+    }
+
+    /**
+     * Returns whether input arrives on other threads than the one that started the game, so that the game has
+     * to run its event loop thread. Screens that are driven by their caller, one call at a time, return false
+     * and the game handles every input right away on the calling thread.
+     */
+    protected boolean usesGameLoop() {
+        return false;
+    }
+
+    /**
+     * Draws the current state.
+     */
+    protected abstract void render();
+
+    /**
+     * Renders the screen if anything changed since the last frame.
+     */
+    final void present() {
+        if (dirty) {
+            dirty = false;
+
+            long start = System.nanoTime();
+
+            render();
+
+            Metrics.RENDER.recordSince(start);
+        }
+    }
+
+    protected final void changed() {
+        dirty = true;
+    }
+
+    protected final int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    @Override
+    public void setScreenSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int cells = width * height;
+
+        values = new String[cells];
+        backgrounds = new Color[cells];
+        foregrounds = new Color[cells];
+        textSizes = new int[cells];
+
+        Arrays.fill(values, "");
+        Arrays.fill(backgrounds, Color.WHITE);
+        Arrays.fill(foregrounds, Color.BLACK);
+        Arrays.fill(textSizes, DEFAULT_TEXT_SIZE);
+
+        changed();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void setCellColor(int x, int y, Color color) {
+        if (color != null && color != Color.NONE && backgrounds[cell(x, y)] != color) {
+            backgrounds[cell(x, y)] = color;
+
+            changed();
+        }
+    }
+
+    public Color getCellColor(int x, int y) {
+        return backgrounds[cell(x, y)];
+    }
+
+    @Override
+    public void setCellTextSize(int x, int y, int size) {
+        size = Math.min(size, 100);
+
+        if (textSizes[cell(x, y)] != size) {
+            textSizes[cell(x, y)] = size;
+
+            changed();
+        }
+    }
+
+    public int getCellTextSize(int x, int y) {
+        return textSizes[cell(x, y)];
+    }
+
+    @Override
+    public void setCellValue(int x, int y, String value) {
+        if (!values[cell(x, y)].equals(value)) {
+            values[cell(x, y)] = value;
+
+            changed();
+        }
+    }
+
+    @Override
+    public String getCellValue(int x, int y) {
+        return values[cell(x, y)];
+    }
+
+    @Override
+    public void setCellTextColor(int x, int y, Color color) {
+        if (color != null && foregrounds[cell(x, y)] != color) {
+            foregrounds[cell(x, y)] = color;
+
+            changed();
+        }
+    }
+
+    public Color getCellTextColor(int x, int y) {
+        return foregrounds[cell(x, y)];
+    }
+
+    @Override
+    public void setCellValueEx(int x, int y, Color cellColor, String value) {
+        setCellValue(x, y, value);
+        setCellColor(x, y, cellColor);
+    }
+
+    @Override
+    public void setCellValueEx(int x, int y, Color cellColor, String value, Color textColor) {
+        setCellValueEx(x, y, cellColor, value);
+        setCellTextColor(x, y, textColor);
+    }
+
+    @Override
+    public void showMessageDialog(Color cellColor, String message, Color textColor, int textSize) {
+        this.message = message;
+        this.messageColor = textColor;
+        this.messageBackground = cellColor;
+        this.messageSize = textSize;
+
+        changed();
+    }
+
+    public void hideMessageDialog() {
+        if (message != null) {
+            message = null;
+
+            changed();
+        }
+    }
+
+    /**
+     * Returns the message shown, or {@code null}.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setScore(int score) {
+        if (this.score != score) {
+            this.score = score;
+
+            changed();
+        }
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Does nothing; the game initializes itself.
+     */
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public void onMouseLeftClick(int x, int y) {
+        post(GameLoop.event(GameLoop.MOUSE_LEFT, x, y));
+    }
+
+    @Override
+    public void onMouseRightClick(int x, int y) {
+        post(GameLoop.event(GameLoop.MOUSE_RIGHT, x, y));
+    }
+
+    @Override
+    public void onKeyPress(Key key) {
+        post(GameLoop.event(GameLoop.KEY_PRESSED, key.ordinal(), 0));
+    }
+
+    @Override
+    public void onKeyReleased(Key key) {
+        post(GameLoop.event(GameLoop.KEY_RELEASED, key.ordinal(), 0));
+    }
+
+    /**
+     * Does nothing; turns come from the game's own timer.
+     */
+    @Override
+    public void onTurn(int step) {
+    }
+
+    /**
+     * Exits the program after the game has handled all input posted so far. Does not return: the calling
+     * thread waits for the exit, as the game thread is a daemon and would not keep the JVM alive on its own.
+     */
+    protected final void exit() {
+        post(GameLoop.event(GameLoop.EXIT, 0, 0));
+
+        while (true) {
+            LockSupport.park(this);
+        }
+    }
+
+    private void post(long event) {
+        if (input == null) {
+            throw new IllegalStateException("The screen does not show a game");
+        }
+
+        input.accept(event);
+    }
+}
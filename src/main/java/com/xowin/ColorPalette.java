@@ -0,0 +1,253 @@
+package com.xowin;
+
+/**
+ * The mapping between engine {@link Color}s, packed ARGB values and AWT colors, shared by every game in the JVM.
+ *
+ * ARGB values live in an array indexed by {@link Color#ordinal()}; an AWT color is only created the first time
+ * it is asked for, so a game creates the few it uses and renderers that work on ARGB values never load AWT. The reverse lookup
+ * goes through an open-addressing table keyed by the packed ARGB value, so all directions are constant time
+ * and allocation free. The palette is built on first use, not when the class of a game is loaded.
+ */
+final class ColorPalette {
+
+    private static final Color[] COLORS = Color.values();
+
+    private static final int[] ARGB = new int[COLORS.length];
+
+    private static final int TABLE_SIZE = 512;
+
+    private static final int[] ARGB_KEYS = new int[TABLE_SIZE];
+
+    /**
+     * {@code ordinal + 1} of the engine color stored for the key at the same slot, 0 for a free slot.
+     */
+    private static final short[] ORDINALS = new short[TABLE_SIZE];
+
+    static {
+        put(Color.NONE, 0x00000000);
+        put(Color.TRANSPARENT, 0x00000000);
+        put(Color.ALICEBLUE, 0xFFF0F8FF);
+        put(Color.ANTIQUEWHITE, 0xFFFAEBD7);
+        put(Color.AQUA, 0xFF00FFFF);
+        put(Color.AQUAMARINE, 0xFF7FFFD4);
+        put(Color.AZURE, 0xFFF0FFFF);
+        put(Color.BEIGE, 0xFFF5F5DC);
+        put(Color.BISQUE, 0xFFFFE4C4);
+        put(Color.BLACK, 0xFF000000);
+        put(Color.BLANCHEDALMOND, 0xFFFFEBCD);
+        put(Color.BLUE, 0xFF0000FF);
+        put(Color.BLUEVIOLET, 0xFF8A2BE2);
+        put(Color.BROWN, 0xFFA52A2A);
+        put(Color.BURLYWOOD, 0xFFDEB887);
+        put(Color.CADETBLUE, 0xFF5F9EA0);
+        put(Color.CHARTREUSE, 0xFF7FFF00);
+        put(Color.CHOCOLATE, 0xFFD2691E);
+        put(Color.CORAL, 0xFFFF7F50);
+        put(Color.CORNFLOWERBLUE, 0xFF6495ED);
+        put(Color.CORNSILK, 0xFFFFF8DC);
+        put(Color.CRIMSON, 0xFFDC143C);
+        put(Color.CYAN, 0xFF00FFFF);
+        put(Color.DARKBLUE, 0xFF00008B);
+        put(Color.DARKCYAN, 0xFF008B8B);
+        put(Color.DARKGOLDENROD, 0xFFB8860B);
+        put(Color.DARKGRAY, 0xFFA9A9A9);
+        put(Color.DARKGREEN, 0xFF006400);
+        put(Color.DARKGREY, 0xFFA9A9A9);
+        put(Color.DARKKHAKI, 0xFFBDB76B);
+        put(Color.DARKMAGENTA, 0xFF8B008B);
+        put(Color.DARKOLIVEGREEN, 0xFF556B2F);
+        put(Color.DARKORANGE, 0xFFFF8C00);
+        put(Color.DARKORCHID, 0xFF9932CC);
+        put(Color.DARKRED, 0xFF8B0000);
+        put(Color.DARKSALMON, 0xFFE9967A);
+        put(Color.DARKSEAGREEN, 0xFF8FBC8F);
+        put(Color.DARKSLATEBLUE, 0xFF483D8B);
+        put(Color.DARKSLATEGRAY, 0xFF2F4F4F);
+        put(Color.DARKSLATEGREY, 0xFF2F4F4F);
+        put(Color.DARKTURQUOISE, 0xFF00CED1);
+        put(Color.DARKVIOLET, 0xFF9400D3);
+        put(Color.DEEPPINK, 0xFFFF1493);
+        put(Color.DEEPSKYBLUE, 0xFF00BFFF);
+        put(Color.DIMGRAY, 0xFF696969);
+        put(Color.DIMGREY, 0xFF696969);
+        put(Color.DODGERBLUE, 0xFF1E90FF);
+        put(Color.FIREBRICK, 0xFFB22222);
+        put(Color.FLORALWHITE, 0xFFFFFAF0);
+        put(Color.FORESTGREEN, 0xFF228B22);
+        put(Color.FUCHSIA, 0xFFFF00FF);
+        put(Color.GAINSBORO, 0xFFDCDCDC);
+        put(Color.GHOSTWHITE, 0xFFF8F8FF);
+        put(Color.GOLD, 0xFFFFD700);
+        put(Color.GOLDENROD, 0xFFDAA520);
+        put(Color.GRAY, 0xFF808080);
+        put(Color.GREEN, 0xFF008000);
+        put(Color.GREENYELLOW, 0xFFADFF2F);
+        put(Color.GREY, 0xFF808080);
+        put(Color.HONEYDEW, 0xFFF0FFF0);
+        put(Color.HOTPINK, 0xFFFF69B4);
+        put(Color.INDIANRED, 0xFFCD5C5C);
+        put(Color.INDIGO, 0xFF4B0082);
+        put(Color.IVORY, 0xFFFFFFF0);
+        put(Color.KHAKI, 0xFFF0E68C);
+        put(Color.LAVENDER, 0xFFE6E6FA);
+        put(Color.LAVENDERBLUSH, 0xFFFFF0F5);
+        put(Color.LAWNGREEN, 0xFF7CFC00);
+        put(Color.LEMONCHIFFON, 0xFFFFFACD);
+        put(Color.LIGHTBLUE, 0xFFADD8E6);
+        put(Color.LIGHTCORAL, 0xFFF08080);
+        put(Color.LIGHTCYAN, 0xFFE0FFFF);
+        put(Color.LIGHTGOLDENRODYELLOW, 0xFFFAFAD2);
+        put(Color.LIGHTGRAY, 0xFFD3D3D3);
+        put(Color.LIGHTGREEN, 0xFF90EE90);
+        put(Color.LIGHTGREY, 0xFFD3D3D3);
+        put(Color.LIGHTPINK, 0xFFFFB6C1);
+        put(Color.LIGHTSALMON, 0xFFFFA07A);
+        put(Color.LIGHTSEAGREEN, 0xFF20B2AA);
+        put(Color.LIGHTSKYBLUE, 0xFF87CEFA);
+        put(Color.LIGHTSLATEGRAY, 0xFF778899);
+        put(Color.LIGHTSLATEGREY, 0xFF778899);
+        put(Color.LIGHTSTEELBLUE, 0xFFB0C4DE);
+        put(Color.LIGHTYELLOW, 0xFFFFFFE0);
+        put(Color.LIME, 0xFF00FF00);
+        put(Color.LIMEGREEN, 0xFF32CD32);
+        put(Color.LINEN, 0xFFFAF0E6);
+        put(Color.MAGENTA, 0xFFFF00FF);
+        put(Color.MAROON, 0xFF800000);
+        put(Color.MEDIUMAQUAMARINE, 0xFF66CDAA);
+        put(Color.MEDIUMBLUE, 0xFF0000CD);
+        put(Color.MEDIUMORCHID, 0xFFBA55D3);
+        put(Color.MEDIUMPURPLE, 0xFF9370DB);
+        put(Color.MEDIUMSEAGREEN, 0xFF3CB371);
+        put(Color.MEDIUMSLATEBLUE, 0xFF7B68EE);
+        put(Color.MEDIUMSPRINGGREEN, 0xFF00FA9A);
+        put(Color.MEDIUMTURQUOISE, 0xFF48D1CC);
+        put(Color.MEDIUMVIOLETRED, 0xFFC71585);
+        put(Color.MIDNIGHTBLUE, 0xFF191970);
+        put(Color.MINTCREAM, 0xFFF5FFFA);
+        put(Color.MISTYROSE, 0xFFFFE4E1);
+        put(Color.MOCCASIN, 0xFFFFE4B5);
+        put(Color.NAVAJOWHITE, 0xFFFFDEAD);
+        put(Color.NAVY, 0xFF000080);
+        put(Color.OLDLACE, 0xFFFDF5E6);
+        put(Color.OLIVE, 0xFF808000);
+        put(Color.OLIVEDRAB, 0xFF6B8E23);
+        put(Color.ORANGE, 0xFFFFA500);
+        put(Color.ORANGERED, 0xFFFF4500);
+        put(Color.ORCHID, 0xFFDA70D6);
+        put(Color.PALEGOLDENROD, 0xFFEEE8AA);
+        put(Color.PALEGREEN, 0xFF98FB98);
+        put(Color.PALETURQUOISE, 0xFFAFEEEE);
+        put(Color.PALEVIOLETRED, 0xFFDB7093);
+        put(Color.PAPAYAWHIP, 0xFFFFEFD5);
+        put(Color.PEACHPUFF, 0xFFFFDAB9);
+        put(Color.PERU, 0xFFCD853F);
+        put(Color.PINK, 0xFFFFC0CB);
+        put(Color.PLUM, 0xFFDDA0DD);
+        put(Color.POWDERBLUE, 0xFFB0E0E6);
+        put(Color.PURPLE, 0xFF800080);
+        put(Color.RED, 0xFFFF0000);
+        put(Color.ROSYBROWN, 0xFFBC8F8F);
+        put(Color.ROYALBLUE, 0xFF4169E1);
+        put(Color.SADDLEBROWN, 0xFF8B4513);
+        put(Color.SALMON, 0xFFFA8072);
+        put(Color.SANDYBROWN, 0xFFF4A460);
+        put(Color.SEAGREEN, 0xFF2E8B57);
+        put(Color.SEASHELL, 0xFFFFF5EE);
+        put(Color.SIENNA, 0xFFA0522D);
+        put(Color.SILVER, 0xFFC0C0C0);
+        put(Color.SKYBLUE, 0xFF87CEEB);
+        put(Color.SLATEBLUE, 0xFF6A5ACD);
+        put(Color.SLATEGRAY, 0xFF708090);
+        put(Color.SLATEGREY, 0xFF708090);
+        put(Color.SNOW, 0xFFFFFAFA);
+        put(Color.SPRINGGREEN, 0xFF00FF7F);
+        put(Color.STEELBLUE, 0xFF4682B4);
+        put(Color.TAN, 0xFFD2B48C);
+        put(Color.TEAL, 0xFF008080);
+        put(Color.THISTLE, 0xFFD8BFD8);
+        put(Color.TOMATO, 0xFFFF6347);
+        put(Color.TURQUOISE, 0xFF40E0D0);
+        put(Color.VIOLET, 0xFFEE82EE);
+        put(Color.WHEAT, 0xFFF5DEB3);
+        put(Color.WHITE, 0xFFFFFFFF);
+        put(Color.WHITESMOKE, 0xFFF5F5F5);
+        put(Color.YELLOW, 0xFFFFFF00);
+        put(Color.YELLOWGREEN, 0xFF9ACD32);
+    }
+
+    private ColorPalette() {
+    }
+
+    private static void put(Color color, int argb) {
+        ARGB[color.ordinal()] = argb;
+
+        int slot = slot(argb);
+
+        while (ORDINALS[slot] != 0) {
+            // several names share a value (e.g. AQUA and CYAN): the first one registered wins
+            if (ARGB_KEYS[slot] == argb) {
+                return;
+            }
+
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+
+        ARGB_KEYS[slot] = argb;
+        ORDINALS[slot] = (short) (color.ordinal() + 1);
+    }
+
+    /**
+     * Returns the packed ARGB value of an engine color.
+     */
+    static int argb(Color color) {
+        return ARGB[color.ordinal()];
+    }
+
+    static java.awt.Color toAwtColor(Color color) {
+        if (color == null) {
+            return null;
+        }
+
+        java.awt.Color awt = AwtColors.COLORS[color.ordinal()];
+
+        if (awt == null) {
+            // racing threads may both create it; the instances are equal and immutable
+            awt = new java.awt.Color(ARGB[color.ordinal()], true);
+
+            AwtColors.COLORS[color.ordinal()] = awt;
+        }
+
+        return awt;
+    }
+
+    /**
+     * Returns the engine color with the same ARGB value, or {@link Color#NONE} if there is none.
+     */
+    static Color toEngineColor(java.awt.Color color) {
+        if (color == null) {
+            return Color.NONE;
+        }
+
+        int argb = color.getRGB();
+
+        for (int slot = slot(argb); ORDINALS[slot] != 0; slot = (slot + 1) & (TABLE_SIZE - 1)) {
+            if (ARGB_KEYS[slot] == argb) {
+                return COLORS[ORDINALS[slot] - 1];
+            }
+        }
+
+        return Color.NONE;
+    }
+
+    private static int slot(int argb) {
+        return (argb * 0x9E3779B9) >>> 23;
+    }
+
+    /**
+     * Holder of the AWT colors created so far, so that the AWT color class is not loaded with the palette.
+     */
+    private static final class AwtColors {
+
+        static final java.awt.Color[] COLORS = new java.awt.Color[ARGB.length];
+    }
+}
@@ -0,0 +1,106 @@
+package com.xowin;
+
+import java.awt.Font;
+
+/**
+ * Fonts shared by all rendering code, keyed by family, style and size.
+ *
+ * Fonts are created on first request and then returned as the same instance, so paint and update paths stop
+ * allocating {@code Font}s and deriving them again. Keys are packed into a {@code long} and looked up in an
+ * open-addressing table, so a hit does not allocate either.
+ */
+final class FontCache {
+
+    private static final int MAX_FAMILIES = 16;
+
+    private static final String[] FAMILIES = new String[MAX_FAMILIES];
+
+    private static int familyCount;
+
+    private static long[] keys = new long[64];
+
+    private static Font[] fonts = new Font[64];
+
+    private static int size;
+
+    private FontCache() {
+    }
+
+    /**
+     * Returns a font with the same family and style as {@code base} and the given size.
+     */
+    static Font derive(Font base, float fontSize) {
+        return get(base.getName(), base.getStyle(), fontSize);
+    }
+
+    static synchronized Font get(String family, int style, float fontSize) {
+        long key = (long) familyIndex(family) << 40 | (long) (style & 0xFF) << 32 | (Float.floatToIntBits(fontSize) & 0xFFFFFFFFL);
+
+        int mask = keys.length - 1;
+
+        int slot = slot(key, mask);
+
+        while (fonts[slot] != null) {
+            if (keys[slot] == key) {
+                return fonts[slot];
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        Font font = new Font(family, style, 1).deriveFont(fontSize);
+
+        keys[slot] = key;
+        fonts[slot] = font;
+
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+
+        return font;
+    }
+
+    private static int familyIndex(String family) {
+        for (int i = 0; i < familyCount; i++) {
+            if (FAMILIES[i].equals(family)) {
+                return i;
+            }
+        }
+
+        if (familyCount == MAX_FAMILIES) {
+            throw new IllegalStateException("Too many font families");
+        }
+
+        FAMILIES[familyCount] = family;
+
+        return familyCount++;
+    }
+
+    private static void grow() {
+        long[] oldKeys = keys;
+
+        Font[] oldFonts = fonts;
+
+        keys = new long[oldKeys.length * 2];
+        fonts = new Font[oldKeys.length * 2];
+
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldFonts[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+
+                while (fonts[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                fonts[slot] = oldFonts[i];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
@@ -1,6 +1,12 @@
 package com.xowin;
 
-import javax.imageio.ImageIO;
+import com.xowin.metrics.Metrics;
+import com.xowin.metrics.MetricsExporter;
+import com.xowin.metrics.StartupTimer;
+import com.xowin.record.InputTraceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
@@ -10,15 +16,19 @@ import java.awt.event.MouseEvent;
 import java.awt.image.ImageObserver;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.net.URL;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class Game implements GameScreen {
 
-    private static final Random random = new Random();
+    private static final Logger LOGGER = LoggerFactory.getLogger(Game.class);
+
+    /**
+     * Seed of {@link #random}, so that a game's random numbers can be drawn again.
+     */
+    private long randomSeed = System.nanoTime();
+
+    private SplittableRandom random = new SplittableRandom(this.randomSeed);
 
     private int width;
 
@@ -28,6 +38,17 @@ public class Game implements GameScreen {
 
     private int timerStep = 0;
 
+    /**
+     * Turn ticks dispatched so far, including those skipped while a message is shown; the logical clock of
+     * input traces.
+     */
+    private long tick = 0;
+
+    /**
+     * Input trace of this session, null unless enabled with -Dxowin.trace=<file>.
+     */
+    private InputTraceWriter trace;
+
     private boolean showGrid = true;
 
     private boolean showCoordinates = false;
@@ -40,18 +61,48 @@ public class Game implements GameScreen {
 
     private CellLabel[][] labelCells;
 
-    private ScheduledExecutorService timer;
-
-    private int turnTimerMs = 0;
+    private BoardViewModel viewModel;
 
-    private int score = 0;
+    private final Runnable flushTask = this::flushView;
 
-    private final Map<Color, java.awt.Color> colorMap = new HashMap<>();
+    private int turnTimerMs = 0;
 
-    private JLabel dialogLabel = new JLabel();
+    private int frameRate = 0;
 
-    private java.awt.Color dialogBackGround = null;
+    private int score = 0;
 
+    // Score after initialize, e.g. continued from persisted scores, which an input trace does not record
+    private int initialScore = 0;
+
+    /**
+     * The game thread; started before any input can arrive, except for screens driven by their caller.
+     */
+    private final GameLoop gameLoop = new GameLoop(this::dispatch);
+
+    /**
+     * Whether input is handled right away on the calling thread, for screens driven by their caller.
+     */
+    private boolean dispatchesDirectly;
+
+    /**
+     * The screen the game is shown on instead of the Swing window, or {@code null}.
+     */
+    private CellScreen headless;
+
+    /**
+     * {@link System#nanoTime()} of the oldest click or key press not painted yet, 0 if none; EDT only.
+     */
+    private long inputNanos;
+
+    /**
+     * What the root panel draws on top of the cells; replaced as a whole by the game thread and read by the EDT.
+     */
+    private volatile Overlay overlay = new Overlay(0, "Score: 0", null, null, null, null);
+
+    /**
+     * Starts the game class named on the command line. Subclasses should have their own {@code main} that calls
+     * {@link #start()}, which keeps reflection off the launch path.
+     */
     public static void main(String[] args) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
         String userClassName = System.getProperty("sun.java.command");
 
@@ -63,14 +114,33 @@ public class Game implements GameScreen {
     }
 
     public void start() {
-        JFrame jFrame = new JFrame();
+        StartupTimer.begin();
 
-        jFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        MetricsExporter.startFromSystemProperties();
 
-        this.mapColors();
+        this.openTrace();
 
+        CellScreen screen = CellScreen.fromSystemProperty();
+
+        if (screen != null) {
+            this.start(screen);
+
+            return;
+        }
+
+        // initialized first so that the background image is prepared while the window is being created
         this.initialize();
 
+        this.initialScore = this.score;
+
+        StartupTimer.mark("initialize");
+
+        JFrame jFrame = new JFrame();
+
+        jFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        StartupTimer.mark("window");
+
         jFrame.addKeyListener(new GameKeyListener());
 
         jFrame.setTitle("Tic Tac Toe");
@@ -81,12 +151,214 @@ public class Game implements GameScreen {
 
         jFrame.getContentPane().add(this.createSwingContent(), "Center");
 
+        StartupTimer.mark("content");
+
         jFrame.pack();
 
         jFrame.setLocationRelativeTo((Component) null);
 
+        // before the window can deliver input, so that every event reaches the game on the game thread
+        this.gameLoop.start();
+
         jFrame.setVisible(true);
 
+        StartupTimer.mark("show");
+
+    }
+
+    /**
+     * Starts the game on a screen that does not need Swing; no window is opened and AWT is not initialized.
+     */
+    public void start(CellScreen screen) {
+        StartupTimer.begin();
+
+        this.openTrace();
+
+        this.headless = screen;
+
+        this.dispatchesDirectly = !screen.usesGameLoop();
+
+        screen.attach(this::post);
+
+        this.initialize();
+
+        this.initialScore = this.score;
+
+        StartupTimer.mark("initialize");
+
+        if (this.dispatchesDirectly) {
+            screen.open();
+
+            screen.present();
+
+            StartupTimer.firstFrame();
+
+            return;
+        }
+
+        // the first frame is drawn on the game thread, like all later ones; the screen's input, which may
+        // start with open(), queues behind it
+        this.gameLoop.start();
+
+        this.gameLoop.post(GameLoop.event(GameLoop.FRAME, GameLoop.ALPHA_ONE, 0));
+
+        screen.open();
+    }
+
+    /**
+     * Starts tracing input if asked to by {@value InputTraceWriter#PROPERTY}. The random numbers are reseeded
+     * with the seed written to the trace, so that a replay draws the same ones.
+     */
+    private void openTrace() {
+        if (this.trace != null) {
+            return;
+        }
+
+        try {
+            this.trace = InputTraceWriter.fromSystemProperty(this.randomSeed, this.getClass().getName());
+        } catch (IOException e) {
+            LOGGER.error("Failed to open input trace: {}", e.getMessage());
+        }
+
+        if (this.trace != null) {
+            this.setRandomSeed(this.randomSeed);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(this::closeTrace, "trace-close"));
+        }
+    }
+
+    private void closeTrace() {
+        InputTraceWriter trace = this.trace;
+
+        if (trace == null) {
+            return;
+        }
+
+        try {
+            trace.finish(this.tick);
+
+            trace.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close input trace: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handles an event on the calling thread, as the game loop would; used to replay input traces.
+     */
+    void inject(long event) {
+        this.dispatch(event);
+    }
+
+    /**
+     * Returns the number of turn ticks dispatched so far.
+     */
+    long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns a checksum of the game as shown: cell values and cell colors, score gained since the start and
+     * whether a message is up. Text colors are left out, as the Swing window and the headless screens start
+     * from different defaults.
+     * Input traces store the checksum after every event, and the replay compares it. Games with state that is
+     * not on screen should mix it in.
+     */
+    public int getStateChecksum() {
+        int checksum = (this.score - this.initialScore) * 31 + (this.isMessageShown ? 1 : 0);
+
+        for (int y = 0; y < this.height; ++y) {
+            for (int x = 0; x < this.width; ++x) {
+                checksum = checksum * 31 + Objects.hashCode(this.getCellValue(x, y));
+
+                checksum = checksum * 31 + ordinal(this.getCellColor(x, y));
+            }
+        }
+
+        return checksum;
+    }
+
+    private static int ordinal(Color color) {
+        return color == null ? -1 : color.ordinal();
+    }
+
+    /**
+     * Hands an input event to the game thread, or handles it right away for screens driven by their caller.
+     */
+    private void post(long event) {
+        if (this.dispatchesDirectly) {
+            this.dispatch(event);
+        } else {
+            this.gameLoop.post(event);
+        }
+    }
+
+    /**
+     * Runs on the game thread: the only place where input and timer events reach the game.
+     */
+    private void dispatch(long event) {
+        switch (GameLoop.type(event)) {
+            case GameLoop.MOUSE_LEFT, GameLoop.MOUSE_RIGHT -> {
+                if (this.isMessageShown) {
+                    this.hideMessageDialog();
+                }
+
+                if (Game.cellSize != 0) {
+                    if (GameLoop.type(event) == GameLoop.MOUSE_LEFT) {
+                        this.onMouseLeftClick(GameLoop.first(event), GameLoop.second(event));
+                    } else {
+                        this.onMouseRightClick(GameLoop.first(event), GameLoop.second(event));
+                    }
+                }
+            }
+            case GameLoop.KEY_PRESSED -> {
+                Key key = Key.values()[GameLoop.first(event)];
+
+                if (this.isMessageShown && key == Key.SPACE) {
+                    this.hideMessageDialog();
+                }
+
+                this.onKeyPress(key);
+            }
+            case GameLoop.KEY_RELEASED -> this.onKeyReleased(Key.values()[GameLoop.first(event)]);
+            case GameLoop.TURN -> {
+                this.tick++;
+
+                if (!this.isMessageShown) {
+                    this.onTurn(++this.timerStep);
+                }
+            }
+            case GameLoop.FRAME -> {
+                this.onRender(GameLoop.alpha(event));
+
+                if (this.rootPanel != null) {
+                    this.rootPanel.repaint();
+
+                }
+            }
+            case GameLoop.EXIT -> System.exit(0);
+            default -> throw new IllegalArgumentException("Unknown game event " + GameLoop.type(event));
+        }
+
+        if (this.trace != null && GameLoop.type(event) <= GameLoop.KEY_RELEASED) {
+            this.traceInput(event);
+        }
+
+        if (this.headless != null) {
+            this.headless.present();
+
+            StartupTimer.firstFrame();
+        }
+    }
+
+    private void traceInput(long event) {
+        try {
+            this.trace.append(this.tick, GameLoop.type(event), GameLoop.first(event), GameLoop.second(event), this.getStateChecksum());
+        } catch (IOException e) {
+            LOGGER.error("Failed to write input trace: {}", e.getMessage());
+
+            this.trace = null;
+        }
     }
 
     private JPanel createSwingContent() {
@@ -124,14 +396,7 @@ public class Game implements GameScreen {
     }
 
     private void createSwingBorderImage() {
-        URL imageUrl = Thread.currentThread().getContextClassLoader().getResource("screen.png");
-
-        try {
-            this.backgroundImg = ImageIO.read(Objects.requireNonNull(imageUrl)).getScaledInstance(this.width * cellSize + 250, this.height * cellSize + 110 + 140, 0);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-
-        }
+        this.backgroundImg = BackgroundImage.get(this.width * cellSize + 250, this.height * cellSize + 110 + 140);
     }
 
     public void setScreenSize(int width, int height) {
@@ -141,8 +406,18 @@ public class Game implements GameScreen {
 
         cellSize = 800 / this.width < 600 / this.height ? 800 / this.width : 600 / this.height;
 
+        if (this.headless != null) {
+            this.headless.setScreenSize(this.width, this.height);
+
+            return;
+        }
+
+        BackgroundImage.prefetch(this.width * cellSize + 250, this.height * cellSize + 110 + 140);
+
         this.labelCells = new CellLabel[this.height][this.width];
 
+        this.viewModel = new BoardViewModel(this.width, this.height);
+
         for (int y = 0; y < this.height; ++y) {
             for (int x = 0; x < this.width; ++x) {
                 this.labelCells[y][x] = new CellLabel(x, y);
@@ -159,13 +434,23 @@ public class Game implements GameScreen {
     }
 
     public void setCellColor(int x, int y, Color color) {
-        if (color != null && color != Color.NONE) {
-            this.labelCells[y][x].setBackground(this.toAwtColor(color));
+        if (this.headless != null) {
+            this.headless.setCellColor(x, y, color);
+
+            return;
+        }
+
+        if (color != null && color != Color.NONE && this.viewModel.setBackground(x, y, color)) {
+            this.scheduleFlush();
         }
     }
 
     public Color getCellColor(int x, int y) {
-        return this.toEngineColor(this.labelCells[y][x].getBackground());
+        if (this.headless != null) {
+            return this.headless.getCellColor(x, y);
+        }
+
+        return this.viewModel.getBackground(x, y);
     }
 
     public void showGrid(boolean isShow) {
@@ -177,20 +462,27 @@ public class Game implements GameScreen {
     }
 
     public void setCellValue(int x, int y, String value) {
-        CellLabel currentCell = this.labelCells[y][x];
+        if (this.headless != null) {
+            this.headless.setCellValue(x, y, value);
 
-        if (!currentCell.getText().equals(value)) {
-            float cellFontSize = value.length() <= 4 ? (float) cellSize * 0.4F : (float) (cellSize / value.length());
-
-            currentCell.setFont(currentCell.getFont().deriveFont(cellFontSize));
+            return;
+        }
 
-            currentCell.setText(value);
+        if (this.viewModel.setValue(x, y, value, this.cellFontSize(value))) {
+            this.scheduleFlush();
         }
     }
 
+    private float cellFontSize(String value) {
+        return value.length() <= 4 ? (float) cellSize * 0.4F : (float) (cellSize / value.length());
+    }
+
     public String getCellValue(int x, int y) {
-        String text = this.labelCells[y][x].getText();
-        return text != null ? text : "";
+        if (this.headless != null) {
+            return this.headless.getCellValue(x, y);
+        }
+
+        return this.viewModel.getValue(x, y);
     }
 
     public void setCellNumber(int x, int y, int value) {
@@ -217,58 +509,74 @@ public class Game implements GameScreen {
     }
 
     public void setCellTextColor(int x, int y, Color color) {
-        this.labelCells[y][x].setForeground(this.toAwtColor(color));
-    }
-
-    public Color getCellTextColor(int x, int y) {
-        return this.toEngineColor(this.labelCells[y][x].getForeground());
-    }
+        if (this.headless != null) {
+            this.headless.setCellTextColor(x, y, color);
 
-    public void setTurnTimer(int timeMs) {
-        this.turnTimerMs = timeMs;
-
-        if (this.timer != null) {
-            this.timer.shutdownNow();
+            return;
+        }
 
+        if (this.viewModel.setForeground(x, y, color)) {
+            this.scheduleFlush();
         }
+    }
 
-        if (timeMs > 0) {
-            this.timer = Executors.newSingleThreadScheduledExecutor();
+    public Color getCellTextColor(int x, int y) {
+        if (this.headless != null) {
+            return this.headless.getCellTextColor(x, y);
+        }
 
-            Runnable runnable = new TimerTask() {
-                public void run() {
-                    if (!Game.this.isMessageShown) {
-                        Game.this.onTurn(++Game.this.timerStep);
+        Color color = this.viewModel.getForeground(x, y);
 
-                        if (Game.this.rootPanel != null) {
-                            Game.this.rootPanel.repaint();
+        return color != null ? color : this.toEngineColor(this.labelCells[y][x].getForeground());
+    }
 
-                        }
+    /**
+     * Calls {@link #onTurn(int)} every {@code timeMs} milliseconds on the game loop thread, at a fixed timestep
+     * (see {@link GameLoop}); 0 or less stops the turns. Screens driven by their caller run without the game
+     * loop thread and get no turns.
+     */
+    public void setTurnTimer(int timeMs) {
+        this.turnTimerMs = Math.max(0, timeMs);
 
-                    }
+        this.gameLoop.setTickPeriod(TimeUnit.MILLISECONDS.toNanos(this.turnTimerMs));
+    }
 
-                }
-            };
+    public void stopTurnTimer() {
+        this.setTurnTimer(0);
 
-            this.timer.scheduleAtFixedRate(runnable, (long) this.turnTimerMs, (long) this.turnTimerMs, TimeUnit.MILLISECONDS);
-        }
     }
 
-    public void stopTurnTimer() {
-        if (this.timer != null) {
-            this.timer.shutdownNow();
-        }
+    /**
+     * Renders up to {@code fps} frames per second between turns, calling {@link #onRender(double)} for each;
+     * 0 (the default) renders once after every turn.
+     */
+    public void setFrameRate(int fps) {
+        this.frameRate = Math.max(0, fps);
 
+        this.gameLoop.setFramePeriod(this.frameRate > 0 ? TimeUnit.SECONDS.toNanos(1) / this.frameRate : 0);
     }
 
     public int getRandomNumber(int max) {
-        return random.nextInt(max);
+        return this.random.nextInt(max);
 
     }
 
     public int getRandomNumber(int min, int max) {
-        return random.nextInt(max - min) + min;
+        return this.random.nextInt(min, max);
+
+    }
+
+    /**
+     * Restarts {@link #getRandomNumber(int)} from the given seed; each game has its own generator.
+     */
+    public void setRandomSeed(long seed) {
+        this.randomSeed = seed;
 
+        this.random = new SplittableRandom(seed);
+    }
+
+    public long getRandomSeed() {
+        return this.randomSeed;
     }
 
     public void initialize() {
@@ -295,17 +603,77 @@ public class Game implements GameScreen {
 
     }
 
+    /**
+     * Called before each frame while the turn timer runs.
+     *
+     * @param alpha how far the clock is into the current turn, from 0 (just ran) to 1 (next turn due); games
+     *              that animate draw positions interpolated between the last two turns with it
+     */
+    public void onRender(double alpha) {
+
+    }
+
     public void setCellTextSize(int x, int y, int size) {
+        if (this.headless != null) {
+            this.headless.setCellTextSize(x, y, size);
+
+            return;
+        }
+
         size = size > 100 ? 100 : size;
 
         double fontSize = (double) cellSize * ((double) size / (double) 100.0F);
 
-        this.labelCells[y][x].setFont(this.labelCells[y][x].getFont().deriveFont((float) fontSize));
+        if (this.viewModel.setFontSize(x, y, (float) fontSize)) {
+            this.scheduleFlush();
+        }
 
     }
 
     public int getCellTextSize(int x, int y) {
-        return this.labelCells[y][x].getFont().getSize() * 100 / cellSize;
+        if (this.headless != null) {
+            return this.headless.getCellTextSize(x, y);
+        }
+
+        float fontSize = this.viewModel.getFontSize(x, y);
+
+        int size = fontSize != 0 ? (int) fontSize : this.labelCells[y][x].getFont().getSize();
+
+        return size * 100 / cellSize;
+    }
+
+    /**
+     * Queues one EDT task that applies all cell changes made until it runs.
+     */
+    private void scheduleFlush() {
+        SwingUtilities.invokeLater(this.flushTask);
+    }
+
+    /**
+     * Starts an input-to-paint measurement unless an earlier input is still waiting for its paint.
+     */
+    private void inputReceived() {
+        if (this.inputNanos == 0) {
+            this.inputNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Ends the pending input-to-paint measurement, if any. Called by every paint of the board, so an input
+     * that changes nothing on screen is measured up to the next paint.
+     */
+    private void inputPainted() {
+        long input = this.inputNanos;
+
+        if (input != 0) {
+            this.inputNanos = 0;
+
+            Metrics.INPUT_TO_PAINT.recordSince(input);
+        }
+    }
+
+    private void flushView() {
+        this.viewModel.flush(this.labelCells);
     }
 
     public void setCellValueEx(int x, int y, Color cellColor, String value) {
@@ -314,8 +682,15 @@ public class Game implements GameScreen {
     }
 
     public void setCellValueEx(int x, int y, Color cellColor, String value, Color textColor) {
-        this.setCellValueEx(x, y, cellColor, value);
-        this.setCellTextColor(x, y, textColor);
+        if (this.headless != null) {
+            this.headless.setCellValueEx(x, y, cellColor, value, textColor);
+
+            return;
+        }
+
+        if (this.viewModel.setCell(x, y, cellColor, value, this.cellFontSize(value), textColor)) {
+            this.scheduleFlush();
+        }
     }
 
     public void setCellValueEx(int x, int y, Color cellColor, String value, Color textColor, int textSize) {
@@ -326,216 +701,77 @@ public class Game implements GameScreen {
     public void showMessageDialog(Color cellColor, String message, Color textColor, int textSize) {
         this.isMessageShown = true;
 
-        this.dialogLabel = new JLabel(message, 0);
+        if (this.headless != null) {
+            this.headless.showMessageDialog(cellColor, message, textColor, textSize);
 
-        this.dialogLabel.setFont(new Font("Verdana", 1, textSize));
+            return;
+        }
 
-        this.dialogLabel.setForeground(this.toAwtColor(textColor));
+        java.awt.Color background = cellColor == Color.NONE ? null : this.toAwtColor(cellColor);
 
-        this.dialogBackGround = cellColor == Color.NONE ? null : this.toAwtColor(cellColor);
+        Overlay current = this.overlay;
 
-        if (this.rootPanel != null) {
-            this.rootPanel.repaint();
-
-        }
+        this.publishOverlay(new Overlay(current.score(), current.scoreText(), message, this.toAwtColor(textColor), background, FontCache.get("Verdana", 1, textSize)));
 
     }
 
     private void hideMessageDialog() {
         this.isMessageShown = false;
 
-        this.dialogLabel = new JLabel();
+        if (this.headless != null) {
+            this.headless.hideMessageDialog();
 
-        this.dialogBackGround = null;
+            return;
+        }
 
-        if (this.rootPanel != null) {
-            this.rootPanel.repaint();
+        Overlay current = this.overlay;
 
-        }
+        this.publishOverlay(new Overlay(current.score(), current.scoreText(), null, null, null, null));
 
     }
 
     public void setScore(int score) {
         this.score = score;
 
-        if (this.rootPanel != null) {
+        if (this.headless != null) {
+            this.headless.setScore(score);
 
+            return;
+        }
+
+        Overlay current = this.overlay;
+
+        if (current.score() != score) {
+            this.publishOverlay(new Overlay(score, "Score: " + score, current.message(), current.messageColor(), current.messageBackground(), current.messageFont()));
         }
 
     }
 
-    public void setLives(int lives) {
+    private void publishOverlay(Overlay overlay) {
+        this.overlay = overlay;
+
+        if (this.rootPanel != null) {
+            this.rootPanel.repaint();
 
+        }
     }
 
-    private void mapColors() {
-        this.colorMap.put(Color.NONE, new java.awt.Color(0.0F, 0.0F, 0.0F, 0.0F));
-        this.colorMap.put(Color.TRANSPARENT, new java.awt.Color(0.0F, 0.0F, 0.0F, 0.0F));
-        this.colorMap.put(Color.ALICEBLUE, new java.awt.Color(0.9411765F, 0.972549F, 1.0F));
-        this.colorMap.put(Color.ANTIQUEWHITE, new java.awt.Color(0.98039216F, 0.92156863F, 0.84313726F));
-        this.colorMap.put(Color.AQUA, new java.awt.Color(0.0F, 1.0F, 1.0F));
-        this.colorMap.put(Color.AQUAMARINE, new java.awt.Color(0.49803922F, 1.0F, 0.83137256F));
-        this.colorMap.put(Color.AZURE, new java.awt.Color(0.9411765F, 1.0F, 1.0F));
-        this.colorMap.put(Color.BEIGE, new java.awt.Color(0.9607843F, 0.9607843F, 0.8627451F));
-        this.colorMap.put(Color.BISQUE, new java.awt.Color(1.0F, 0.89411765F, 0.76862746F));
-        this.colorMap.put(Color.BLACK, new java.awt.Color(0.0F, 0.0F, 0.0F));
-        this.colorMap.put(Color.BLANCHEDALMOND, new java.awt.Color(1.0F, 0.92156863F, 0.8039216F));
-        this.colorMap.put(Color.BLUE, new java.awt.Color(0.0F, 0.0F, 1.0F));
-        this.colorMap.put(Color.BLUEVIOLET, new java.awt.Color(0.5411765F, 0.16862746F, 0.8862745F));
-        this.colorMap.put(Color.BROWN, new java.awt.Color(0.64705884F, 0.16470589F, 0.16470589F));
-        this.colorMap.put(Color.BURLYWOOD, new java.awt.Color(0.87058824F, 0.72156864F, 0.5294118F));
-        this.colorMap.put(Color.CADETBLUE, new java.awt.Color(0.37254903F, 0.61960787F, 0.627451F));
-        this.colorMap.put(Color.CHARTREUSE, new java.awt.Color(0.49803922F, 1.0F, 0.0F));
-        this.colorMap.put(Color.CHOCOLATE, new java.awt.Color(0.8235294F, 0.4117647F, 0.11764706F));
-        this.colorMap.put(Color.CORAL, new java.awt.Color(1.0F, 0.49803922F, 0.3137255F));
-        this.colorMap.put(Color.CORNFLOWERBLUE, new java.awt.Color(0.39215687F, 0.58431375F, 0.92941177F));
-        this.colorMap.put(Color.CORNSILK, new java.awt.Color(1.0F, 0.972549F, 0.8627451F));
-        this.colorMap.put(Color.CRIMSON, new java.awt.Color(0.8627451F, 0.078431375F, 0.23529412F));
-        this.colorMap.put(Color.CYAN, new java.awt.Color(0.0F, 1.0F, 1.0F));
-        this.colorMap.put(Color.DARKBLUE, new java.awt.Color(0.0F, 0.0F, 0.54509807F));
-        this.colorMap.put(Color.DARKCYAN, new java.awt.Color(0.0F, 0.54509807F, 0.54509807F));
-        this.colorMap.put(Color.DARKGOLDENROD, new java.awt.Color(0.72156864F, 0.5254902F, 0.043137256F));
-        this.colorMap.put(Color.DARKGRAY, new java.awt.Color(0.6627451F, 0.6627451F, 0.6627451F));
-        this.colorMap.put(Color.DARKGREEN, new java.awt.Color(0.0F, 0.39215687F, 0.0F));
-        this.colorMap.put(Color.DARKGREY, new java.awt.Color(0.6627451F, 0.6627451F, 0.6627451F));
-        this.colorMap.put(Color.DARKKHAKI, new java.awt.Color(0.7411765F, 0.7176471F, 0.41960785F));
-        this.colorMap.put(Color.DARKMAGENTA, new java.awt.Color(0.54509807F, 0.0F, 0.54509807F));
-        this.colorMap.put(Color.DARKOLIVEGREEN, new java.awt.Color(0.33333334F, 0.41960785F, 0.18431373F));
-        this.colorMap.put(Color.DARKORANGE, new java.awt.Color(1.0F, 0.54901963F, 0.0F));
-        this.colorMap.put(Color.DARKORCHID, new java.awt.Color(0.6F, 0.19607843F, 0.8F));
-        this.colorMap.put(Color.DARKRED, new java.awt.Color(0.54509807F, 0.0F, 0.0F));
-        this.colorMap.put(Color.DARKSALMON, new java.awt.Color(0.9137255F, 0.5882353F, 0.47843137F));
-        this.colorMap.put(Color.DARKSEAGREEN, new java.awt.Color(0.56078434F, 0.7372549F, 0.56078434F));
-        this.colorMap.put(Color.DARKSLATEBLUE, new java.awt.Color(0.28235295F, 0.23921569F, 0.54509807F));
-        this.colorMap.put(Color.DARKSLATEGRAY, new java.awt.Color(0.18431373F, 0.30980393F, 0.30980393F));
-        this.colorMap.put(Color.DARKSLATEGREY, new java.awt.Color(0.18431373F, 0.30980393F, 0.30980393F));
-        this.colorMap.put(Color.DARKTURQUOISE, new java.awt.Color(0.0F, 0.80784315F, 0.81960785F));
-        this.colorMap.put(Color.DARKVIOLET, new java.awt.Color(0.5803922F, 0.0F, 0.827451F));
-        this.colorMap.put(Color.DEEPPINK, new java.awt.Color(1.0F, 0.078431375F, 0.5764706F));
-        this.colorMap.put(Color.DEEPSKYBLUE, new java.awt.Color(0.0F, 0.7490196F, 1.0F));
-        this.colorMap.put(Color.DIMGRAY, new java.awt.Color(0.4117647F, 0.4117647F, 0.4117647F));
-        this.colorMap.put(Color.DIMGREY, new java.awt.Color(0.4117647F, 0.4117647F, 0.4117647F));
-        this.colorMap.put(Color.DODGERBLUE, new java.awt.Color(0.11764706F, 0.5647059F, 1.0F));
-        this.colorMap.put(Color.FIREBRICK, new java.awt.Color(0.69803923F, 0.13333334F, 0.13333334F));
-        this.colorMap.put(Color.FLORALWHITE, new java.awt.Color(1.0F, 0.98039216F, 0.9411765F));
-        this.colorMap.put(Color.FORESTGREEN, new java.awt.Color(0.13333334F, 0.54509807F, 0.13333334F));
-        this.colorMap.put(Color.FUCHSIA, new java.awt.Color(1.0F, 0.0F, 1.0F));
-        this.colorMap.put(Color.GAINSBORO, new java.awt.Color(0.8627451F, 0.8627451F, 0.8627451F));
-        this.colorMap.put(Color.GHOSTWHITE, new java.awt.Color(0.972549F, 0.972549F, 1.0F));
-        this.colorMap.put(Color.GOLD, new java.awt.Color(1.0F, 0.84313726F, 0.0F));
-        this.colorMap.put(Color.GOLDENROD, new java.awt.Color(0.85490197F, 0.64705884F, 0.1254902F));
-        this.colorMap.put(Color.GRAY, new java.awt.Color(0.5019608F, 0.5019608F, 0.5019608F));
-        this.colorMap.put(Color.GREEN, new java.awt.Color(0.0F, 0.5019608F, 0.0F));
-        this.colorMap.put(Color.GREENYELLOW, new java.awt.Color(0.6784314F, 1.0F, 0.18431373F));
-        this.colorMap.put(Color.GREY, new java.awt.Color(0.5019608F, 0.5019608F, 0.5019608F));
-        this.colorMap.put(Color.HONEYDEW, new java.awt.Color(0.9411765F, 1.0F, 0.9411765F));
-        this.colorMap.put(Color.HOTPINK, new java.awt.Color(1.0F, 0.4117647F, 0.7058824F));
-        this.colorMap.put(Color.INDIANRED, new java.awt.Color(0.8039216F, 0.36078432F, 0.36078432F));
-        this.colorMap.put(Color.INDIGO, new java.awt.Color(0.29411766F, 0.0F, 0.50980395F));
-        this.colorMap.put(Color.IVORY, new java.awt.Color(1.0F, 1.0F, 0.9411765F));
-        this.colorMap.put(Color.KHAKI, new java.awt.Color(0.9411765F, 0.9019608F, 0.54901963F));
-        this.colorMap.put(Color.LAVENDER, new java.awt.Color(0.9019608F, 0.9019608F, 0.98039216F));
-        this.colorMap.put(Color.LAVENDERBLUSH, new java.awt.Color(1.0F, 0.9411765F, 0.9607843F));
-        this.colorMap.put(Color.LAWNGREEN, new java.awt.Color(0.4862745F, 0.9882353F, 0.0F));
-        this.colorMap.put(Color.LEMONCHIFFON, new java.awt.Color(1.0F, 0.98039216F, 0.8039216F));
-        this.colorMap.put(Color.LIGHTBLUE, new java.awt.Color(0.6784314F, 0.84705883F, 0.9019608F));
-        this.colorMap.put(Color.LIGHTCORAL, new java.awt.Color(0.9411765F, 0.5019608F, 0.5019608F));
-        this.colorMap.put(Color.LIGHTCYAN, new java.awt.Color(0.8784314F, 1.0F, 1.0F));
-        this.colorMap.put(Color.LIGHTGOLDENRODYELLOW, new java.awt.Color(0.98039216F, 0.98039216F, 0.8235294F));
-        this.colorMap.put(Color.LIGHTGRAY, new java.awt.Color(0.827451F, 0.827451F, 0.827451F));
-        this.colorMap.put(Color.LIGHTGREEN, new java.awt.Color(0.5647059F, 0.93333334F, 0.5647059F));
-        this.colorMap.put(Color.LIGHTGREY, new java.awt.Color(0.827451F, 0.827451F, 0.827451F));
-        this.colorMap.put(Color.LIGHTPINK, new java.awt.Color(1.0F, 0.7137255F, 0.75686276F));
-        this.colorMap.put(Color.LIGHTSALMON, new java.awt.Color(1.0F, 0.627451F, 0.47843137F));
-        this.colorMap.put(Color.LIGHTSEAGREEN, new java.awt.Color(0.1254902F, 0.69803923F, 0.6666667F));
-        this.colorMap.put(Color.LIGHTSKYBLUE, new java.awt.Color(0.5294118F, 0.80784315F, 0.98039216F));
-        this.colorMap.put(Color.LIGHTSLATEGRAY, new java.awt.Color(0.46666667F, 0.53333336F, 0.6F));
-        this.colorMap.put(Color.LIGHTSLATEGREY, new java.awt.Color(0.46666667F, 0.53333336F, 0.6F));
-        this.colorMap.put(Color.LIGHTSTEELBLUE, new java.awt.Color(0.6901961F, 0.76862746F, 0.87058824F));
-        this.colorMap.put(Color.LIGHTYELLOW, new java.awt.Color(1.0F, 1.0F, 0.8784314F));
-        this.colorMap.put(Color.LIME, new java.awt.Color(0.0F, 1.0F, 0.0F));
-        this.colorMap.put(Color.LIMEGREEN, new java.awt.Color(0.19607843F, 0.8039216F, 0.19607843F));
-        this.colorMap.put(Color.LINEN, new java.awt.Color(0.98039216F, 0.9411765F, 0.9019608F));
-        this.colorMap.put(Color.MAGENTA, new java.awt.Color(1.0F, 0.0F, 1.0F));
-        this.colorMap.put(Color.MAROON, new java.awt.Color(0.5019608F, 0.0F, 0.0F));
-        this.colorMap.put(Color.MEDIUMAQUAMARINE, new java.awt.Color(0.4F, 0.8039216F, 0.6666667F));
-        this.colorMap.put(Color.MEDIUMBLUE, new java.awt.Color(0.0F, 0.0F, 0.8039216F));
-        this.colorMap.put(Color.MEDIUMORCHID, new java.awt.Color(0.7294118F, 0.33333334F, 0.827451F));
-        this.colorMap.put(Color.MEDIUMPURPLE, new java.awt.Color(0.5764706F, 0.4392157F, 0.85882354F));
-        this.colorMap.put(Color.MEDIUMSEAGREEN, new java.awt.Color(0.23529412F, 0.7019608F, 0.44313726F));
-        this.colorMap.put(Color.MEDIUMSLATEBLUE, new java.awt.Color(0.48235294F, 0.40784314F, 0.93333334F));
-        this.colorMap.put(Color.MEDIUMSPRINGGREEN, new java.awt.Color(0.0F, 0.98039216F, 0.6039216F));
-        this.colorMap.put(Color.MEDIUMTURQUOISE, new java.awt.Color(0.28235295F, 0.81960785F, 0.8F));
-        this.colorMap.put(Color.MEDIUMVIOLETRED, new java.awt.Color(0.78039217F, 0.08235294F, 0.52156866F));
-        this.colorMap.put(Color.MIDNIGHTBLUE, new java.awt.Color(0.09803922F, 0.09803922F, 0.4392157F));
-        this.colorMap.put(Color.MINTCREAM, new java.awt.Color(0.9607843F, 1.0F, 0.98039216F));
-        this.colorMap.put(Color.MISTYROSE, new java.awt.Color(1.0F, 0.89411765F, 0.88235295F));
-        this.colorMap.put(Color.MOCCASIN, new java.awt.Color(1.0F, 0.89411765F, 0.70980394F));
-        this.colorMap.put(Color.NAVAJOWHITE, new java.awt.Color(1.0F, 0.87058824F, 0.6784314F));
-        this.colorMap.put(Color.NAVY, new java.awt.Color(0.0F, 0.0F, 0.5019608F));
-        this.colorMap.put(Color.OLDLACE, new java.awt.Color(0.99215686F, 0.9607843F, 0.9019608F));
-        this.colorMap.put(Color.OLIVE, new java.awt.Color(0.5019608F, 0.5019608F, 0.0F));
-        this.colorMap.put(Color.OLIVEDRAB, new java.awt.Color(0.41960785F, 0.5568628F, 0.13725491F));
-        this.colorMap.put(Color.ORANGE, new java.awt.Color(1.0F, 0.64705884F, 0.0F));
-        this.colorMap.put(Color.ORANGERED, new java.awt.Color(1.0F, 0.27058825F, 0.0F));
-        this.colorMap.put(Color.ORCHID, new java.awt.Color(0.85490197F, 0.4392157F, 0.8392157F));
-        this.colorMap.put(Color.PALEGOLDENROD, new java.awt.Color(0.93333334F, 0.9098039F, 0.6666667F));
-        this.colorMap.put(Color.PALEGREEN, new java.awt.Color(0.59607846F, 0.9843137F, 0.59607846F));
-        this.colorMap.put(Color.PALETURQUOISE, new java.awt.Color(0.6862745F, 0.93333334F, 0.93333334F));
-        this.colorMap.put(Color.PALEVIOLETRED, new java.awt.Color(0.85882354F, 0.4392157F, 0.5764706F));
-        this.colorMap.put(Color.PAPAYAWHIP, new java.awt.Color(1.0F, 0.9372549F, 0.8352941F));
-        this.colorMap.put(Color.PEACHPUFF, new java.awt.Color(1.0F, 0.85490197F, 0.7254902F));
-        this.colorMap.put(Color.PERU, new java.awt.Color(0.8039216F, 0.52156866F, 0.24705882F));
-        this.colorMap.put(Color.PINK, new java.awt.Color(1.0F, 0.7529412F, 0.79607844F));
-        this.colorMap.put(Color.PLUM, new java.awt.Color(0.8666667F, 0.627451F, 0.8666667F));
-        this.colorMap.put(Color.POWDERBLUE, new java.awt.Color(0.6901961F, 0.8784314F, 0.9019608F));
-        this.colorMap.put(Color.PURPLE, new java.awt.Color(0.5019608F, 0.0F, 0.5019608F));
-        this.colorMap.put(Color.RED, new java.awt.Color(1.0F, 0.0F, 0.0F));
-        this.colorMap.put(Color.ROSYBROWN, new java.awt.Color(0.7372549F, 0.56078434F, 0.56078434F));
-        this.colorMap.put(Color.ROYALBLUE, new java.awt.Color(0.25490198F, 0.4117647F, 0.88235295F));
-        this.colorMap.put(Color.SADDLEBROWN, new java.awt.Color(0.54509807F, 0.27058825F, 0.07450981F));
-        this.colorMap.put(Color.SALMON, new java.awt.Color(0.98039216F, 0.5019608F, 0.44705883F));
-        this.colorMap.put(Color.SANDYBROWN, new java.awt.Color(0.95686275F, 0.6431373F, 0.3764706F));
-        this.colorMap.put(Color.SEAGREEN, new java.awt.Color(0.18039216F, 0.54509807F, 0.34117648F));
-        this.colorMap.put(Color.SEASHELL, new java.awt.Color(1.0F, 0.9607843F, 0.93333334F));
-        this.colorMap.put(Color.SIENNA, new java.awt.Color(0.627451F, 0.32156864F, 0.1764706F));
-        this.colorMap.put(Color.SILVER, new java.awt.Color(0.7529412F, 0.7529412F, 0.7529412F));
-        this.colorMap.put(Color.SKYBLUE, new java.awt.Color(0.5294118F, 0.80784315F, 0.92156863F));
-        this.colorMap.put(Color.SLATEBLUE, new java.awt.Color(0.41568628F, 0.3529412F, 0.8039216F));
-        this.colorMap.put(Color.SLATEGRAY, new java.awt.Color(0.4392157F, 0.5019608F, 0.5647059F));
-        this.colorMap.put(Color.SLATEGREY, new java.awt.Color(0.4392157F, 0.5019608F, 0.5647059F));
-        this.colorMap.put(Color.SNOW, new java.awt.Color(1.0F, 0.98039216F, 0.98039216F));
-        this.colorMap.put(Color.SPRINGGREEN, new java.awt.Color(0.0F, 1.0F, 0.49803922F));
-        this.colorMap.put(Color.STEELBLUE, new java.awt.Color(0.27450982F, 0.50980395F, 0.7058824F));
-        this.colorMap.put(Color.TAN, new java.awt.Color(0.8235294F, 0.7058824F, 0.54901963F));
-        this.colorMap.put(Color.TEAL, new java.awt.Color(0.0F, 0.5019608F, 0.5019608F));
-        this.colorMap.put(Color.THISTLE, new java.awt.Color(0.84705883F, 0.7490196F, 0.84705883F));
-        this.colorMap.put(Color.TOMATO, new java.awt.Color(1.0F, 0.3882353F, 0.2784314F));
-        this.colorMap.put(Color.TURQUOISE, new java.awt.Color(0.2509804F, 0.8784314F, 0.8156863F));
-        this.colorMap.put(Color.VIOLET, new java.awt.Color(0.93333334F, 0.50980395F, 0.93333334F));
-        this.colorMap.put(Color.WHEAT, new java.awt.Color(0.9607843F, 0.87058824F, 0.7019608F));
-        this.colorMap.put(Color.WHITE, new java.awt.Color(1.0F, 1.0F, 1.0F));
-        this.colorMap.put(Color.WHITESMOKE, new java.awt.Color(0.9607843F, 0.9607843F, 0.9607843F));
-        this.colorMap.put(Color.YELLOW, new java.awt.Color(1.0F, 1.0F, 0.0F));
-        this.colorMap.put(Color.YELLOWGREEN, new java.awt.Color(0.6039216F, 0.8039216F, 0.19607843F));
+    public void setLives(int lives) {
+
     }
 
     private java.awt.Color toAwtColor(Color color) {
-        return (java.awt.Color) this.colorMap.get(color);
+        return ColorPalette.toAwtColor(color);
     }
 
     private Color toEngineColor(java.awt.Color color) {
-        for (Map.Entry<Color, java.awt.Color> colorColorEntry : this.colorMap.entrySet()) {
-            if (((java.awt.Color) colorColorEntry.getValue()).equals(color)) {
-                return (Color) colorColorEntry.getKey();
-            }
-        }
-        return Color.NONE;
+        return ColorPalette.toEngineColor(color);
     }
 
     class CellLabel extends JLabel {
         private int x;
         private int y;
+        private final String coordinates;
 
         public CellLabel(int x, int y) {
             this.setHorizontalAlignment(0);
@@ -546,6 +782,8 @@ public class Game implements GameScreen {
 
             this.y = y;
 
+            this.coordinates = x + "-" + y;
+
             this.setBackground(java.awt.Color.WHITE);
 
             this.setOpaque(true);
@@ -560,25 +798,19 @@ public class Game implements GameScreen {
 
         }
 
-        public void repaint() {
-            if (Game.this.turnTimerMs == 0) {
-                super.repaint();
-            }
-        }
-
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
 
-            if (Game.this.showCoordinates) {
-                String text = this.x + "-" + this.y;
+            Game.this.inputPainted();
 
+            if (Game.this.showCoordinates) {
                 g.setColor(java.awt.Color.BLACK);
 
                 int fontSize = Game.cellSize / 3;
 
-                g.setFont(new Font("TimesRoman", 0, fontSize));
+                g.setFont(FontCache.get("TimesRoman", 0, fontSize));
 
-                g.drawString(text, fontSize / 2, fontSize);
+                g.drawString(this.coordinates, fontSize / 2, fontSize);
             }
         }
     }
@@ -595,38 +827,27 @@ public class Game implements GameScreen {
         }
 
         public void mouseClicked(MouseEvent e) {
-            if (Game.this.isMessageShown) {
-                Game.this.hideMessageDialog();
-            }
-
-            if (Game.cellSize != 0) {
-                switch (e.getButton()) {
-                    case 1:
-                        Game.this.onMouseLeftClick(this.x, this.y);
-                        break;
-                    case 3:
-                        Game.this.onMouseRightClick(this.x, this.y);
-                }
+            Game.this.inputReceived();
+
+            switch (e.getButton()) {
+                case 1:
+                    Game.this.post(GameLoop.event(GameLoop.MOUSE_LEFT, this.x, this.y));
+                    break;
+                case 3:
+                    Game.this.post(GameLoop.event(GameLoop.MOUSE_RIGHT, this.x, this.y));
             }
         }
     }
 
     class GameKeyListener extends KeyAdapter {
         public void keyPressed(KeyEvent e) {
-            if (Game.this.isMessageShown) {
-                if (this.getKey(e) == Key.SPACE) {
-                    Game.this.hideMessageDialog();
-                }
-
-                Game.this.onKeyPress(this.getKey(e));
+            Game.this.inputReceived();
 
-            } else {
-                Game.this.onKeyPress(this.getKey(e));
-            }
+            Game.this.post(GameLoop.event(GameLoop.KEY_PRESSED, this.getKey(e).ordinal(), 0));
         }
 
         public void keyReleased(KeyEvent e) {
-            Game.this.onKeyReleased(this.getKey(e));
+            Game.this.post(GameLoop.event(GameLoop.KEY_RELEASED, this.getKey(e).ordinal(), 0));
         }
 
         private Key getKey(KeyEvent e) {
@@ -651,9 +872,19 @@ public class Game implements GameScreen {
 
         }
 
+        public void paint(Graphics g) {
+            long start = System.nanoTime();
+
+            super.paint(g);
+
+            Metrics.RENDER.recordSince(start);
+        }
+
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
 
+            Metrics.REPAINTS.increment();
+
             g.drawImage(Game.this.backgroundImg, 0, 0, (ImageObserver) null);
 
             int scoreWidth = (Game.this.width * Game.cellSize - 1) / 2;
@@ -668,40 +899,54 @@ public class Game implements GameScreen {
 
             g.setColor(java.awt.Color.WHITE);
 
-            g.setFont(new Font("Verdana", 1, fontSize));
+            g.setFont(FontCache.get("Verdana", 1, fontSize));
 
             g.fillRect(x, y, scoreWidth, scoreHeight);
 
             g.setColor(java.awt.Color.BLACK);
 
-            g.drawString("Score: " + Game.this.score, x + scoreWidth / 2 - 35, y + fontSize);
+            g.drawString(Game.this.overlay.scoreText(), x + scoreWidth / 2 - 35, y + fontSize);
 
         }
 
         protected void paintChildren(Graphics g) {
             super.paintChildren(g);
 
-            if (Game.this.isMessageShown) {
-                int dialogWidth = (int) Game.this.dialogLabel.getPreferredSize().getWidth();
+            Game.this.inputPainted();
+
+            StartupTimer.firstFrame();
+
+            Overlay overlay = Game.this.overlay;
+
+            if (overlay.message() != null) {
+                FontMetrics metrics = g.getFontMetrics(overlay.messageFont());
 
-                int dialogHeight = (int) Game.this.dialogLabel.getPreferredSize().getHeight();
+                int dialogWidth = metrics.stringWidth(overlay.message());
+
+                int dialogHeight = metrics.getHeight();
 
                 int messageX = this.getWidth() / 2 - dialogWidth / 2;
 
                 int messageY = this.getHeight() / 2 - dialogHeight / 2;
 
-                if (Game.this.dialogBackGround != null) {
-                    g.setColor(Game.this.dialogBackGround);
+                if (overlay.messageBackground() != null) {
+                    g.setColor(overlay.messageBackground());
 
                     g.fillRect(messageX, messageY, dialogWidth, dialogHeight);
                 }
 
-                g.setColor(Game.this.dialogLabel.getForeground());
+                g.setColor(overlay.messageColor());
 
-                g.setFont(Game.this.dialogLabel.getFont());
+                g.setFont(overlay.messageFont());
 
-                g.drawString(Game.this.dialogLabel.getText(), messageX, messageY + (int) ((double) dialogHeight * 0.8));
+                g.drawString(overlay.message(), messageX, messageY + (int) ((double) dialogHeight * 0.8));
             }
         }
     }
+
+    /**
+     * Immutable snapshot of the score line and the message dialog.
+     */
+    record Overlay(int score, String scoreText, String message, java.awt.Color messageColor, java.awt.Color messageBackground, Font messageFont) {
+    }
 }
@@ -0,0 +1,255 @@
+package com.xowin;
+
+import com.xowin.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * The single thread that owns the game state once the window is up, and the game's only scheduler.
+ *
+ * Swing listeners never call into the game directly; they {@link #post(long)} an event packed into a
+ * {@code long} onto a lock-free queue, and the loop thread hands the events to the game one at a time in
+ * arrival order. The thread parks while there is nothing to do.
+ *
+ * With a tick period set, the loop also runs the game logic at a fixed timestep: a {@link #TURN} event is due
+ * every period, counted from the start of the timer rather than from the previous tick, so ticks do not drift
+ * when one runs late. After a stall the loop runs up to {@link #MAX_CATCH_UP_TICKS} overdue ticks back to back
+ * and drops the rest. A batch of ticks is followed by a {@link #FRAME} event, unless the loop is still behind,
+ * in which case it skips the frame, at most {@link #MAX_CATCH_UP_TICKS} times in a row. With a frame period
+ * shorter than the tick period, frames are also rendered in between, each carrying how far the clock is into
+ * the current tick so the game can interpolate. Input events always go first. Tick lateness, dropped ticks, and
+ * rendered and skipped frames are published in {@link Metrics}.
+ */
+final class GameLoop implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameLoop.class);
+
+    static final int MOUSE_LEFT = 1;
+
+    static final int MOUSE_RIGHT = 2;
+
+    static final int KEY_PRESSED = 3;
+
+    static final int KEY_RELEASED = 4;
+
+    static final int TURN = 5;
+
+    /**
+     * A frame to render; the first field is the interpolation factor in units of 1 / {@link #ALPHA_ONE}.
+     */
+    static final int FRAME = 6;
+
+    /**
+     * Ends the program once the events queued before it have been handled.
+     */
+    static final int EXIT = 7;
+
+    static final int ALPHA_ONE = 1 << 16;
+
+    /**
+     * Most overdue ticks run back to back after a stall, any further ones are dropped; also the most frames
+     * skipped in a row to catch up.
+     */
+    static final int MAX_CATCH_UP_TICKS = 5;
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final MpscLongQueue queue = new MpscLongQueue(QUEUE_CAPACITY);
+
+    private final LongConsumer handler;
+
+    private final Thread thread;
+
+    private volatile boolean running;
+
+    /**
+     * Tick period in nanoseconds, 0 without a timer.
+     */
+    private volatile long tickNanos;
+
+    /**
+     * Bumped by every {@link #setTickPeriod(long)}; the loop restarts the tick schedule when it changes.
+     */
+    private volatile int tickSchedule;
+
+    /**
+     * Period of interpolated frames between ticks in nanoseconds, 0 to render once per batch of ticks only.
+     */
+    private volatile long frameNanos;
+
+    GameLoop(LongConsumer handler) {
+        this.handler = handler;
+        this.thread = new Thread(this, "game-loop");
+        this.thread.setDaemon(true);
+    }
+
+    static long event(int type, int first, int second) {
+        return (long) type << 48 | (long) (first & 0xFFFFFF) << 24 | (second & 0xFFFFFF);
+    }
+
+    static int type(long event) {
+        return (int) (event >>> 48);
+    }
+
+    static int first(long event) {
+        return (int) (event >>> 24) & 0xFFFFFF;
+    }
+
+    static int second(long event) {
+        return (int) event & 0xFFFFFF;
+    }
+
+    void start() {
+        running = true;
+
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets the logic timestep and restarts the tick schedule; 0 stops the ticks.
+     */
+    void setTickPeriod(long nanos) {
+        tickNanos = nanos;
+        tickSchedule++; // racing callers may lose an increment, but the value still changes
+
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets the period of interpolated frames between ticks; 0 renders once after each batch of ticks.
+     */
+    void setFramePeriod(long nanos) {
+        frameNanos = nanos;
+
+        LockSupport.unpark(thread);
+    }
+
+    static double alpha(long event) {
+        return (double) first(event) / ALPHA_ONE;
+    }
+
+    boolean isLoopThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Queues an event for the loop thread; callable from any thread.
+     */
+    void post(long event) {
+        while (!queue.offer(event)) {
+            Thread.onSpinWait();
+        }
+
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void run() {
+        long period = 0;
+
+        int schedule = 0;
+
+        // scheduled times of the next tick, of the last tick run and of the next interpolated frame
+        long nextTick = 0;
+        long lastTick = 0;
+        long nextFrame = 0;
+
+        int skippedFrames = 0;
+
+        while (running) {
+            long event = queue.poll();
+
+            if (event != MpscLongQueue.EMPTY) {
+                handle(event);
+
+                continue;
+            }
+
+            long now = System.nanoTime();
+
+            if (tickSchedule != schedule) {
+                schedule = tickSchedule;
+                period = tickNanos;
+
+                lastTick = now;
+                nextTick = now + period;
+                nextFrame = now;
+            }
+
+            if (period == 0) {
+                LockSupport.park(this);
+
+                continue;
+            }
+
+            if (now - nextTick >= 0) {
+                long due = (now - nextTick) / period + 1;
+
+                long run = Math.min(due, MAX_CATCH_UP_TICKS);
+
+                for (long i = 0; i < run; i++) {
+                    Metrics.TICK_JITTER.recordSince(nextTick + i * period);
+                    Metrics.TICKS.increment();
+
+                    handle(event(TURN, 0, 0));
+                }
+
+                if (due > run) {
+                    Metrics.MISSED_TICKS.add(due - run);
+                }
+
+                lastTick = nextTick + (due - 1) * period;
+                nextTick += due * period;
+
+                now = System.nanoTime();
+                nextFrame = now;
+
+                if (now - nextTick >= 0 && skippedFrames < MAX_CATCH_UP_TICKS) {
+                    // still behind: the next ticks go first, up to a limit so the screen keeps updating
+                    skippedFrames++;
+
+                    Metrics.SKIPPED_FRAMES.increment();
+
+                    continue;
+                }
+            }
+
+            long frame = frameNanos;
+
+            boolean interpolated = frame > 0 && frame < period;
+
+            if (now - nextFrame >= 0) {
+                long alpha = Math.min(ALPHA_ONE - 1, (now - lastTick) * ALPHA_ONE / period);
+
+                Metrics.FRAMES.increment();
+
+                skippedFrames = 0;
+
+                handle(event(FRAME, (int) alpha, 0));
+
+                nextFrame = interpolated ? now + frame : nextTick;
+            }
+
+            long wake = interpolated && nextFrame - nextTick < 0 ? nextFrame : nextTick;
+
+            LockSupport.parkNanos(this, wake - System.nanoTime());
+        }
+    }
+
+    private void handle(long event) {
+        try {
+            handler.accept(event);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to handle game event {}: {}", type(event), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.xowin;
+
+import javax.swing.Icon;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered images of the common cell values ("X", "O" and short numbers), shared by all cells.
+ *
+ * A cell showing such a value paints one cached image instead of laying out and rasterizing its text on every
+ * repaint. Images are keyed by value, font and color; every value keeps a few variants and recycles the
+ * oldest one when it needs more.
+ */
+final class GlyphCache {
+
+    private static final int MAX_DIGITS = 4;
+
+    private static final int VARIANTS_PER_VALUE = 8;
+
+    private static final Map<String, Variants> GLYPHS = new HashMap<>();
+
+    private static final Graphics2D MEASURE = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+    private GlyphCache() {
+    }
+
+    static boolean isCommon(String value) {
+        if (value.equals("X") || value.equals("O")) {
+            return true;
+        }
+
+        if (value.isEmpty() || value.length() > MAX_DIGITS) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the cached image of the value, or {@code null} if the value is not a common one.
+     */
+    static synchronized Icon get(String value, Font font, java.awt.Color color) {
+        if (color == null || !isCommon(value)) {
+            return null;
+        }
+
+        Variants variants = GLYPHS.computeIfAbsent(value, v -> new Variants());
+
+        for (Glyph glyph : variants.glyphs) {
+            if (glyph != null && glyph.font == font && glyph.rgb == color.getRGB()) {
+                return glyph;
+            }
+        }
+
+        Glyph glyph = new Glyph(value, font, color);
+
+        variants.glyphs[variants.next] = glyph;
+        variants.next = (variants.next + 1) % VARIANTS_PER_VALUE;
+
+        return glyph;
+    }
+
+    private static final class Variants {
+
+        private final Glyph[] glyphs = new Glyph[VARIANTS_PER_VALUE];
+
+        private int next;
+    }
+
+    private static final class Glyph implements Icon {
+
+        private final Font font;
+
+        private final int rgb;
+
+        private final BufferedImage image;
+
+        private Glyph(String value, Font font, java.awt.Color color) {
+            FontMetrics metrics = MEASURE.getFontMetrics(font);
+
+            this.font = font;
+            this.rgb = color.getRGB();
+            this.image = new BufferedImage(Math.max(1, metrics.stringWidth(value)), Math.max(1, metrics.getHeight()),
+                    BufferedImage.TYPE_INT_ARGB);
+
+            Graphics2D g = image.createGraphics();
+
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(font);
+            g.setColor(color);
+            g.drawString(value, 0, metrics.getAscent());
+            g.dispose();
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.drawImage(image, x, y, null);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return image.getWidth();
+        }
+
+        @Override
+        public int getIconHeight() {
+            return image.getHeight();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.xowin;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Renders the game into an off-screen {@link BufferedImage}, for snapshot tests and thumbnails.
+ *
+ * Drawing uses Java 2D in headless mode only: the constructor sets {@code java.awt.headless} unless it is
+ * already set, so no display connection or window toolkit is ever opened. "X" and "O" are drawn as strokes;
+ * fonts are only loaded for other cell values, the message and the score. The screen is driven by its caller:
+ * clicks and key presses given to it are handled before the call returns, and {@link #snapshot()} renders the
+ * latest state.
+ */
+public class ImageScreen extends CellScreen {
+
+    public static final int DEFAULT_CELL_PIXELS = 48;
+
+    /**
+     * Height of the score line below the board.
+     */
+    private static final int SCORE_PIXELS = 24;
+
+    private final int cellPixels;
+
+    private BufferedImage image;
+
+    public ImageScreen() {
+        this(DEFAULT_CELL_PIXELS);
+    }
+
+    public ImageScreen(int cellPixels) {
+        if (cellPixels < 8) {
+            throw new IllegalArgumentException("Cells must be at least 8 pixels: " + cellPixels);
+        }
+
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        this.cellPixels = cellPixels;
+    }
+
+    @Override
+    public void setScreenSize(int width, int height) {
+        super.setScreenSize(width, height);
+
+        image = new BufferedImage(width * cellPixels + 1, height * cellPixels + 1 + SCORE_PIXELS,
+                BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Returns the image of the current state. The image is reused: later snapshots draw into the same instance.
+     */
+    public BufferedImage snapshot() {
+        present();
+
+        return image;
+    }
+
+    public void writePng(Path file) throws IOException {
+        ImageIO.write(snapshot(), "png", file.toFile());
+    }
+
+    @Override
+    protected void render() {
+        Graphics2D g = image.createGraphics();
+
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            g.setColor(awt(Color.WHITE));
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    drawCell(g, x, y);
+                }
+            }
+
+            drawScore(g);
+
+            if (message != null) {
+                drawMessage(g);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void drawCell(Graphics2D g, int x, int y) {
+        int cell = cell(x, y);
+
+        int left = x * cellPixels;
+        int top = y * cellPixels;
+
+        g.setColor(awt(backgrounds[cell]));
+        g.fillRect(left, top, cellPixels, cellPixels);
+
+        g.setColor(awt(Color.BLACK));
+        g.drawRect(left, top, cellPixels, cellPixels);
+
+        String value = values[cell];
+
+        if (value.isBlank()) {
+            return;
+        }
+
+        g.setColor(awt(foregrounds[cell]));
+
+        int size = Math.max(1, cellPixels * textSizes[cell] / 100);
+
+        int centerX = left + cellPixels / 2;
+        int centerY = top + cellPixels / 2;
+
+        if (value.equals("X")) {
+            g.setStroke(new BasicStroke(Math.max(2, size / 8f)));
+            g.drawLine(centerX - size / 2, centerY - size / 2, centerX + size / 2, centerY + size / 2);
+            g.drawLine(centerX - size / 2, centerY + size / 2, centerX + size / 2, centerY - size / 2);
+        } else if (value.equals("O")) {
+            g.setStroke(new BasicStroke(Math.max(2, size / 8f)));
+            g.drawOval(centerX - size / 2, centerY - size / 2, size, size);
+        } else {
+            drawCentered(g, value, FontCache.get(Font.SANS_SERIF, Font.BOLD, size), centerX, centerY);
+        }
+    }
+
+    private void drawScore(Graphics2D g) {
+        g.setColor(awt(Color.BLACK));
+
+        drawCentered(g, "Score: " + score, FontCache.get(Font.SANS_SERIF, Font.BOLD, SCORE_PIXELS * 2 / 3),
+                image.getWidth() / 2, height * cellPixels + 1 + SCORE_PIXELS / 2);
+    }
+
+    private void drawMessage(Graphics2D g) {
+        Font font = FontCache.get(Font.SANS_SERIF, Font.BOLD, Math.max(8, Math.min(messageSize, image.getWidth() / 6)));
+
+        FontMetrics metrics = g.getFontMetrics(font);
+
+        int messageWidth = metrics.stringWidth(message);
+        int messageHeight = metrics.getHeight();
+
+        int centerX = image.getWidth() / 2;
+        int centerY = height * cellPixels / 2;
+
+        if (messageBackground != null && messageBackground != Color.NONE) {
+            g.setColor(awt(messageBackground));
+            g.fillRect(centerX - messageWidth / 2, centerY - messageHeight / 2, messageWidth, messageHeight);
+        }
+
+        g.setColor(awt(messageColor));
+
+        drawCentered(g, message, font, centerX, centerY);
+    }
+
+    private static void drawCentered(Graphics2D g, String text, Font font, int centerX, int centerY) {
+        g.setFont(font);
+
+        FontMetrics metrics = g.getFontMetrics();
+
+        g.drawString(text, centerX - metrics.stringWidth(text) / 2,
+                centerY - metrics.getHeight() / 2 + metrics.getAscent());
+    }
+
+    private static java.awt.Color awt(Color color) {
+        return ColorPalette.toAwtColor(color);
+    }
+}
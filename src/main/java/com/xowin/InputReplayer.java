@@ -0,0 +1,214 @@
+package com.xowin;
+
+import com.xowin.metrics.LatencyHistogram;
+import com.xowin.metrics.Metrics;
+import com.xowin.record.InputTraceReader;
+import com.xowin.record.InputTraceWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Replays an input trace ({@link InputTraceWriter}) on a new instance of the traced game, headless and as fast
+ * as the game can go, and checks the game's {@link Game#getStateChecksum() state checksum} after every event.
+ *
+ * The game is configured with the game properties and the random seed of the traced session, then
+ * fed the events through the same dispatch as live input, with the recorded number of turn ticks run before
+ * each one. The first event whose checksum differs is where the replay diverged from the session, e.g. because
+ * of a bug that depends on timing, or a change to the game logic. With {@code render=true} every event is
+ * also drawn on an {@link ImageScreen}, so a replay measures the logic and the render path on a real user
+ * session. Sessions whose computer player is bounded by wall-clock time or ponders cannot be replayed exactly.
+ *
+ * Usage: {@code java -cp target/classes com.xowin.InputReplayer trace=session.trace render=false repeat=1}
+ */
+public final class InputReplayer {
+
+    private final Path file;
+
+    private final boolean render;
+
+    public InputReplayer(Path file, boolean render) {
+        this.file = file;
+        this.render = render;
+    }
+
+    public Result replay() throws IOException, ReflectiveOperationException {
+        try (InputTraceReader reader = new InputTraceReader(file)) {
+            for (Map.Entry<String, String> property : reader.getProperties().entrySet()) {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+
+            Game game = (Game) Class.forName(reader.getGameClass()).getConstructor().newInstance();
+
+            game.setRandomSeed(reader.getSeed());
+
+            game.start(render ? new ImageScreen() : new BlankScreen());
+
+            LatencyHistogram latency = new LatencyHistogram("xowin_replay_event", "Time to handle a replayed event");
+
+            long renderStart = Metrics.RENDER.getSumNanos();
+
+            long events = 0;
+
+            long mismatches = 0;
+
+            long firstMismatch = -1;
+
+            long start = System.nanoTime();
+
+            while (reader.next()) {
+                runTicks(game, reader.getTick());
+
+                long eventStart = System.nanoTime();
+
+                game.inject(GameLoop.event(reader.getType(), reader.getFirst(), reader.getSecond()));
+
+                latency.recordSince(eventStart);
+
+                if (game.getStateChecksum() != reader.getChecksum()) {
+                    if (mismatches++ == 0) {
+                        firstMismatch = events;
+                    }
+                }
+
+                events++;
+            }
+
+            runTicks(game, reader.getTick());
+
+            return new Result(events, game.getTick(), mismatches, firstMismatch, reader.isComplete(),
+                    System.nanoTime() - start, latency, Metrics.RENDER.getSumNanos() - renderStart);
+        }
+    }
+
+    private static void runTicks(Game game, long tick) {
+        while (game.getTick() < tick) {
+            game.inject(GameLoop.event(GameLoop.TURN, 0, 0));
+        }
+    }
+
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        Path trace = null;
+        boolean render = false;
+        int repeat = 1;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(0, eq)) {
+                case "trace" -> trace = Paths.get(value);
+                case "render" -> render = Boolean.parseBoolean(value);
+                case "repeat" -> repeat = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        if (trace == null) {
+            throw new IllegalArgumentException("Missing trace=<file>");
+        }
+
+        boolean diverged = false;
+
+        for (int i = 0; i < repeat; i++) {
+            Result result = new InputReplayer(trace, render).replay();
+
+            System.out.println(result);
+
+            diverged |= result.getMismatches() > 0;
+        }
+
+        System.exit(diverged ? 1 : 0); // the game may have started non-daemon threads
+    }
+
+    /**
+     * A screen that keeps the state but draws nothing, for replaying the logic alone.
+     */
+    private static final class BlankScreen extends CellScreen {
+
+        @Override
+        protected void render() {
+        }
+    }
+
+    /**
+     * Outcome and timing of one replay.
+     */
+    public static final class Result {
+
+        private final long events;
+
+        private final long ticks;
+
+        private final long mismatches;
+
+        private final long firstMismatch;
+
+        private final boolean complete;
+
+        private final long elapsedNanos;
+
+        private final LatencyHistogram latency;
+
+        private final long renderNanos;
+
+        Result(long events, long ticks, long mismatches, long firstMismatch, boolean complete, long elapsedNanos,
+               LatencyHistogram latency, long renderNanos) {
+            this.events = events;
+            this.ticks = ticks;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+            this.complete = complete;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.renderNanos = renderNanos;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * Returns the number of events after which the state checksum differed from the trace.
+         */
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * Returns the index of the first event with a different checksum, or -1 if the replay matched.
+         */
+        public long getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("events=%d ticks=%d %s%s time=%.3fs events/sec=%.0f event p50=%dus p99=%dus max=%dus"
+                            + " render=%.3fs",
+                    events, ticks, mismatches == 0 ? "match" : mismatches + " mismatches from event " + firstMismatch,
+                    complete ? "" : " (trace ends without exit)", elapsedNanos / 1e9,
+                    events * 1e9 / Math.max(1, elapsedNanos), latency.getQuantileNanos(0.5) / 1000,
+                    latency.getQuantileNanos(0.99) / 1000, latency.getMaxNanos() / 1000, renderNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.xowin;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer single-consumer queue of {@code long} values.
+ *
+ * Producers claim a slot by CAS on the tail counter; every slot carries a sequence number that tells whether it
+ * is free for the producer of a given round or filled for the consumer, so neither side ever blocks the other.
+ * Values are primitives, so offering and polling do not allocate.
+ */
+final class MpscLongQueue {
+
+    /**
+     * Returned by {@link #poll()} when the queue is empty; never a valid element.
+     */
+    static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] buffer;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Consumer position; only touched by the consumer thread.
+     */
+    private long head;
+
+    MpscLongQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.buffer = new long[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a value; safe to call from any thread.
+     *
+     * @return false if the queue is full
+     */
+    boolean offer(long value) {
+        while (true) {
+            long position = tail.get();
+
+            int slot = (int) position & mask;
+
+            long sequence = sequences.get(slot);
+
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[slot] = value;
+                    sequences.lazySet(slot, position + 1);
+
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest value; must only be called from the consumer thread.
+     *
+     * @return the value, or {@link #EMPTY}
+     */
+    long poll() {
+        int slot = (int) head & mask;
+
+        if (sequences.get(slot) != head + 1) {
+            return EMPTY;
+        }
+
+        long value = buffer[slot];
+
+        sequences.lazySet(slot, head + buffer.length);
+        head++;
+
+        return value;
+    }
+}
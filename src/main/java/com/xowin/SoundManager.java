@@ -1,41 +1,175 @@
 package com.xowin;
 
+import com.xowin.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Plays the game sounds.
+ *
+ * Every sound is decoded once, the first time the manager is used (or on {@link #preload()}), into a small pool
+ * of open clips that are rewound and reused for every playback. Playback requests are handed to a dedicated
+ * audio thread, so the caller never waits for audio I/O. If the sounds cannot be loaded, for example on a
+ * machine without an audio device, the failure is logged once and the manager stays silent.
+ */
 public class SoundManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SoundManager.class);
 
-    private static void playSound(String soundFile) {
+    private static final String[] SOUND_FILES = {"collision.wav", "count.wav", "lose.wav"};
+
+    private static final int COLLISION = 0;
+
+    private static final int SCORE = 1;
+
+    private static final int LOSE = 2;
+
+    /**
+     * Clips per sound, so that a sound can overlap with its own previous playback.
+     */
+    private static final int POOL_SIZE = 2;
+
+    private static final ExecutorService AUDIO_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audio");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private static final Runnable[] PLAY_TASKS = new Runnable[SOUND_FILES.length];
+
+    static {
+        for (int i = 0; i < SOUND_FILES.length; i++) {
+            int sound = i;
+
+            PLAY_TASKS[i] = () -> play(sound);
+        }
+    }
+
+    /**
+     * Owned by the audio thread; {@code null} until loaded or if loading failed.
+     */
+    private static Clip[][] clips;
+
+    private static final int[] NEXT_CLIP = new int[SOUND_FILES.length];
+
+    private static boolean loaded;
+
+    /**
+     * Decodes all sounds in the background so that the first playback does not pay for it.
+     */
+    public static void preload() {
+        AUDIO_THREAD.execute(SoundManager::load);
+    }
+
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+
+        Clip[][] pool = new Clip[SOUND_FILES.length][POOL_SIZE];
+
         try {
-            URL url = Thread.currentThread().getContextClassLoader().getResource(soundFile);
+            for (int sound = 0; sound < SOUND_FILES.length; sound++) {
+                URL url = Thread.currentThread().getContextClassLoader().getResource(SOUND_FILES[sound]);
+
+                if (url == null) {
+                    throw new IllegalStateException("Missing resource " + SOUND_FILES[sound]);
+                }
+
+                AudioFormat format;
+
+                byte[] data;
 
-            if (url != null) {
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(url);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioIn);
-                clip.start();
+                try (AudioInputStream audioIn = AudioSystem.getAudioInputStream(url)) {
+                    format = audioIn.getFormat();
+                    data = audioIn.readAllBytes();
+                }
+
+                for (int i = 0; i < POOL_SIZE; i++) {
+                    Clip clip = AudioSystem.getClip();
+
+                    clip.open(format, data, 0, data.length);
+
+                    pool[sound][i] = clip;
+                }
             }
+
+            clips = pool;
         } catch (Exception e) {
-            LOGGER.error("Failed to play sound '{}': {}", soundFile, e.getMessage());
+            LOGGER.error("Failed to load sounds, playing none: {}", e.getMessage());
+
+            close(pool);
+        }
+    }
+
+    private static void play(int sound) {
+        load();
+
+        if (clips == null) {
+            return;
+        }
+
+        Clip clip = clips[sound][NEXT_CLIP[sound]];
+
+        NEXT_CLIP[sound] = (NEXT_CLIP[sound] + 1) % POOL_SIZE;
+
+        clip.stop();
+        clip.setFramePosition(0);
+        clip.start();
+    }
+
+    private static void playSound(int sound) {
+        Metrics.SOUNDS.increment();
+
+        AUDIO_THREAD.execute(PLAY_TASKS[sound]);
+    }
+
+    private static void close(Clip[][] pool) {
+        for (Clip[] sounds : pool) {
+            for (Clip clip : sounds) {
+                if (clip != null) {
+                    clip.close();
+                }
+            }
         }
     }
 
+    /**
+     * Releases all clips; later playback requests reload them.
+     */
+    public static void shutdown() {
+        AUDIO_THREAD.execute(() -> {
+            if (clips != null) {
+                close(clips);
+
+                clips = null;
+            }
+
+            loaded = false;
+        });
+    }
+
     public static void playCollisionSound() {
-        playSound("collision.wav");
+        playSound(COLLISION);
     }
 
     public static void playScoreSound() {
-        playSound("count.wav");
+        playSound(SCORE);
     }
 
     public static void playLoseSound() {
-        playSound("lose.wav");
+        playSound(LOSE);
     }
 }
@@ -0,0 +1,199 @@
+package com.xowin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shows the game in a terminal with ANSI escape codes and 24-bit colors, for SSH sessions and machines without
+ * a display. Every frame redraws the whole screen in one write, from the top left corner.
+ *
+ * Input is read line by line on a separate thread:
+ * <ul>
+ *     <li>{@code x y} or {@code x,y} - left click on a cell</li>
+ *     <li>{@code u} / {@code r} - the left / right arrow key (undo / redo)</li>
+ *     <li>{@code home} / {@code end} - the up / down arrow key</li>
+ *     <li>{@code n} - Escape (new game)</li>
+ *     <li>an empty line - Space</li>
+ *     <li>{@code q} - Q</li>
+ * </ul>
+ * The game ends when the input ends.
+ */
+public class TerminalScreen extends CellScreen {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TerminalScreen.class);
+
+    private static final String CLEAR = "\033[H\033[2J";
+
+    private static final String HOME = "\033[H";
+
+    private static final String RESET = "\033[0m";
+
+    private static final String CLEAR_TO_END = "\033[J";
+
+    private final PrintStream out;
+
+    private final InputStream in;
+
+    private final StringBuilder frame = new StringBuilder();
+
+    public TerminalScreen(PrintStream out, InputStream in) {
+        this.out = out;
+        this.in = in;
+    }
+
+    @Override
+    protected boolean usesGameLoop() {
+        return true;
+    }
+
+    @Override
+    protected void open() {
+        out.print(CLEAR);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            out.print(RESET);
+            out.println();
+            out.flush();
+        }, "terminal-reset"));
+
+        Thread reader = new Thread(this::readInput, "terminal-input");
+
+        reader.start();
+    }
+
+    @Override
+    protected void render() {
+        frame.setLength(0);
+        frame.append(HOME);
+
+        frame.append("    ");
+
+        for (int x = 0; x < width; x++) {
+            appendIndex(x);
+        }
+
+        frame.append('\n');
+
+        for (int y = 0; y < height; y++) {
+            appendIndex(y);
+            frame.append(' ');
+
+            for (int x = 0; x < width; x++) {
+                int cell = cell(x, y);
+
+                String value = values[cell];
+
+                appendColor(48, backgrounds[cell]);
+                appendColor(38, value.isBlank() ? Color.GRAY : foregrounds[cell]);
+
+                if (value.isBlank()) {
+                    frame.append(" . ");
+                } else if (value.length() == 1) {
+                    frame.append(' ').append(value).append(' ');
+                } else {
+                    frame.append(value, 0, Math.min(3, value.length()));
+                }
+
+                frame.append(RESET);
+            }
+
+            frame.append('\n');
+        }
+
+        frame.append('\n').append("Score: ").append(score).append('\n');
+
+        if (message != null) {
+            if (messageBackground != null && messageBackground != Color.NONE) {
+                appendColor(48, messageBackground);
+            }
+
+            appendColor(38, messageColor);
+
+            frame.append(' ').append(message).append(' ').append(RESET);
+        }
+
+        frame.append('\n').append(CLEAR_TO_END);
+
+        out.print(frame);
+        out.flush();
+    }
+
+    private void appendIndex(int index) {
+        if (index < 10) {
+            frame.append(' ');
+        }
+
+        frame.append(index).append(' ');
+    }
+
+    private void appendColor(int layer, Color color) {
+        if (color == null || color == Color.NONE) {
+            return;
+        }
+
+        int argb = ColorPalette.argb(color);
+
+        frame.append("\033[").append(layer).append(";2;")
+                .append(argb >> 16 & 0xFF).append(';')
+                .append(argb >> 8 & 0xFF).append(';')
+                .append(argb & 0xFF).append('m');
+    }
+
+    private void readInput() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                handle(line.trim().toLowerCase());
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to read terminal input: {}", e.getMessage());
+        }
+
+        exit(); // after the lines read so far, which may still be queued on the game thread
+    }
+
+    private void handle(String command) {
+        switch (command) {
+            case "", " " -> press(Key.SPACE);
+            case "u" -> press(Key.LEFT);
+            case "r" -> press(Key.RIGHT);
+            case "home" -> press(Key.UP);
+            case "end" -> press(Key.DOWN);
+            case "n" -> press(Key.ESCAPE);
+            case "q" -> press(Key.QQ);
+            default -> click(command);
+        }
+    }
+
+    private void press(Key key) {
+        onKeyPress(key);
+        onKeyReleased(key);
+    }
+
+    private void click(String command) {
+        String[] coordinates = command.split("[\\s,]+");
+
+        if (coordinates.length != 2) {
+            return;
+        }
+
+        try {
+            int x = Integer.parseInt(coordinates[0]);
+            int y = Integer.parseInt(coordinates[1]);
+
+            if (x >= 0 && x < width && y >= 0 && y < height) {
+                onMouseLeftClick(x, y);
+            }
+        } catch (NumberFormatException e) {
+            // not a cell; ignored like a click outside the board
+        }
+    }
+}
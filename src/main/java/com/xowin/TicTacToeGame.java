@@ -1,29 +1,59 @@
 package com.xowin;
 
+import com.xowin.engine.Board;
+import com.xowin.engine.LookupMoveChooser;
+import com.xowin.engine.MoveChooser;
+import com.xowin.engine.ParallelSearchMoveChooser;
+import com.xowin.engine.PonderingMoveChooser;
+import com.xowin.metrics.Metrics;
+import com.xowin.record.GameRecord;
+import com.xowin.record.GameRecordWriter;
+import com.xowin.score.PlayerScore;
+import com.xowin.score.ScoreStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
 public class TicTacToeGame extends Game {
 
-    private final int[][] model = new int[3][3];
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicTacToeGame.class);
 
-    private int currentPlayer;
+    /**
+     * System property with the name the human's results are stored under; defaults to the OS user name.
+     */
+    public static final String PLAYER_PROPERTY = "xowin.player";
 
-    private boolean isGameStopped;
+    private static final String COMPUTER_NAME = "computer";
 
-    // Add score tracking
-    private int playerScore = 0;
+    // Rules, turn state and score tracking
+    private final TicTacToeRules rules = new TicTacToeRules();
 
-    private int computerScore = 0;
+    private final Board model = rules.getModel();
 
-    private static final int WIN_POINTS = 10;
+    // Log of finished games, null unless enabled with -Dxowin.records=<directory>
+    private GameRecordWriter recordWriter;
 
-    private static final int DRAW_POINTS = 5;
+    // Persistent totals, null unless enabled with -Dxowin.scores=<directory>
+    private ScoreStore scoreStore;
+
+    private final String playerName = System.getProperty(PLAYER_PROPERTY, System.getProperty("user.name", "player"));
+
+    public static void main(String[] args) {
+        new TicTacToeGame().start();
+    }
 
     @Override
     public void initialize() {
-        setScreenSize(3, 3);
+        setScreenSize(model.getWidth(), model.getHeight());
+
+        SoundManager.preload();
 
-        playerScore = 0;
+        openRecordLog();
 
-        computerScore = 0;
+        rules.resetScores();
+
+        openScoreStore();
 
         startGame();
 
@@ -31,40 +61,106 @@ public class TicTacToeGame extends Game {
 
         updateScoreDisplay();
 
+        ponder();
     }
 
     public void startGame() {
-        isGameStopped = false;
-        currentPlayer = 1;
+        rules.startGame();
+    }
 
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                model[x][y] = 0;
-            }
+    private void openRecordLog() {
+        if (model.getCellCount() > 16) {
+            return; // records hold one nibble per move
+        }
+
+        try {
+            recordWriter = GameRecordWriter.fromSystemProperty();
+        } catch (IOException e) {
+            LOGGER.error("Failed to open game record log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the score store, continues from the persisted scores and closes the store when the JVM exits.
+     */
+    private void openScoreStore() {
+        try {
+            scoreStore = ScoreStore.fromSystemProperty();
+        } catch (IOException e) {
+            LOGGER.error("Failed to open score store: {}", e.getMessage());
+        }
+
+        if (scoreStore == null) {
+            return;
+        }
+
+        // the window's close button and the end of terminal input exit without going through QQ
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeScoreStore, "score-store-close"));
+
+        rules.setPlayerScore(persistedPoints(playerName));
+        rules.setComputerScore(persistedPoints(COMPUTER_NAME));
+    }
+
+    private int persistedPoints(String name) {
+        PlayerScore score = scoreStore.get(name);
+
+        return score == null ? 0 : (int) Math.min(Integer.MAX_VALUE, score.getPoints());
+    }
+
+    /**
+     * Adds a finished game to the persistent totals of both sides, if scores are persisted. Only queues the
+     * write; the store syncs it in the background.
+     *
+     * @param playerResult the human's {@link ScoreStore} result
+     */
+    private void recordScore(int playerResult) {
+        if (scoreStore == null) {
+            return;
+        }
+
+        scoreStore.record(playerName, playerResult);
+        scoreStore.record(COMPUTER_NAME, ScoreStore.LOSS - playerResult); // WIN <--> LOSS
+    }
+
+    /**
+     * Appends the current game to the record log, if there is one.
+     *
+     * @param outcome one of the {@link GameRecord} outcomes
+     */
+    private void recordGame(int outcome) {
+        if (recordWriter == null) {
+            return;
+        }
+
+        try {
+            recordWriter.append(outcome, rules.getMoves(), model.getMoveCount());
+        } catch (IOException e) {
+            LOGGER.error("Failed to record game, disabling the record log: {}", e.getMessage());
+
+            recordWriter = null;
         }
     }
 
     private void updateScoreDisplay() {
+        int playerScore = rules.getPlayerScore();
 
-        boolean isZero = (playerScore - computerScore) < 0;
+        boolean isZero = (playerScore - rules.getComputerScore()) < 0;
 
         setScore(isZero ? 0 : playerScore); // Using inherited setScore method to display player's score
-
-        computerScore = 0;
     }
 
 
     /**
      * Updates the visual representation of the entire game board.
-     * This method iterates through the 3x3 grid of the Tic Tac Toe game
+     * This method iterates through the grid of the Tic Tac Toe game
      * and updates the visual display of each cell by calling the updateCellView method.
      * The updateCellView method is used to render specific cell values
      * based on the game model.
      */
     public void updateView() {
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                updateCellView(x, y, model[x][y]);
+        for (int x = 0; x < model.getWidth(); x++) {
+            for (int y = 0; y < model.getHeight(); y++) {
+                updateCellView(x, y, model.get(x, y));
             }
         }
     }
@@ -98,24 +194,24 @@ public class TicTacToeGame extends Game {
      * @param y the y-coordinate of the cell to mark
      */
     public void setSignAndCheck(int x, int y) {
-        model[x][y] = currentPlayer;
+        int outcome = rules.setSignAndCheck(x, y);
+
+        Metrics.MOVES.increment();
 
         updateView();
 
-        if (checkWin(x, y, currentPlayer)) {
-            isGameStopped = true;
+        if (outcome == TicTacToeRules.WIN) {
+            Metrics.GAMES.increment();
 
-            if (currentPlayer == 1) {
-                playerScore += WIN_POINTS;
+            recordGame(rules.getCurrentPlayer() == 1 ? GameRecord.X_WON : GameRecord.O_WON);
 
+            recordScore(rules.getCurrentPlayer() == 1 ? ScoreStore.WIN : ScoreStore.LOSS);
+
+            if (rules.getCurrentPlayer() == 1) {
                 showMessageDialog(Color.NONE, "You Win!", Color.GREEN, 75);
 
                 SoundManager.playScoreSound();
-            }
-
-            if (currentPlayer == 2) {
-                computerScore += WIN_POINTS;
-
+            } else {
                 showMessageDialog(Color.NONE, "Game Over", Color.RED, 75);
 
                 SoundManager.playLoseSound();
@@ -126,19 +222,18 @@ public class TicTacToeGame extends Game {
             return;
         }
 
-        if (!hasEmptyCell()) {
-            isGameStopped = true;
+        if (outcome == TicTacToeRules.DRAW) {
+            Metrics.GAMES.increment();
 
-            // In case of draw, both players get some points
-            playerScore += DRAW_POINTS;
-            computerScore += DRAW_POINTS;
+            recordGame(GameRecord.DRAW);
+
+            recordScore(ScoreStore.DRAW);
 
             showMessageDialog(Color.NONE, " Draw!", Color.BLUE, 75);
 
             SoundManager.playScoreSound();
 
             updateScoreDisplay();
-
         }
     }
 
@@ -153,11 +248,11 @@ public class TicTacToeGame extends Game {
      */
     @Override
     public void onMouseLeftClick(int x, int y) {
-        if (isGameStopped) {
+        if (rules.isGameStopped()) {
             return;
         }
 
-        if (model[x][y] != 0) {
+        if (!rules.isFree(x, y)) {
             return;
         }
 
@@ -165,12 +260,29 @@ public class TicTacToeGame extends Game {
 
         setSignAndCheck(x, y);
 
-        currentPlayer = 3 - currentPlayer; // 2 <--> 1
+        rules.switchPlayer(); // 2 <--> 1
 
         computerTurn();
 
-        currentPlayer = 3 - currentPlayer; // 2 <--> 1
+        rules.switchPlayer(); // 2 <--> 1
 
+        ponder();
+    }
+
+    /**
+     * If the computer ponders, starts searching the answers to the human's next move, or stops pondering once
+     * the game is over.
+     */
+    private void ponder() {
+        if (!(rules.getMoveChooser() instanceof PonderingMoveChooser pondering)) {
+            return;
+        }
+
+        if (rules.isGameStopped()) {
+            pondering.stopPondering();
+        } else {
+            pondering.ponder(model, rules.getCurrentPlayer());
+        }
     }
 
     /**
@@ -180,21 +292,13 @@ public class TicTacToeGame extends Game {
      * @return true if there is at least one empty cell in the game board, false otherwise
      */
     public boolean hasEmptyCell() {
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                if (model[x][y] == 0) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return rules.hasEmptyCell();
     }
 
     /**
      * Checks whether a player has won the game by evaluating the state of the game board.
      * The method verifies win conditions based on the most recent move's row, column,
-     * main diagonal, or anti-diagonal.
+     * main diagonal, or anti-diagonal, using the precomputed win-line masks of the board.
      *
      * @param x the x-coordinate (row index) of the last move
      * @param y the y-coordinate (column index) of the last move
@@ -202,42 +306,129 @@ public class TicTacToeGame extends Game {
      * @return true if the player's move results in a winning condition, false otherwise
      */
     public boolean checkWin(int x, int y, int n) {
-        boolean rowWin = model[x][0] == n && model[x][1] == n && model[x][2] == n;
-
-        boolean columnWin = model[0][y] == n && model[1][y] == n && model[2][y] == n;
-
-        boolean mainDiagonalWin = (x == y) && model[0][0] == n && model[1][1] == n && model[2][2] == n;
-
-        boolean antiDiagonalWin = (x + y == 2) && model[0][2] == n && model[1][1] == n && model[2][0] == n;
-
-        return rowWin || columnWin || mainDiagonalWin || antiDiagonalWin;
+        return rules.checkWin(x, y, n);
     }
 
     /**
      * Handles the keyboard press event during the game. If the SPACE key is pressed
      * while the game is stopped, or if the ESCAPE key is pressed at any time,
-     * the game is restarted, and the game board view is updated.
+     * the game is restarted, and the game board view is updated. While a game is in progress,
+     * LEFT and RIGHT undo and redo the human's last move together with the computer's reply,
+     * UP rewinds to the empty board and DOWN replays all undone moves.
      *
      * @param key the key that was pressed; possible values include keys from the Key enum
      *            such as SPACE, ESCAPE, and others
      */
     @Override
     public void onKeyPress(Key key) {
-        if ((key == Key.SPACE && isGameStopped) || key == Key.ESCAPE) {
+        if ((key == Key.SPACE && rules.isGameStopped()) || key == Key.ESCAPE) {
+            if (!rules.isGameStopped()) {
+                recordGame(GameRecord.UNFINISHED);
+            }
+
             startGame();
 
             updateView();
+
+            ponder();
+        } else if (key == Key.LEFT) {
+            if (rules.undo()) {
+                if (rules.getCurrentPlayer() != 1) {
+                    rules.undo(); // the human's move before the computer's reply
+                }
+
+                historyChanged();
+            }
+        } else if (key == Key.RIGHT) {
+            if (rules.redo()) {
+                if (rules.getCurrentPlayer() != 1) {
+                    rules.redo(); // the computer's reply
+                }
+
+                historyChanged();
+            }
+        } else if (key == Key.UP) {
+            if (rules.rewind(0)) {
+                historyChanged();
+            }
+        } else if (key == Key.DOWN) {
+            if (rules.rewind(Integer.MAX_VALUE)) {
+                historyChanged();
+            }
         } else if (key == Key.QQ) {
-            System.exit(0);  // Close the application
+            System.exit(0);  // Close the application; the shutdown hook closes the score store
+        }
+
+    }
+
+    private void historyChanged() {
+        updateView();
+
+        ponder();
+    }
+
+    private void closeScoreStore() {
+        if (scoreStore == null) {
+            return;
+        }
+
+        try {
+            scoreStore.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close score store: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts the turn timer and, if the computer uses the parallel search, makes the timer period its time
+     * budget per move.
+     *
+     * @param timeMs the timer period in milliseconds
+     */
+    @Override
+    public void setTurnTimer(int timeMs) {
+        super.setTurnTimer(timeMs);
+
+        MoveChooser chooser = rules.getMoveChooser();
+
+        if (chooser instanceof PonderingMoveChooser pondering) {
+            chooser = pondering.getSearch();
+        }
+
+        if (chooser instanceof LookupMoveChooser lookup) {
+            chooser = lookup.getSearch();
         }
 
+        if (chooser instanceof ParallelSearchMoveChooser parallel) {
+            parallel.setTimeBudgetMillis(timeMs);
+        }
     }
 
     /**
-     * Executes the computer's turn in the Tic Tac Toe game, following a prioritized strategy.
-     * The method attempts to make the most advantageous move for the computer player.
+     * Also reseeds the computer, so that a replayed input trace gets the same answers from it.
+     */
+    @Override
+    public void setRandomSeed(long seed) {
+        super.setRandomSeed(seed);
+
+        rules.getMoveChooser().newGame(seed);
+    }
+
+    /**
+     * Replaces the strategy used by {@link #computerTurn()}.
      *
-     * The strategy consists of the following steps, executed in order:
+     * @param moveChooser the strategy that picks the computer's moves
+     */
+    public void setMoveChooser(MoveChooser moveChooser) {
+        rules.setMoveChooser(moveChooser);
+    }
+
+    /**
+     * Executes the computer's turn in the Tic Tac Toe game by asking the configured {@link MoveChooser}
+     * for a cell and marking it.
+     *
+     * The default strategy (see {@link com.xowin.engine.HeuristicMoveChooser}) consists of the following
+     * steps, executed in order:
      * 1. Attempts to claim the center cell of the board if it is available.
      * 2. Checks if the computer can make a move that results in an immediate win,
      *    and performs that move if possible.
@@ -245,56 +436,26 @@ public class TicTacToeGame extends Game {
      * 4. If no winning or blocking moves are possible, selects the first available empty cell
      *    and makes a move there.
      *
-     * Each step is executed sequentially, stopping as soon as a move is made.
+     * Running with {@code -Dxowin.ai=alphabeta} switches to a full alpha-beta search instead.
+     * Nothing happens if the human's move has already ended the game. The time taken to choose the move is
+     * recorded in {@link Metrics#AI_MOVE}.
      */
     public void computerTurn() {
+        long start = System.nanoTime();
 
-        // Move to the center
-        if (model[1][1] == 0) {
-            setSignAndCheck(1, 1);
-
-            return;
-        }
-
+        int cell = rules.chooseComputerMove();
 
-        // find the winner turn
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                if (checkFutureWin(x, y, currentPlayer)) {
-                    setSignAndCheck(x, y);
+        if (cell >= 0) {
+            Metrics.AI_MOVE.recordSince(start);
 
-                    return;
-                }
-            }
-        }
-        
-        // We prevent the opponent from winning.
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                if (checkFutureWin(x, y, 3 - currentPlayer)) {
-                    setSignAndCheck(x, y);
-                    return;
-                }
-            }
-        }
-
-        // tunr in first free cell
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                if (model[x][y] == 0) {
-                    setSignAndCheck(x, y);
-
-                    return;
-                }
-            }
+            setSignAndCheck(model.cellX(cell), model.cellY(cell));
         }
-
     }
 
     /**
      * Simulates a move at the specified position on the game board to determine if it would result in a win
-     * for the specified player. The method temporarily updates the game board with the player's value
-     * at the given position, checks if it results in a winning condition, and then restores the original state of the board.
+     * for the specified player. The board is not modified: the candidate stone is OR-ed into the player's
+     * bit set only for the duration of the mask test.
      *
      * @param x the x-coordinate (row index) of the position to check
      * @param y the y-coordinate (column index) of the position to check
@@ -302,17 +463,7 @@ public class TicTacToeGame extends Game {
      * @return true if the simulated move results in a winning condition, false otherwise
      */
     public boolean checkFutureWin(int x, int y, int n) {
-        if (model[x][y] != 0 ) {
-            return false;
-        }
-
-        model[x][y] = n;
-
-        boolean isWin = checkWin(x, y, n);
-
-        model[x][y] = 0;
-
-        return isWin;
+        return rules.checkFutureWin(x, y, n);
     }
 
 }
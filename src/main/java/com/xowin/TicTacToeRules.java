@@ -0,0 +1,303 @@
+package com.xowin;
+
+import com.xowin.engine.Board;
+import com.xowin.engine.MoveChooser;
+import com.xowin.engine.MoveChoosers;
+import com.xowin.engine.MoveStack;
+
+/**
+ * The rules, turn state and score of a Tic Tac Toe game, with no Swing, sound or rendering.
+ * {@link TicTacToeGame} drives it from the UI; the headless simulator drives it directly.
+ *
+ * Player 1 ("X") is the human and player 2 ("O") the computer.
+ */
+public class TicTacToeRules {
+
+    /**
+     * System property selecting the board of the default rules as {@code WxHxK}, e.g. {@code 15x15x5} for
+     * five in a row; {@code 3x3x3} if unset.
+     */
+    public static final String BOARD_PROPERTY = "xowin.board";
+
+    public static final int WIN_POINTS = 10;
+
+    public static final int DRAW_POINTS = 5;
+
+    /**
+     * Outcome of {@link #setSignAndCheck(int, int)}: the game goes on.
+     */
+    public static final int PLAYING = 0;
+
+    /**
+     * Outcome of {@link #setSignAndCheck(int, int)}: the current player has won.
+     */
+    public static final int WIN = 1;
+
+    /**
+     * Outcome of {@link #setSignAndCheck(int, int)}: the board is full without a winner.
+     */
+    public static final int DRAW = 2;
+
+    private final Board model;
+
+    /**
+     * Moves of the current game, in play order, with the undone ones that can be redone.
+     */
+    private final MoveStack moves;
+
+    private int currentPlayer;
+
+    private boolean isGameStopped;
+
+    private int playerScore = 0;
+
+    private int computerScore = 0;
+
+    private MoveChooser moveChooser;
+
+    public TicTacToeRules() {
+        this(parseBoard(System.getProperty(BOARD_PROPERTY, "3x3x3")), MoveChoosers.fromSystemProperties());
+    }
+
+    private TicTacToeRules(int[] board, MoveChooser moveChooser) {
+        this(board[0], board[1], board[2], moveChooser);
+    }
+
+    public TicTacToeRules(int width, int height, int winLength, MoveChooser moveChooser) {
+        this.model = new Board(width, height, winLength);
+        this.moves = new MoveStack(model);
+        this.moveChooser = moveChooser;
+    }
+
+    /**
+     * Parses a {@code WxHxK} board description into width, height and win length.
+     */
+    public static int[] parseBoard(String value) {
+        String[] parts = value.split("x");
+
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected WxHxK but got '" + value + "'");
+        }
+
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+
+    public void startGame() {
+        isGameStopped = false;
+        currentPlayer = 1;
+
+        moves.clear();
+    }
+
+    public Board getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the cells marked in the current game in play order; only the first
+     * {@code getModel().getMoveCount()} entries belong to the game. The array is reused by the next game.
+     */
+    public int[] getMoves() {
+        return moves.cells();
+    }
+
+    /**
+     * Returns the number of moves that {@link #redo()} can make again.
+     */
+    public int getRedoCount() {
+        return moves.redoCount();
+    }
+
+    /**
+     * Takes back the last move of a game in progress; the player who made it is to move again. Finished games
+     * cannot be undone, so awarded points are never given twice.
+     *
+     * @return whether a move was undone
+     */
+    public boolean undo() {
+        if (isGameStopped || moves.size() == 0) {
+            return false;
+        }
+
+        currentPlayer = moves.player(moves.size() - 1);
+
+        moves.unmake();
+
+        return true;
+    }
+
+    /**
+     * Makes the last undone move again. Only moves that did not end the game can have been undone, so a redo
+     * never ends it.
+     *
+     * @return whether a move was redone
+     */
+    public boolean redo() {
+        if (isGameStopped || moves.redoCount() == 0) {
+            return false;
+        }
+
+        currentPlayer = 3 - moves.player(moves.size());
+
+        moves.redo();
+
+        return true;
+    }
+
+    /**
+     * Undoes or redoes moves of a game in progress until {@code moveCount} moves are on the board.
+     *
+     * @return whether the position changed
+     */
+    public boolean rewind(int moveCount) {
+        int target = Math.max(0, Math.min(moveCount, moves.size() + moves.redoCount()));
+
+        if (isGameStopped || target == moves.size()) {
+            return false;
+        }
+
+        moves.rewind(target);
+
+        // the player of the next move on the stack, or the one after the last move
+        currentPlayer = moves.redoCount() > 0 ? moves.player(target) : 3 - moves.player(target - 1);
+
+        return true;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void switchPlayer() {
+        currentPlayer = 3 - currentPlayer; // 2 <--> 1
+    }
+
+    public boolean isGameStopped() {
+        return isGameStopped;
+    }
+
+    public int getPlayerScore() {
+        return playerScore;
+    }
+
+    public int getComputerScore() {
+        return computerScore;
+    }
+
+    /**
+     * Resets both scores to zero.
+     */
+    public void resetScores() {
+        playerScore = 0;
+        computerScore = 0;
+    }
+
+    public void setPlayerScore(int playerScore) {
+        this.playerScore = playerScore;
+    }
+
+    public void setComputerScore(int computerScore) {
+        this.computerScore = computerScore;
+    }
+
+    public MoveChooser getMoveChooser() {
+        return moveChooser;
+    }
+
+    public void setMoveChooser(MoveChooser moveChooser) {
+        this.moveChooser = moveChooser;
+    }
+
+    /**
+     * Checks whether the cell at the given coordinates is free to be marked.
+     */
+    public boolean isFree(int x, int y) {
+        return model.isEmpty(model.cell(x, y));
+    }
+
+    /**
+     * Sets the current player's sign at the specified cell, checks for a win or a draw, stops the game and
+     * updates the scores if it is over.
+     *
+     * @param x the x-coordinate of the cell to mark
+     * @param y the y-coordinate of the cell to mark
+     * @return {@link #PLAYING}, {@link #WIN} or {@link #DRAW}
+     */
+    public int setSignAndCheck(int x, int y) {
+        int cell = model.cell(x, y);
+
+        moves.make(cell, currentPlayer);
+
+        if (checkWin(x, y, currentPlayer)) {
+            isGameStopped = true;
+
+            if (currentPlayer == 1) {
+                playerScore += WIN_POINTS;
+            } else {
+                computerScore += WIN_POINTS;
+            }
+
+            return WIN;
+        }
+
+        if (!hasEmptyCell()) {
+            isGameStopped = true;
+
+            // In case of draw, both players get some points
+            playerScore += DRAW_POINTS;
+            computerScore += DRAW_POINTS;
+
+            return DRAW;
+        }
+
+        return PLAYING;
+    }
+
+    /**
+     * Asks the move chooser for the current player's move.
+     *
+     * @return the chosen cell index, or -1 if the game is over or the board is full
+     */
+    public int chooseComputerMove() {
+        if (isGameStopped) {
+            return -1;
+        }
+
+        return moveChooser.chooseMove(model, currentPlayer);
+    }
+
+    /**
+     * Checks whether the game board contains at least one empty cell.
+     *
+     * @return true if there is at least one empty cell in the game board, false otherwise
+     */
+    public boolean hasEmptyCell() {
+        return model.hasEmptyCell();
+    }
+
+    /**
+     * Checks whether the player's stone at the given cell is part of a winning line.
+     *
+     * @param x the x-coordinate (row index) of the last move
+     * @param y the y-coordinate (column index) of the last move
+     * @param n the player's value (e.g., 1 or 2) corresponding to the last move
+     * @return true if the player's move results in a winning condition, false otherwise
+     */
+    public boolean checkWin(int x, int y, int n) {
+        int cell = model.cell(x, y);
+
+        return model.get(cell) == n && model.completesLine(cell, n);
+    }
+
+    /**
+     * Checks whether marking the given free cell would win the game for the player, without modifying the board.
+     *
+     * @param x the x-coordinate (row index) of the position to check
+     * @param y the y-coordinate (column index) of the position to check
+     * @param n the player's value (e.g., 1 for "X" or 2 for "O") to place at the specified position
+     * @return true if the simulated move results in a winning condition, false otherwise
+     */
+    public boolean checkFutureWin(int x, int y, int n) {
+        return model.isWinningMove(model.cell(x, y), n);
+    }
+}
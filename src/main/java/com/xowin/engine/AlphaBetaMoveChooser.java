@@ -0,0 +1,315 @@
+package com.xowin.engine;
+
+/**
+ * Negamax search with alpha-beta pruning, iterative deepening and a Zobrist-keyed
+ * {@link TranspositionTable}, usable on any m,n,k {@link Board}.
+ *
+ * Moves are searched in {@link MoveGenerator} order: transposition-table move, immediate wins, blocks, then
+ * history; on boards of more than 64 cells only cells near existing stones are searched. The search stops at
+ * the configured depth or when the time budget runs out, and in the latter case returns the best move of the
+ * deepest finished iteration.
+ *
+ * Instances keep their search state between calls and are not thread-safe, except for
+ * {@link #setStopped(boolean)}.
+ */
+public class AlphaBetaMoveChooser implements StoppableMoveChooser {
+
+    public static final int WIN_SCORE = 100_000_000;
+
+    /**
+     * Scores at or beyond this magnitude are forced wins or losses.
+     */
+    public static final int PROVEN_SCORE = WIN_SCORE - 2 * Board.MAX_SIDE * Board.MAX_SIDE;
+
+    public static final int MAX_DEPTH = 100;
+
+    private static final int INFINITY = Integer.MAX_VALUE - 1;
+
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private final int maxDepth;
+
+    private final long timeBudgetNanos;
+
+    private final TranspositionTable table;
+
+    private Board board;
+
+    private MoveGenerator generator;
+
+    private ThreatEvaluator threats;
+
+    private long deadline;
+
+    private boolean aborted;
+
+    private volatile boolean stopped;
+
+    private long nodes;
+
+    private int rootBestMove;
+
+    private int lastScore;
+
+    private int lastDepth;
+
+    /**
+     * @param maxDepth          maximum search depth in plies, capped at {@link #MAX_DEPTH}
+     * @param timeBudgetMillis  wall-clock budget per move, 0 for none
+     */
+    public AlphaBetaMoveChooser(int maxDepth, long timeBudgetMillis) {
+        this(maxDepth, timeBudgetMillis, 20);
+    }
+
+    /**
+     * @param maxDepth          maximum search depth in plies, capped at {@link #MAX_DEPTH}
+     * @param timeBudgetMillis  wall-clock budget per move, 0 for none
+     * @param tableSizeLog2     log2 of the transposition table slot count
+     */
+    public AlphaBetaMoveChooser(int maxDepth, long timeBudgetMillis, int tableSizeLog2) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Depth must be positive: " + maxDepth);
+        }
+
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.table = new TranspositionTable(tableSizeLog2);
+    }
+
+    @Override
+    public int chooseMove(Board position, int player) {
+        if (!position.hasEmptyCell()) {
+            return -1;
+        }
+
+        prepare(position);
+
+        deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+        aborted = false;
+        nodes = 0;
+        lastDepth = 0;
+
+        int bestMove = -1;
+
+        int depthLimit = Math.min(maxDepth, board.getCellCount() - board.getMoveCount());
+
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            rootBestMove = -1;
+
+            int score = negamax(depth, 0, -INFINITY, INFINITY, player);
+
+            if (aborted) {
+                // the first root move is the previous best, so a partial iteration is never worse
+                if (rootBestMove >= 0) {
+                    bestMove = rootBestMove;
+                }
+
+                break;
+            }
+
+            bestMove = rootBestMove;
+            lastScore = score;
+            lastDepth = depth;
+
+            if (Math.abs(score) >= PROVEN_SCORE) {
+                break;
+            }
+        }
+
+        if (bestMove < 0) {
+            bestMove = generator.generate(0, -1, player) > 0 ? generator.moves(0)[0] : position.nextEmpty(0);
+        }
+
+        return bestMove;
+    }
+
+    @Override
+    public void setStopped(boolean stopped) {
+        this.stopped = stopped;
+    }
+
+    /**
+     * Returns the score of the last finished iteration, from the point of view of the player that moved.
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Returns the depth of the last finished iteration.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last {@link #chooseMove(Board, int)} call.
+     */
+    public long getLastNodes() {
+        return nodes;
+    }
+
+    /**
+     * Clears the transposition table and the move history; with a large table this takes milliseconds.
+     */
+    @Override
+    public void newGame(long seed) {
+        reset();
+    }
+
+    /**
+     * Forgets everything learned in previous searches.
+     */
+    public void reset() {
+        table.clear();
+
+        if (generator != null) {
+            generator.clearHistory();
+        }
+    }
+
+    /**
+     * Static evaluation of a quiet position at the search horizon, from the point of view of the player to
+     * move. Positive values favour that player and must stay below {@link #PROVEN_SCORE}. The default is the
+     * incremental line-count evaluation, kept in step with the board by the search.
+     */
+    protected int evaluate(Board board, ThreatEvaluator threats, int player) {
+        return threats.evaluate(player);
+    }
+
+    private void prepare(Board position) {
+        if (board == null || board.getWidth() != position.getWidth() || board.getHeight() != position.getHeight()
+                || board.getWinLength() != position.getWinLength()) {
+            board = position.copy();
+            generator = new MoveGenerator(board);
+            threats = new ThreatEvaluator(board.getWidth(), board.getHeight(), board.getWinLength());
+            table.clear();
+        } else {
+            board.copyFrom(position);
+        }
+
+        threats.reset(board);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int player) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && (stopped || System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+
+        if (aborted) {
+            return 0;
+        }
+
+        long key = board.hash() ^ (player == 2 ? Zobrist.SIDE_TO_MOVE : 0L);
+
+        long entry = table.probe(key);
+
+        int ttMove = -1;
+
+        if (entry != 0L) {
+            ttMove = TranspositionTable.entryMove(entry);
+
+            if (ply > 0 && TranspositionTable.entryDepth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.entryScore(entry), ply);
+
+                int bound = TranspositionTable.entryBound(entry);
+
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                }
+
+                if (bound == TranspositionTable.LOWER) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        if (depth == 0) {
+            return evaluate(board, threats, player);
+        }
+
+        int count = generator.generate(ply, ttMove, player);
+
+        if (count == 0) {
+            return 0;
+        }
+
+        int[] candidates = generator.moves(ply);
+
+        int alphaOrig = alpha;
+
+        int best = -INFINITY;
+
+        int bestMove = -1;
+
+        for (int i = 0; i < count; i++) {
+            int move = candidates[i];
+
+            int score;
+
+            if (board.completesLine(move, player)) {
+                score = WIN_SCORE - ply - 1;
+            } else {
+                board.place(move, player);
+                threats.place(move, player);
+
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, 3 - player);
+
+                board.remove(move, player);
+                threats.remove(move, player);
+            }
+
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+
+            if (best > alpha) {
+                alpha = best;
+            }
+
+            if (alpha >= beta) {
+                generator.addHistory(move, depth);
+
+                break;
+            }
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+
+        table.store(key, toTable(best, ply), bestMove, depth, bound);
+
+        return best;
+    }
+
+    static int toTable(int score, int ply) {
+        if (score >= PROVEN_SCORE) {
+            return score + ply;
+        }
+
+        return score <= -PROVEN_SCORE ? score - ply : score;
+    }
+
+    static int fromTable(int score, int ply) {
+        if (score >= PROVEN_SCORE) {
+            return score - ply;
+        }
+
+        return score <= -PROVEN_SCORE ? score + ply : score;
+    }
+}
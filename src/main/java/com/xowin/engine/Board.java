@@ -0,0 +1,383 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+
+/**
+ * Packed bitboard for an m,n,k game: a {@code width x height} grid where the first player to
+ * get {@code winLength} stones in a row, column or diagonal wins.
+ *
+ * Every player owns one bit set with one bit per cell, cell index {@code y * width + x}.
+ * Boards of up to 64 cells fit in a single word and use precomputed win-line masks, so a win
+ * check is a handful of AND/compare operations. Larger boards (up to the 100x100 allowed by
+ * {@link com.xowin.Game#setScreenSize(int, int)}) count runs along the four directions through
+ * the last move. None of the checks allocate.
+ *
+ * Player values follow the game model: 0 is an empty cell, 1 is "X", 2 is "O". The board also keeps an
+ * incrementally updated {@link Zobrist} hash of its stones.
+ */
+public final class Board {
+
+    public static final int EMPTY = 0;
+
+    public static final int MAX_SIDE = 100;
+
+    private static final int[] DX = {1, 0, 1, 1};
+
+    private static final int[] DY = {0, 1, 1, -1};
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int cellCount;
+
+    private final int wordCount;
+
+    /**
+     * Valid-cell mask of the last word; all other words are fully used.
+     */
+    private final long lastWordMask;
+
+    /**
+     * Bit sets of the two players, indexed by {@code player - 1}.
+     */
+    private final long[][] stones;
+
+    /**
+     * For single-word boards: the masks of every winning line that passes through a cell.
+     * {@code null} for larger boards.
+     */
+    private final long[][] cellLineMasks;
+
+    private int moveCount;
+
+    private long hash;
+
+    public Board(int width, int height, int winLength) {
+        if (width < 1 || width > MAX_SIDE || height < 1 || height > MAX_SIDE) {
+            throw new IllegalArgumentException("Unsupported board size " + width + "x" + height);
+        }
+
+        if (winLength < 1 || winLength > Math.max(width, height)) {
+            throw new IllegalArgumentException("Unsupported win length " + winLength + " for " + width + "x" + height);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.cellCount = width * height;
+        this.wordCount = (cellCount + 63) >>> 6;
+
+        int tail = cellCount & 63;
+
+        this.lastWordMask = tail == 0 ? -1L : (1L << tail) - 1;
+        this.stones = new long[2][wordCount];
+        this.cellLineMasks = wordCount == 1 ? buildLineMasks() : null;
+    }
+
+    /**
+     * Creates a copy with the same geometry and stones; used by engines that search on their own board.
+     */
+    public Board copy() {
+        Board copy = new Board(width, height, winLength);
+
+        copy.copyFrom(this);
+
+        return copy;
+    }
+
+    /**
+     * Overwrites the stones of this board with the ones of {@code other}, which must have the same geometry.
+     */
+    public void copyFrom(Board other) {
+        if (other.width != width || other.height != height || other.winLength != winLength) {
+            throw new IllegalArgumentException("Board geometry mismatch");
+        }
+
+        System.arraycopy(other.stones[0], 0, stones[0], 0, wordCount);
+        System.arraycopy(other.stones[1], 0, stones[1], 0, wordCount);
+
+        moveCount = other.moveCount;
+        hash = other.hash;
+    }
+
+    private long[][] buildLineMasks() {
+        long[][] masks = new long[cellCount][];
+
+        int[] counts = new int[cellCount];
+
+        long[] lines = new long[4 * cellCount];
+
+        int lineCount = 0;
+
+        for (int d = 0; d < 4; d++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int endX = x + DX[d] * (winLength - 1);
+                    int endY = y + DY[d] * (winLength - 1);
+
+                    if (!contains(endX, endY)) {
+                        continue;
+                    }
+
+                    long mask = 0L;
+
+                    for (int i = 0; i < winLength; i++) {
+                        mask |= 1L << cell(x + DX[d] * i, y + DY[d] * i);
+                    }
+
+                    // a 1-long "line" is the same in every direction
+                    if (winLength == 1 && d > 0) {
+                        continue;
+                    }
+
+                    lines[lineCount++] = mask;
+                }
+            }
+        }
+
+        for (int i = 0; i < lineCount; i++) {
+            for (long bits = lines[i]; bits != 0; bits &= bits - 1) {
+                counts[Long.numberOfTrailingZeros(bits)]++;
+            }
+        }
+
+        for (int c = 0; c < cellCount; c++) {
+            masks[c] = new long[counts[c]];
+            counts[c] = 0;
+        }
+
+        for (int i = 0; i < lineCount; i++) {
+            for (long bits = lines[i]; bits != 0; bits &= bits - 1) {
+                int c = Long.numberOfTrailingZeros(bits);
+
+                masks[c][counts[c]++] = lines[i];
+            }
+        }
+
+        return masks;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Returns the Zobrist hash of the stones on the board.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    public int cellX(int cell) {
+        return cell % width;
+    }
+
+    public int cellY(int cell) {
+        return cell / width;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Removes all stones from the board.
+     */
+    public void clear() {
+        Arrays.fill(stones[0], 0L);
+        Arrays.fill(stones[1], 0L);
+
+        moveCount = 0;
+        hash = 0L;
+    }
+
+    /**
+     * Returns the player occupying the cell, or {@link #EMPTY}.
+     */
+    public int get(int cell) {
+        int word = cell >>> 6;
+
+        long bit = 1L << cell;
+
+        if ((stones[0][word] & bit) != 0) {
+            return 1;
+        }
+
+        return (stones[1][word] & bit) != 0 ? 2 : EMPTY;
+    }
+
+    public int get(int x, int y) {
+        return get(cell(x, y));
+    }
+
+    public boolean isEmpty(int cell) {
+        int word = cell >>> 6;
+
+        return ((stones[0][word] | stones[1][word]) & (1L << cell)) == 0;
+    }
+
+    /**
+     * Puts a stone of the player on an empty cell.
+     */
+    public void place(int cell, int player) {
+        stones[player - 1][cell >>> 6] |= 1L << cell;
+
+        moveCount++;
+        hash ^= Zobrist.key(player, cell);
+    }
+
+    /**
+     * Removes the stone of the player from the cell; the inverse of {@link #place(int, int)}.
+     */
+    public void remove(int cell, int player) {
+        stones[player - 1][cell >>> 6] &= ~(1L << cell);
+
+        moveCount--;
+        hash ^= Zobrist.key(player, cell);
+    }
+
+    public boolean hasEmptyCell() {
+        return moveCount < cellCount;
+    }
+
+    /**
+     * Returns the first empty cell with an index of at least {@code from}, or -1 if there is none.
+     * Iterate the legal moves with {@code for (int c = b.nextEmpty(0); c >= 0; c = b.nextEmpty(c + 1))}.
+     */
+    public int nextEmpty(int from) {
+        if (from >= cellCount) {
+            return -1;
+        }
+
+        int word = from >>> 6;
+
+        long free = ~(stones[0][word] | stones[1][word]) & (-1L << from);
+
+        while (true) {
+            if (word == wordCount - 1) {
+                free &= lastWordMask;
+            }
+
+            if (free != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(free);
+            }
+
+            if (++word == wordCount) {
+                return -1;
+            }
+
+            free = ~(stones[0][word] | stones[1][word]);
+        }
+    }
+
+    /**
+     * Returns the first occupied cell with an index of at least {@code from}, or -1 if there is none.
+     */
+    public int nextStone(int from) {
+        if (from >= cellCount) {
+            return -1;
+        }
+
+        int word = from >>> 6;
+
+        long taken = (stones[0][word] | stones[1][word]) & (-1L << from);
+
+        while (true) {
+            if (taken != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(taken);
+            }
+
+            if (++word == wordCount) {
+                return -1;
+            }
+
+            taken = stones[0][word] | stones[1][word];
+        }
+    }
+
+    /**
+     * Checks whether a stone of the player on the cell is part of a winning line. The cell is treated as
+     * occupied by the player whether or not the stone has been placed yet, so the same call answers both
+     * "did this move win" and "would this move win" without touching the board.
+     */
+    public boolean completesLine(int cell, int player) {
+        long[] own = stones[player - 1];
+
+        if (cellLineMasks != null) {
+            long bits = own[0] | (1L << cell);
+
+            for (long mask : cellLineMasks[cell]) {
+                if ((bits & mask) == mask) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        int x = cellX(cell);
+        int y = cellY(cell);
+
+        for (int d = 0; d < 4; d++) {
+            int run = 1 + run(own, x, y, DX[d], DY[d]) + run(own, x, y, -DX[d], -DY[d]);
+
+            if (run >= winLength) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether an empty cell would win the game for the player.
+     */
+    public boolean isWinningMove(int cell, int player) {
+        return isEmpty(cell) && completesLine(cell, player);
+    }
+
+    private int run(long[] own, int x, int y, int dx, int dy) {
+        int count = 0;
+
+        x += dx;
+        y += dy;
+
+        while (count < winLength - 1 && contains(x, y)) {
+            int c = cell(x, y);
+
+            if ((own[c >>> 6] & (1L << c)) == 0) {
+                break;
+            }
+
+            count++;
+
+            x += dx;
+            y += dy;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,84 @@
+package com.xowin.engine;
+
+/**
+ * The rotations and reflections that map a {@code width x height} board onto itself: all 8 for a square
+ * board, the identity, both mirrors and the half turn otherwise. Used to store one entry per class of
+ * equivalent positions in the precomputed tables.
+ */
+final class BoardSymmetry {
+
+    /**
+     * {@code maps[t][c]} is the cell that {@code c} moves to under transform {@code t}.
+     */
+    private final int[][] maps;
+
+    private final int[][] inverses;
+
+    BoardSymmetry(int width, int height) {
+        int count = width == height ? 8 : 4;
+
+        int cells = width * height;
+
+        this.maps = new int[count][cells];
+        this.inverses = new int[count][cells];
+
+        for (int t = 0; t < count; t++) {
+            for (int c = 0; c < cells; c++) {
+                int x = c % width;
+                int y = c / width;
+
+                if (width == height) {
+                    // t & 3 quarter turns, then a mirror if t >= 4
+                    for (int r = 0; r < (t & 3); r++) {
+                        int rotated = width - 1 - y;
+
+                        y = x;
+                        x = rotated;
+                    }
+
+                    if (t >= 4) {
+                        x = width - 1 - x;
+                    }
+                } else {
+                    if ((t & 1) != 0) {
+                        x = width - 1 - x;
+                    }
+
+                    if ((t & 2) != 0) {
+                        y = height - 1 - y;
+                    }
+                }
+
+                maps[t][c] = y * width + x;
+                inverses[t][y * width + x] = c;
+            }
+        }
+    }
+
+    int count() {
+        return maps.length;
+    }
+
+    int map(int transform, int cell) {
+        return maps[transform][cell];
+    }
+
+    int inverse(int transform, int cell) {
+        return inverses[transform][cell];
+    }
+
+    /**
+     * Applies a transform to a set of cells given as a bit mask; boards of up to 32 cells.
+     */
+    int mapMask(int transform, int mask) {
+        int[] map = maps[transform];
+
+        int result = 0;
+
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            result |= 1 << map[Integer.numberOfTrailingZeros(bits)];
+        }
+
+        return result;
+    }
+}
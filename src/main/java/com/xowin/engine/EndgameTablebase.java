@@ -0,0 +1,566 @@
+package com.xowin.engine;
+
+import com.xowin.TicTacToeRules;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Perfect play for small m,n,k boards (up to 16 cells, e.g. 4x4 with four in a row), solved offline by
+ * retrograde analysis and probed from a memory-mapped file.
+ *
+ * A position is the base-3 number of its cells (1 for "X", 2 for "O"); "X" always moves first, so the side to
+ * move follows from the stone counts. The generator fills one score per position, layer by layer from the
+ * full board back to the empty one: a layer only depends on the next, so the positions of a layer are solved
+ * in parallel. Scores are {@code 100 - plies} for a win in that many plies, the negation for a loss and 0
+ * for a draw, so the stored moves win fast and lose slowly.
+ *
+ * The file keeps only the canonical positions (the smallest code among the board's symmetries) that are
+ * still undecided, sorted by code. Each entry is 6 bytes: code, score, best move in canonical orientation.
+ * A probe canonicalizes the board and binary-searches the mapped entries in place.
+ *
+ * Generate with {@code java -cp target/classes com.xowin.engine.EndgameTablebase board=4x4x4 file=tb4x4x4.bin}.
+ */
+public final class EndgameTablebase implements MoveChooser {
+
+    public static final int MAX_CELLS = 16;
+
+    private static final int MAGIC = 0x58_4F_54_42; // "XOTB"
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int ENTRY_SIZE = 6;
+
+    private static final int WIN = 100;
+
+    private static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int size;
+
+    private final MappedByteBuffer entries;
+
+    private final BoardSymmetry symmetry;
+
+    private final int[] pow3;
+
+    private EndgameTablebase(int width, int height, int winLength, int size, MappedByteBuffer entries) {
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.size = size;
+        this.entries = entries;
+        this.symmetry = new BoardSymmetry(width, height);
+        this.pow3 = powersOfThree(width * height);
+    }
+
+    /**
+     * Maps a tablebase file.
+     */
+    public static EndgameTablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an endgame tablebase");
+            }
+
+            int size = buffer.getInt(8);
+
+            if (buffer.limit() != HEADER_SIZE + (long) size * ENTRY_SIZE) {
+                throw new IOException("Truncated endgame tablebase " + file);
+            }
+
+            return new EndgameTablebase(buffer.get(4), buffer.get(5), buffer.get(6), size, buffer);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the tablebase was built for the board's geometry.
+     */
+    public boolean covers(Board board) {
+        return board.getWidth() == width && board.getHeight() == height && board.getWinLength() == winLength;
+    }
+
+    /**
+     * Returns the best move, or -1 if the position is not in the tablebase: another geometry, the wrong side
+     * to move for the stone counts, or a finished game.
+     */
+    @Override
+    public int chooseMove(Board board, int player) {
+        int entry = probe(board, player);
+
+        return entry == NOT_FOUND ? -1 : entry & 0xFF;
+    }
+
+    /**
+     * Returns the score of the position for the player to move ({@code 100 - plies} for a win, the negation
+     * for a loss, 0 for a draw), or {@link Integer#MIN_VALUE} if it is not in the tablebase.
+     */
+    public int score(Board board, int player) {
+        int entry = probe(board, player);
+
+        return entry == NOT_FOUND ? Integer.MIN_VALUE : entry >> 8;
+    }
+
+    /**
+     * @return {@code score << 8 | move} with the move in board orientation, or {@link #NOT_FOUND}
+     */
+    private int probe(Board board, int player) {
+        if (!covers(board) || player != (board.getMoveCount() % 2 == 0 ? 1 : 2)) {
+            return NOT_FOUND;
+        }
+
+        int x = 0;
+        int o = 0;
+
+        for (int c = board.nextStone(0); c >= 0; c = board.nextStone(c + 1)) {
+            if (board.get(c) == 1) {
+                x |= 1 << c;
+            } else {
+                o |= 1 << c;
+            }
+        }
+
+        int best = Integer.MAX_VALUE;
+
+        int bestTransform = 0;
+
+        for (int t = 0; t < symmetry.count(); t++) {
+            int code = code(symmetry.mapMask(t, x), symmetry.mapMask(t, o));
+
+            if (code < best) {
+                best = code;
+                bestTransform = t;
+            }
+        }
+
+        int index = find(best);
+
+        if (index < 0) {
+            return NOT_FOUND;
+        }
+
+        int position = HEADER_SIZE + index * ENTRY_SIZE;
+
+        int score = entries.get(position + 4);
+
+        int move = symmetry.inverse(bestTransform, entries.get(position + 5));
+
+        return score << 8 | move;
+    }
+
+    private int code(int x, int o) {
+        int code = 0;
+
+        for (int bits = x; bits != 0; bits &= bits - 1) {
+            code += pow3[Integer.numberOfTrailingZeros(bits)];
+        }
+
+        for (int bits = o; bits != 0; bits &= bits - 1) {
+            code += 2 * pow3[Integer.numberOfTrailingZeros(bits)];
+        }
+
+        return code;
+    }
+
+    private int find(int code) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            int midCode = entries.getInt(HEADER_SIZE + mid * ENTRY_SIZE);
+
+            if (midCode < code) {
+                low = mid + 1;
+            } else if (midCode > code) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int[] powersOfThree(int cells) {
+        int[] pow3 = new int[cells + 1];
+
+        pow3[0] = 1;
+
+        for (int i = 1; i <= cells; i++) {
+            pow3[i] = pow3[i - 1] * 3;
+        }
+
+        return pow3;
+    }
+
+    /**
+     * Solves every position of the board and writes the tablebase file.
+     *
+     * @return the number of entries written
+     */
+    public static int generate(int width, int height, int winLength, Path file) throws IOException {
+        if (width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Tablebases cover boards of up to " + MAX_CELLS + " cells");
+        }
+
+        Solver solver = new Solver(width, height, winLength);
+
+        solver.solve();
+
+        long[] sorted = solver.canonicalEntries();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        header.putInt(MAGIC);
+        header.put((byte) width);
+        header.put((byte) height);
+        header.put((byte) winLength);
+        header.put((byte) 0);
+        header.putInt(sorted.length);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+
+            ByteBuffer block = ByteBuffer.allocate(ENTRY_SIZE * 4096);
+
+            for (long entry : sorted) {
+                if (block.remaining() < ENTRY_SIZE) {
+                    block.flip();
+                    channel.write(block);
+                    block.clear();
+                }
+
+                block.putInt((int) (entry >>> 16));
+                block.put((byte) (entry >>> 8));
+                block.put((byte) entry);
+            }
+
+            block.flip();
+            channel.write(block);
+        }
+
+        return sorted.length;
+    }
+
+    /**
+     * Usage: {@code EndgameTablebase board=4x4x4 file=tb4x4x4.bin}
+     */
+    public static void main(String[] args) throws IOException {
+        int[] board = {4, 4, 4};
+        String file = null;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(0, eq)) {
+                case "board" -> board = TicTacToeRules.parseBoard(value);
+                case "file" -> file = value;
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        Path target = Paths.get(file != null ? file : "tb" + board[0] + "x" + board[1] + "x" + board[2] + ".bin");
+
+        long start = System.nanoTime();
+
+        int count = generate(board[0], board[1], board[2], target);
+
+        System.out.printf("Wrote %d canonical positions to %s in %.1fs%n", count, target, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Retrograde solver over bit masks of the two players' stones.
+     */
+    private static final class Solver {
+
+        private final int cells;
+
+        private final int full;
+
+        private final BoardSymmetry symmetry;
+
+        /**
+         * Masks of every winning line through each cell.
+         */
+        private final int[][] cellLines;
+
+        /**
+         * {@code base3[mask]} is the sum of {@code 3^c} over the cells of the mask.
+         */
+        private final int[] base3;
+
+        /**
+         * Score of every position by code, for the player to move; 0 until solved, which is also a draw.
+         */
+        private final byte[] scores;
+
+        Solver(int width, int height, int winLength) {
+            this.cells = width * height;
+            this.full = (1 << cells) - 1;
+            this.symmetry = new BoardSymmetry(width, height);
+            this.cellLines = new int[cells][];
+            this.base3 = new int[1 << cells];
+
+            int[] pow3 = powersOfThree(cells);
+
+            for (int mask = 1; mask <= full; mask++) {
+                base3[mask] = base3[mask & (mask - 1)] + pow3[Integer.numberOfTrailingZeros(mask)];
+            }
+
+            this.scores = new byte[pow3[cells]];
+
+            int[] lines = lines(width, height, winLength);
+
+            for (int c = 0; c < cells; c++) {
+                int cell = c;
+
+                cellLines[c] = Arrays.stream(lines).filter(line -> (line & (1 << cell)) != 0).toArray();
+            }
+        }
+
+        /**
+         * Returns the masks of all winning lines of the board.
+         */
+        private static int[] lines(int width, int height, int winLength) {
+            Board board = new Board(width, height, winLength);
+
+            int[] dx = {1, 0, 1, 1};
+            int[] dy = {0, 1, 1, -1};
+
+            IntStream.Builder lines = IntStream.builder();
+
+            // a 1-long line is the same in every direction
+            for (int d = 0; d < (winLength == 1 ? 1 : 4); d++) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (!board.contains(x + dx[d] * (winLength - 1), y + dy[d] * (winLength - 1))) {
+                            continue;
+                        }
+
+                        int mask = 0;
+
+                        for (int i = 0; i < winLength; i++) {
+                            mask |= 1 << board.cell(x + dx[d] * i, y + dy[d] * i);
+                        }
+
+                        lines.add(mask);
+                    }
+                }
+            }
+
+            return lines.build().toArray();
+        }
+
+        private boolean hasLine(int stones) {
+            for (int bits = stones; bits != 0; bits &= bits - 1) {
+                for (int line : cellLines[Integer.numberOfTrailingZeros(bits)]) {
+                    if ((stones & line) == line) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private boolean completes(int stones, int cell) {
+            for (int line : cellLines[cell]) {
+                if ((stones & line) == line) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Solves all layers from the last move back to the empty board, each layer in parallel.
+         */
+        void solve() {
+            for (int layer = cells - 1; layer >= 0; layer--) {
+                int xCount = (layer + 1) / 2;
+                int oCount = layer / 2;
+
+                boolean xToMove = layer % 2 == 0;
+
+                int[] xMasks = masks(full, xCount);
+
+                IntStream.range(0, xMasks.length).parallel().forEach(i -> {
+                    int x = xMasks[i];
+
+                    if (hasLine(x)) {
+                        return;
+                    }
+
+                    for (int o : masks(full & ~x, oCount)) {
+                        if (!hasLine(o)) {
+                            scores[base3[x] + 2 * base3[o]] = (byte) (best(x, o, xToMove) >> 8);
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * @return {@code score << 8 | move} of the best move
+         */
+        private int best(int x, int o, boolean xToMove) {
+            int own = xToMove ? x : o;
+
+            int best = -WIN;
+
+            int bestMove = -1;
+
+            for (int free = full & ~(x | o); free != 0; free &= free - 1) {
+                int c = Integer.numberOfTrailingZeros(free);
+
+                int score;
+
+                if (completes(own | (1 << c), c)) {
+                    score = WIN - 1;
+                } else {
+                    int child = xToMove ? base3[x | (1 << c)] + 2 * base3[o] : base3[x] + 2 * base3[o | (1 << c)];
+
+                    int value = scores[child];
+
+                    // one ply further from the end, seen from the other side
+                    score = value > 0 ? -value + 1 : value < 0 ? -value - 1 : 0;
+                }
+
+                if (score > best) {
+                    best = score;
+                    bestMove = c;
+                }
+            }
+
+            return best << 8 | bestMove;
+        }
+
+        /**
+         * Returns the canonical undecided positions as {@code code << 16 | score << 8 | move}, sorted.
+         */
+        long[] canonicalEntries() {
+            long[][] perLayer = new long[cells][];
+
+            for (int layer = 0; layer < cells; layer++) {
+                int xCount = (layer + 1) / 2;
+                int oCount = layer / 2;
+
+                boolean xToMove = layer % 2 == 0;
+
+                perLayer[layer] = Arrays.stream(masks(full, xCount)).parallel()
+                        .filter(x -> !hasLine(x))
+                        .mapToObj(x -> Arrays.stream(masks(full & ~x, oCount))
+                                .filter(o -> !hasLine(o) && isCanonical(x, o))
+                                .mapToLong(o -> {
+                                    int best = best(x, o, xToMove);
+
+                                    return (long) (base3[x] + 2 * base3[o]) << 16 | (best & 0xFFFF);
+                                }))
+                        .flatMapToLong(stream -> stream)
+                        .toArray();
+            }
+
+            long[] all = Arrays.stream(perLayer).flatMapToLong(Arrays::stream).toArray();
+
+            Arrays.sort(all);
+
+            return all;
+        }
+
+        private boolean isCanonical(int x, int o) {
+            int code = base3[x] + 2 * base3[o];
+
+            for (int t = 1; t < symmetry.count(); t++) {
+                if (base3[symmetry.mapMask(t, x)] + 2 * base3[symmetry.mapMask(t, o)] < code) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns all subsets of {@code from} with exactly {@code bits} cells.
+         */
+        private static int[] masks(int from, int bits) {
+            int[] positions = new int[Integer.bitCount(from)];
+
+            int n = 0;
+
+            for (int rest = from; rest != 0; rest &= rest - 1) {
+                positions[n++] = Integer.numberOfTrailingZeros(rest);
+            }
+
+            if (bits > n) {
+                return new int[0];
+            }
+
+            int count = (int) binomial(n, bits);
+
+            int[] result = new int[count];
+
+            int index = 0;
+
+            // Gosper's hack over n-bit combinations, spread onto the cells of "from"
+            for (long combination = (1L << bits) - 1; combination < (1L << n); ) {
+                int mask = 0;
+
+                for (long rest = combination; rest != 0; rest &= rest - 1) {
+                    mask |= 1 << positions[Long.numberOfTrailingZeros(rest)];
+                }
+
+                result[index++] = mask;
+
+                if (combination == 0) {
+                    break;
+                }
+
+                long lowest = combination & -combination;
+                long ripple = combination + lowest;
+
+                combination = (((ripple ^ combination) >>> 2) / lowest) | ripple;
+            }
+
+            return result;
+        }
+
+        private static long binomial(int n, int k) {
+            long result = 1;
+
+            for (int i = 1; i <= k; i++) {
+                result = result * (n - k + i) / i;
+            }
+
+            return result;
+        }
+    }
+}
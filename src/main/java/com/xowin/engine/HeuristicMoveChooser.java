@@ -0,0 +1,55 @@
+package com.xowin.engine;
+
+/**
+ * The original fixed-priority strategy of the game: take the center, win if possible, block the
+ * opponent's win, otherwise take the first free cell.
+ */
+public class HeuristicMoveChooser implements MoveChooser {
+
+    @Override
+    public int chooseMove(Board board, int player) {
+        int center = board.cell(board.getWidth() / 2, board.getHeight() / 2);
+
+        // Move to the center
+        if (board.isEmpty(center)) {
+            return center;
+        }
+
+        // find the winner turn
+        int cell = findWinningMove(board, player);
+
+        if (cell >= 0) {
+            return cell;
+        }
+
+        // We prevent the opponent from winning.
+        cell = findWinningMove(board, 3 - player);
+
+        if (cell >= 0) {
+            return cell;
+        }
+
+        // turn in first free cell
+        for (int x = 0; x < board.getWidth(); x++) {
+            for (int y = 0; y < board.getHeight(); y++) {
+                if (board.isEmpty(board.cell(x, y))) {
+                    return board.cell(x, y);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static int findWinningMove(Board board, int player) {
+        for (int x = 0; x < board.getWidth(); x++) {
+            for (int y = 0; y < board.getHeight(); y++) {
+                if (board.isWinningMove(board.cell(x, y), player)) {
+                    return board.cell(x, y);
+                }
+            }
+        }
+
+        return -1;
+    }
+}
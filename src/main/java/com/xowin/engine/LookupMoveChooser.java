@@ -0,0 +1,56 @@
+package com.xowin.engine;
+
+/**
+ * Answers from precomputed tables where they cover the position and searches otherwise: the lookups (for
+ * example an {@link OpeningBook} and an {@link EndgameTablebase}) are asked in order, and the first one that
+ * knows a move wins. Only positions none of them covers reach the search.
+ */
+public final class LookupMoveChooser implements StoppableMoveChooser {
+
+    private final MoveChooser search;
+
+    private final MoveChooser[] lookups;
+
+    /**
+     * @param search  the chooser for positions no lookup covers
+     * @param lookups choosers that return -1 for positions they do not cover
+     */
+    public LookupMoveChooser(MoveChooser search, MoveChooser... lookups) {
+        this.search = search;
+        this.lookups = lookups.clone();
+    }
+
+    public MoveChooser getSearch() {
+        return search;
+    }
+
+    @Override
+    public void setStopped(boolean stopped) {
+        if (search instanceof StoppableMoveChooser stoppable) {
+            stoppable.setStopped(stopped);
+        }
+    }
+
+    @Override
+    public void newGame(long seed) {
+        search.newGame(seed);
+    }
+
+    @Override
+    public void shutdown() {
+        search.shutdown();
+    }
+
+    @Override
+    public int chooseMove(Board board, int player) {
+        for (MoveChooser lookup : lookups) {
+            int move = lookup.chooseMove(board, player);
+
+            if (move >= 0) {
+                return move;
+            }
+        }
+
+        return search.chooseMove(board, player);
+    }
+}
@@ -0,0 +1,662 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search with UCT selection, for wide boards where alpha-beta cannot see far.
+ *
+ * The search is root-parallel: every worker grows its own tree of the current position from its own random
+ * stream, and the root visit counts of all trees are summed to pick the move. Trees live in preallocated
+ * structure-of-arrays node pools (children of a node are contiguous) that are emptied and reused for every
+ * move; when a pool is full, leaves are no longer expanded but still played out. Playouts place stones on the
+ * worker's {@link Board} and take them back afterwards, so a move allocates nothing per node or playout; they
+ * are random, next to existing stones on large boards, except that they take wins in one and block the
+ * opponent's.
+ *
+ * Children are the {@link MoveGenerator} candidates, in its order: on boards of more than 64 cells only cells
+ * near existing stones. A win in one is played and a single opponent win in one is blocked without searching.
+ * Strength is set by the playout budget per move, shared by all workers ({@link #EASY_PLAYOUTS} to
+ * {@link #HARD_PLAYOUTS}), optionally capped by a time budget.
+ *
+ * One {@link #chooseMove(Board, int)} call may run at a time.
+ */
+public class MctsMoveChooser implements StoppableMoveChooser {
+
+    public static final int EASY_PLAYOUTS = 1_000;
+
+    public static final int MEDIUM_PLAYOUTS = 10_000;
+
+    public static final int HARD_PLAYOUTS = 100_000;
+
+    public static final int DEFAULT_POOL_SIZE = 1 << 18;
+
+    /**
+     * UCT exploration constant for values in [0, 1].
+     */
+    private static final double EXPLORATION = 0.7;
+
+    private static final int TIME_CHECK_MASK = 15;
+
+    /**
+     * Larger boards play out only next to existing stones.
+     */
+    private static final int LOCAL_PLAYOUT_CELLS = 64;
+
+    private static final int[] RAY_X = {1, -1, 0, 0, 1, -1, 1, -1};
+
+    private static final int[] RAY_Y = {0, 0, 1, -1, 1, -1, -1, 1};
+
+    // childCount markers of nodes without children
+    private static final int UNEXPANDED = -1;
+
+    private static final int WON = -2;
+
+    private static final int DRAWN = -3;
+
+    private final int playouts;
+
+    private final long timeBudgetNanos;
+
+    private final Worker[] workers;
+
+    private final ExecutorService helpers;
+
+    private final Future<?>[] pending;
+
+    private long seed;
+
+    private volatile long deadline;
+
+    private volatile boolean stopped;
+
+    private int[] visitTotals = new int[0];
+
+    private long moveCounter;
+
+    private long lastPlayouts;
+
+    /**
+     * @param playouts         playouts per move, shared by all threads
+     * @param timeBudgetMillis wall-clock budget per move, 0 for none
+     * @param threads          number of trees searched in parallel
+     * @param seed             seed of the random playouts
+     */
+    public MctsMoveChooser(int playouts, long timeBudgetMillis, int threads, long seed) {
+        this(playouts, timeBudgetMillis, threads, seed, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param playouts         playouts per move, shared by all threads
+     * @param timeBudgetMillis wall-clock budget per move, 0 for none
+     * @param threads          number of trees searched in parallel
+     * @param seed             seed of the random playouts
+     * @param poolSize         tree nodes per thread
+     */
+    public MctsMoveChooser(int playouts, long timeBudgetMillis, int threads, long seed, int poolSize) {
+        if (playouts < 1 || threads < 1 || poolSize < 2) {
+            throw new IllegalArgumentException("Playouts, threads and pool size must be positive");
+        }
+
+        this.playouts = playouts;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.seed = seed;
+        this.workers = new Worker[threads];
+        this.pending = new Future<?>[threads];
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(poolSize);
+        }
+
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Parses a playout budget: a number, or {@code easy}, {@code medium} or {@code hard}.
+     */
+    public static int parsePlayouts(String value) {
+        return switch (value) {
+            case "easy" -> EASY_PLAYOUTS;
+            case "medium" -> MEDIUM_PLAYOUTS;
+            case "hard" -> HARD_PLAYOUTS;
+            default -> Integer.parseInt(value);
+        };
+    }
+
+    @Override
+    public void newGame(long seed) {
+        this.seed = seed;
+        this.moveCounter = 0;
+    }
+
+    @Override
+    public void setStopped(boolean stopped) {
+        this.stopped = stopped;
+    }
+
+    @Override
+    public int chooseMove(Board position, int player) {
+        if (!position.hasEmptyCell()) {
+            return -1;
+        }
+
+        int forced = forcedMove(position, player);
+
+        if (forced >= 0) {
+            lastPlayouts = 0;
+
+            return forced;
+        }
+
+        deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+
+        long moveSeed = RandomMoveChooser.mix64(seed + moveCounter++);
+
+        for (int i = 0; i < workers.length; i++) {
+            int share = playouts / workers.length + (i < playouts % workers.length ? 1 : 0);
+
+            workers[i].prepare(position, player, Math.max(1, share), RandomMoveChooser.mix64(moveSeed + i));
+        }
+
+        try {
+            for (int i = 1; i < workers.length; i++) {
+                pending[i] = helpers.submit(workers[i]);
+            }
+
+            workers[0].run();
+
+            for (int i = 1; i < workers.length; i++) {
+                pending[i].get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+
+        return mostVisited(position);
+    }
+
+    /**
+     * Returns the number of playouts of the last {@link #chooseMove(Board, int)} call, over all threads.
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * Stops the helper threads; the chooser cannot be used afterwards.
+     */
+    @Override
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private static int forcedMove(Board board, int player) {
+        int block = -1;
+
+        for (int c = board.nextEmpty(0); c >= 0; c = board.nextEmpty(c + 1)) {
+            if (board.completesLine(c, player)) {
+                return c;
+            }
+
+            if (block < 0 && board.completesLine(c, 3 - player)) {
+                block = c;
+            }
+        }
+
+        return block;
+    }
+
+    private int mostVisited(Board position) {
+        if (visitTotals.length < position.getCellCount()) {
+            visitTotals = new int[position.getCellCount()];
+        }
+
+        Arrays.fill(visitTotals, 0);
+
+        lastPlayouts = 0;
+
+        for (Worker worker : workers) {
+            worker.addRootVisits(visitTotals);
+
+            lastPlayouts += worker.playoutCount;
+        }
+
+        int best = -1;
+
+        for (int c = position.nextEmpty(0); c >= 0; c = position.nextEmpty(c + 1)) {
+            if (best < 0 || visitTotals[c] > visitTotals[best]) {
+                best = c;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * One tree and its playout state; touched by one thread per move.
+     */
+    private final class Worker implements Runnable {
+
+        private final int capacity;
+
+        // node pool; node 0 is the root
+        private final int[] move;
+
+        private final int[] firstChild;
+
+        private final int[] childCount;
+
+        private final int[] visits;
+
+        /**
+         * Results for the player who made the node's move, in half points: 2 per win, 1 per draw.
+         */
+        private final int[] score;
+
+        private int nodeCount;
+
+        private Board board;
+
+        private MoveGenerator generator;
+
+        private int[] path = new int[0];
+
+        private int[] placed = new int[0];
+
+        private int[] empties = new int[0];
+
+        private int free;
+
+        /**
+         * Index of each candidate cell in {@link #empties} during a playout, -1 for other cells.
+         */
+        private int[] slot = new int[0];
+
+        private final int[][] threats = new int[2][0];
+
+        private final int[] threatCount = new int[2];
+
+        private int rootPlayer;
+
+        private int budget;
+
+        private long randomState;
+
+        private int playoutCount;
+
+        Worker(int capacity) {
+            this.capacity = capacity;
+            this.move = new int[capacity];
+            this.firstChild = new int[capacity];
+            this.childCount = new int[capacity];
+            this.visits = new int[capacity];
+            this.score = new int[capacity];
+        }
+
+        void prepare(Board position, int player, int budget, long randomSeed) {
+            if (board == null || board.getWidth() != position.getWidth() || board.getHeight() != position.getHeight()
+                    || board.getWinLength() != position.getWinLength()) {
+                board = position.copy();
+                generator = new MoveGenerator(board);
+                path = new int[board.getCellCount() + 1];
+                placed = new int[board.getCellCount()];
+                empties = new int[board.getCellCount()];
+                slot = new int[board.getCellCount()];
+                threats[0] = new int[board.getCellCount()];
+                threats[1] = new int[board.getCellCount()];
+            } else {
+                board.copyFrom(position);
+            }
+
+            this.rootPlayer = player;
+            this.budget = budget;
+            this.randomState = randomSeed;
+            this.playoutCount = 0;
+
+            nodeCount = 1;
+            move[0] = -1;
+            childCount[0] = UNEXPANDED;
+            visits[0] = 0;
+            score[0] = 0;
+        }
+
+        @Override
+        public void run() {
+            expand(0, rootPlayer);
+
+            while (playoutCount < budget) {
+                if (playoutCount > 0 && (playoutCount & TIME_CHECK_MASK) == 0
+                        && (stopped || System.nanoTime() > deadline)) {
+                    break;
+                }
+
+                iterate();
+
+                playoutCount++;
+            }
+        }
+
+        void addRootVisits(int[] totals) {
+            for (int i = firstChild[0]; i < firstChild[0] + Math.max(0, childCount[0]); i++) {
+                totals[move[i]] += visits[i];
+            }
+        }
+
+        /**
+         * One selection, expansion, playout and backpropagation; leaves the board as it found it.
+         */
+        private void iterate() {
+            int node = 0;
+            int depth = 0;
+            int player = rootPlayer;
+
+            path[depth++] = node;
+
+            int winner;
+
+            while (true) {
+                int children = childCount[node];
+
+                if (children == WON) {
+                    winner = 3 - player; // the player who moved into the node
+                    break;
+                }
+
+                if (children == DRAWN) {
+                    winner = 0;
+                    break;
+                }
+
+                if (children == UNEXPANDED && (visits[node] == 0 || !expand(node, player))) {
+                    winner = playout(player, depth - 1);
+                    break;
+                }
+
+                node = select(node);
+
+                board.place(move[node], player);
+
+                placed[depth - 1] = move[node];
+                path[depth++] = node;
+
+                player = 3 - player;
+            }
+
+            // the stones of the path, the playout has taken back its own
+            for (int i = depth - 2; i >= 0; i--) {
+                board.remove(placed[i], board.get(placed[i]));
+            }
+
+            // the mover of path[i] is the player to move at path[i - 1]
+            int mover = rootPlayer;
+
+            for (int i = 1; i < depth; i++) {
+                int n = path[i];
+
+                visits[n]++;
+                score[n] += winner == mover ? 2 : winner == 0 ? 1 : 0;
+
+                mover = 3 - mover;
+            }
+
+            visits[0]++;
+        }
+
+        /**
+         * Adds the node's children; returns false if the pool has no room for them.
+         */
+        private boolean expand(int node, int player) {
+            int count = generator.generate(0, -1, player);
+
+            if (nodeCount + count > capacity) {
+                return false;
+            }
+
+            int[] candidates = generator.moves(0);
+
+            int first = nodeCount;
+
+            boolean full = board.getMoveCount() + 1 == board.getCellCount();
+
+            for (int i = 0; i < count; i++) {
+                int child = first + i;
+
+                int c = candidates[i];
+
+                move[child] = c;
+                childCount[child] = board.completesLine(c, player) ? WON : full ? DRAWN : UNEXPANDED;
+                visits[child] = 0;
+                score[child] = 0;
+            }
+
+            nodeCount += count;
+
+            firstChild[node] = first;
+            childCount[node] = count;
+
+            return true;
+        }
+
+        private int select(int node) {
+            int first = firstChild[node];
+            int end = first + childCount[node];
+
+            double logVisits = Math.log(Math.max(1, visits[node]));
+
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int i = first; i < end; i++) {
+                int n = visits[i];
+
+                if (n == 0) {
+                    return i; // candidates come best first
+                }
+
+                double value = score[i] / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+
+            return best;
+        }
+
+        /**
+         * Plays moves from the current position to the end and takes them back: a win in one if the player
+         * to move has one, else a block of the opponent's win in one, else a uniformly random candidate cell.
+         * Wins in one are only known for lines completed during the playout; the tree handles the others. On
+         * boards of more than {@value #LOCAL_PLAYOUT_CELLS} cells the candidates are the empty cells next to a
+         * stone, and the playout is a draw when there are none left.
+         *
+         * @param player the player to move
+         * @param stack  the number of path stones below the playout's stones in {@link #placed}
+         * @return the winner, 0 for a draw
+         */
+        private int playout(int player, int stack) {
+            collectCandidates();
+
+            threatCount[0] = 0;
+            threatCount[1] = 0;
+
+            int top = stack;
+            int winner = 0;
+
+            while (free > 0) {
+                int c = threat(player);
+
+                if (c < 0) {
+                    c = threat(3 - player);
+                }
+
+                if (c < 0) {
+                    c = empties[nextInt(free)];
+                }
+
+                removeCandidate(c);
+
+                boolean wins = board.completesLine(c, player);
+
+                board.place(c, player);
+
+                placed[top++] = c;
+
+                if (wins) {
+                    winner = player;
+                    break;
+                }
+
+                addNeighbours(c);
+                addThreats(c, player);
+
+                player = 3 - player;
+            }
+
+            while (top > stack) {
+                int c = placed[--top];
+
+                board.remove(c, board.get(c));
+            }
+
+            return winner;
+        }
+
+        /**
+         * Fills the playout's candidate cells: all empty cells of a small board, else the empty cells next to a
+         * stone (the centre on an empty board).
+         */
+        private void collectCandidates() {
+            Arrays.fill(slot, -1);
+
+            free = 0;
+
+            if (board.getCellCount() <= LOCAL_PLAYOUT_CELLS) {
+                for (int c = board.nextEmpty(0); c >= 0; c = board.nextEmpty(c + 1)) {
+                    addCandidate(c);
+                }
+            } else if (board.getMoveCount() == 0) {
+                addCandidate(board.cell(board.getWidth() / 2, board.getHeight() / 2));
+            } else {
+                for (int c = board.nextStone(0); c >= 0; c = board.nextStone(c + 1)) {
+                    addNeighbours(c);
+                }
+            }
+        }
+
+        private void addNeighbours(int cell) {
+            if (board.getCellCount() <= LOCAL_PLAYOUT_CELLS) {
+                return; // all empty cells are candidates already
+            }
+
+            int x = board.cellX(cell);
+            int y = board.cellY(cell);
+
+            for (int d = 0; d < 8; d++) {
+                if (board.contains(x + RAY_X[d], y + RAY_Y[d])) {
+                    int c = board.cell(x + RAY_X[d], y + RAY_Y[d]);
+
+                    if (slot[c] < 0 && board.isEmpty(c)) {
+                        addCandidate(c);
+                    }
+                }
+            }
+        }
+
+        private void addCandidate(int c) {
+            slot[c] = free;
+            empties[free++] = c;
+        }
+
+        /**
+         * Swap-removes a cell from the candidates, if it is one.
+         */
+        private void removeCandidate(int c) {
+            if (slot[c] < 0) {
+                return;
+            }
+
+            int last = empties[--free];
+
+            empties[slot[c]] = last;
+            slot[last] = slot[c];
+            slot[c] = -1;
+        }
+
+        /**
+         * Returns an empty cell that wins for the player, dropping stale entries, or -1.
+         */
+        private int threat(int player) {
+            int[] list = threats[player - 1];
+
+            while (threatCount[player - 1] > 0) {
+                int c = list[threatCount[player - 1] - 1];
+
+                if (board.isEmpty(c)) {
+                    return c;
+                }
+
+                threatCount[player - 1]--;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Records the empty cells that win for the player since its stone on the cell: on each of the eight
+         * rays from the cell, the first empty cell past the player's own stones.
+         */
+        private void addThreats(int cell, int player) {
+            int x = board.cellX(cell);
+            int y = board.cellY(cell);
+
+            for (int d = 0; d < 8; d++) {
+                int cx = x + RAY_X[d];
+                int cy = y + RAY_Y[d];
+
+                for (int step = 1; step < board.getWinLength() && board.contains(cx, cy); step++) {
+                    int c = board.cell(cx, cy);
+
+                    int stone = board.get(c);
+
+                    if (stone == Board.EMPTY) {
+                        if (board.completesLine(c, player) && threatCount[player - 1] < threats[player - 1].length) {
+                            threats[player - 1][threatCount[player - 1]++] = c;
+                        }
+
+                        break;
+                    }
+
+                    if (stone != player) {
+                        break;
+                    }
+
+                    cx += RAY_X[d];
+                    cy += RAY_Y[d];
+                }
+            }
+        }
+
+        private int nextInt(int bound) {
+            randomState += 0x9E3779B97F4A7C15L;
+
+            return (int) (((RandomMoveChooser.mix64(randomState) >>> 32) * bound) >>> 32);
+        }
+    }
+}
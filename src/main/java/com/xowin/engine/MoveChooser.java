@@ -0,0 +1,33 @@
+package com.xowin.engine;
+
+/**
+ * Strategy that picks the next move for a player. Implementations must leave the passed board in the
+ * state they received it.
+ */
+public interface MoveChooser {
+
+    /**
+     * Picks a move for the player to move.
+     *
+     * @param board  the current position
+     * @param player the player to move, 1 or 2
+     * @return the cell index of the chosen move, or -1 if the board has no empty cell
+     */
+    int chooseMove(Board board, int player);
+
+    /**
+     * Prepares for a new game: reseeds any randomness and forgets what earlier games taught, so that the moves
+     * of the game depend only on the seed and the positions, not on the games played before. Choosers bounded
+     * by wall-clock time stay timing dependent. Does nothing by default.
+     *
+     * @param seed seed of the game
+     */
+    default void newGame(long seed) {
+    }
+
+    /**
+     * Stops the threads the chooser searches on; it cannot be used afterwards. Does nothing by default.
+     */
+    default void shutdown() {
+    }
+}
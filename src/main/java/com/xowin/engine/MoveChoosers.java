@@ -0,0 +1,126 @@
+package com.xowin.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates {@link MoveChooser} instances by name, so the strategy can be picked on the command line:
+ * {@code -Dxowin.ai=alphabeta -Dxowin.ai.depth=12 -Dxowin.ai.timeMs=200}, or {@code -Dxowin.ai=table} for the
+ * precomputed 3x3 {@link PerfectPlayTable}. {@code -Dxowin.ai=parallel -Dxowin.ai.threads=32} searches large boards
+ * on all cores with {@link ParallelSearchMoveChooser}, within {@code xowin.ai.timeMs} (default 200 ms).
+ * {@code -Dxowin.ai=mcts -Dxowin.ai.playouts=hard} runs {@link MctsMoveChooser} with a playout budget of
+ * {@code easy}, {@code medium} (default), {@code hard} or a number.
+ *
+ * {@code -Dxowin.ai.book=<file>} and {@code -Dxowin.ai.tablebase=<file>} put an {@link OpeningBook} and an
+ * {@link EndgameTablebase} in front of the selected strategy; it only searches positions they do not cover.
+ * {@code -Dxowin.ai.ponder=true} lets the desktop game search on the human's time with
+ * {@link PonderingMoveChooser}.
+ */
+public final class MoveChoosers {
+
+    public static final String PROPERTY = "xowin.ai";
+
+    public static final String DEPTH_PROPERTY = "xowin.ai.depth";
+
+    public static final String TIME_PROPERTY = "xowin.ai.timeMs";
+
+    public static final String SEED_PROPERTY = "xowin.ai.seed";
+
+    public static final String THREADS_PROPERTY = "xowin.ai.threads";
+
+    public static final String BOOK_PROPERTY = "xowin.ai.book";
+
+    public static final String TABLEBASE_PROPERTY = "xowin.ai.tablebase";
+
+    public static final String PONDER_PROPERTY = "xowin.ai.ponder";
+
+    public static final String PLAYOUTS_PROPERTY = "xowin.ai.playouts";
+
+    public static final String HEURISTIC = "heuristic";
+
+    public static final String ALPHA_BETA = "alphabeta";
+
+    public static final String PARALLEL = "parallel";
+
+    public static final String MCTS = "mcts";
+
+    public static final String TABLE = "table";
+
+    public static final String RANDOM = "random";
+
+    private MoveChoosers() {
+    }
+
+    /**
+     * Creates the chooser selected by the {@value #PROPERTY} system property, the heuristic one by default.
+     */
+    public static MoveChooser fromSystemProperties() {
+        MoveChooser chooser = fromSystemProperties(Runtime.getRuntime().availableProcessors());
+
+        return Boolean.getBoolean(PONDER_PROPERTY) ? new PonderingMoveChooser(chooser) : chooser;
+    }
+
+    /**
+     * Creates the chooser selected by the {@value #PROPERTY} system property behind the configured book and
+     * tablebase, but never pondering, for callers that run several choosers side by side. Multi-threaded
+     * choosers search on {@code threads} threads unless {@value #THREADS_PROPERTY} says otherwise.
+     */
+    public static MoveChooser fromSystemProperties(int threads) {
+        return withLookups(byName(System.getProperty(PROPERTY, HEURISTIC), threads));
+    }
+
+    private static MoveChooser withLookups(MoveChooser chooser) {
+        String book = System.getProperty(BOOK_PROPERTY);
+
+        String tablebase = System.getProperty(TABLEBASE_PROPERTY);
+
+        if (book == null && tablebase == null) {
+            return chooser;
+        }
+
+        try {
+            List<MoveChooser> lookups = new ArrayList<>();
+
+            if (book != null) {
+                lookups.add(OpeningBook.open(Paths.get(book)));
+            }
+
+            if (tablebase != null) {
+                lookups.add(EndgameTablebase.open(Paths.get(tablebase)));
+            }
+
+            return new LookupMoveChooser(chooser, lookups.toArray(new MoveChooser[0]));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static MoveChooser byName(String name) {
+        return byName(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a chooser by name; multi-threaded ones search on {@code threads} threads unless
+     * {@value #THREADS_PROPERTY} says otherwise.
+     */
+    public static MoveChooser byName(String name, int threads) {
+        return switch (name) {
+            case HEURISTIC -> new HeuristicMoveChooser();
+            case ALPHA_BETA -> new AlphaBetaMoveChooser(Integer.getInteger(DEPTH_PROPERTY, AlphaBetaMoveChooser.MAX_DEPTH),
+                    Long.getLong(TIME_PROPERTY, 0L));
+            case PARALLEL -> new ParallelSearchMoveChooser(Integer.getInteger(DEPTH_PROPERTY, AlphaBetaMoveChooser.MAX_DEPTH),
+                    Long.getLong(TIME_PROPERTY, ParallelSearchMoveChooser.DEFAULT_TIME_BUDGET_MILLIS),
+                    Integer.getInteger(THREADS_PROPERTY, threads));
+            case MCTS -> new MctsMoveChooser(MctsMoveChooser.parsePlayouts(System.getProperty(PLAYOUTS_PROPERTY, "medium")),
+                    Long.getLong(TIME_PROPERTY, 0L),
+                    Integer.getInteger(THREADS_PROPERTY, threads),
+                    Long.getLong(SEED_PROPERTY, System.nanoTime()));
+            case TABLE -> PerfectPlayTable.getInstance();
+            case RANDOM -> new RandomMoveChooser(Long.getLong(SEED_PROPERTY, System.nanoTime()));
+            default -> throw new IllegalArgumentException("Unknown move chooser '" + name + "'");
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+
+/**
+ * Candidate moves of a search in search order, with one reusable buffer per ply so that generating them does
+ * not allocate.
+ *
+ * Moves are ordered as: transposition-table move, immediate wins, blocks of the opponent's immediate wins,
+ * then by history score and closeness to the centre. On boards of more than 64 cells only cells within two
+ * steps of an existing stone are candidates.
+ */
+final class MoveGenerator {
+
+    private static final int NEIGHBOURHOOD = 2;
+
+    private static final int SMALL_BOARD_CELLS = 64;
+
+    /**
+     * Upper bound of a history score, low enough that {@code history << 8} stays far below the priorities of
+     * transposition-table moves, wins and blocks.
+     */
+    private static final int MAX_HISTORY = 1 << 22;
+
+    private final Board board;
+
+    private final int[][] moves = new int[AlphaBetaMoveChooser.MAX_DEPTH + 1][];
+
+    private final int[][] priorities = new int[AlphaBetaMoveChooser.MAX_DEPTH + 1][];
+
+    private final int[] history;
+
+    private final int[] marks;
+
+    private int markStamp;
+
+    /**
+     * @param board the board the search plays on; moves are generated for its current position
+     */
+    MoveGenerator(Board board) {
+        this.board = board;
+        this.history = new int[board.getCellCount()];
+        this.marks = new int[board.getCellCount()];
+    }
+
+    /**
+     * Returns the buffer filled by the last {@link #generate(int, int, int)} call for the ply.
+     */
+    int[] moves(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * Rewards a move that caused a cutoff, so that it is tried earlier elsewhere. When a score would pass
+     * {@link #MAX_HISTORY} all scores are halved, which keeps their order and lets recent cutoffs weigh more.
+     */
+    void addHistory(int move, int depth) {
+        int bonus = Math.min(depth * depth, MAX_HISTORY);
+
+        if (history[move] > MAX_HISTORY - bonus) {
+            for (int c = 0; c < history.length; c++) {
+                history[c] >>= 1;
+            }
+        }
+
+        history[move] = Math.min(history[move] + bonus, MAX_HISTORY);
+    }
+
+    void clearHistory() {
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Fills {@code moves(ply)} with the candidate moves of the position in search order.
+     *
+     * @return the number of candidates
+     */
+    int generate(int ply, int ttMove, int player) {
+        int cells = board.getCellCount();
+
+        if (moves[ply] == null) {
+            moves[ply] = new int[cells];
+            priorities[ply] = new int[cells];
+        }
+
+        int[] list = moves[ply];
+
+        int count = 0;
+
+        if (cells <= SMALL_BOARD_CELLS || board.getMoveCount() == 0) {
+            for (int c = board.nextEmpty(0); c >= 0; c = board.nextEmpty(c + 1)) {
+                list[count++] = c;
+            }
+        } else {
+            count = collectNeighbours(list);
+
+            if (count == 0) {
+                for (int c = board.nextEmpty(0); c >= 0; c = board.nextEmpty(c + 1)) {
+                    list[count++] = c;
+                }
+            }
+        }
+
+        int[] priority = priorities[ply];
+
+        int centerX = board.getWidth() / 2;
+        int centerY = board.getHeight() / 2;
+
+        for (int i = 0; i < count; i++) {
+            int c = list[i];
+
+            int p;
+
+            if (c == ttMove) {
+                p = Integer.MAX_VALUE;
+            } else if (board.completesLine(c, player)) {
+                p = Integer.MAX_VALUE - 1;
+            } else if (board.completesLine(c, 3 - player)) {
+                p = Integer.MAX_VALUE - 2;
+            } else {
+                int distance = Math.abs(board.cellX(c) - centerX) + Math.abs(board.cellY(c) - centerY);
+
+                p = (history[c] << 8) - distance;
+            }
+
+            // insertion sort, highest priority first
+            int j = i;
+
+            while (j > 0 && priority[j - 1] < p) {
+                priority[j] = priority[j - 1];
+                list[j] = list[j - 1];
+                j--;
+            }
+
+            priority[j] = p;
+            list[j] = c;
+        }
+
+        return count;
+    }
+
+    private int collectNeighbours(int[] list) {
+        int stamp = ++markStamp;
+
+        int count = 0;
+
+        for (int s = board.nextStone(0); s >= 0; s = board.nextStone(s + 1)) {
+            int sx = board.cellX(s);
+            int sy = board.cellY(s);
+
+            for (int y = sy - NEIGHBOURHOOD; y <= sy + NEIGHBOURHOOD; y++) {
+                for (int x = sx - NEIGHBOURHOOD; x <= sx + NEIGHBOURHOOD; x++) {
+                    if (!board.contains(x, y)) {
+                        continue;
+                    }
+
+                    int c = board.cell(x, y);
+
+                    if (marks[c] != stamp && board.isEmpty(c)) {
+                        marks[c] = stamp;
+                        list[count++] = c;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,154 @@
+package com.xowin.engine;
+
+/**
+ * Move history of a {@link Board} with undo, redo and rewind.
+ *
+ * Moves are kept as two primitive arrays sized to the board; making, unmaking and redoing a move is one
+ * {@link Board#place(int, int)} or {@link Board#remove(int, int)}, which also updates the Zobrist hash, so
+ * every step is O(1) and allocation-free. Undone moves stay on the stack above the current position until a
+ * different move is made, and can be redone in order. All changes to the board must go through the stack.
+ */
+public final class MoveStack {
+
+    private final Board board;
+
+    private final int[] cells;
+
+    private final byte[] players;
+
+    /**
+     * Number of moves on the board.
+     */
+    private int size;
+
+    /**
+     * Number of moves on the board plus the ones that can be redone.
+     */
+    private int end;
+
+    public MoveStack(Board board) {
+        this.board = board;
+        this.cells = new int[board.getCellCount()];
+        this.players = new byte[board.getCellCount()];
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Empties the board and forgets all moves.
+     */
+    public void clear() {
+        board.clear();
+
+        size = 0;
+        end = 0;
+    }
+
+    /**
+     * Places a stone on an empty cell. If it is the move that {@link #redo()} would make, the moves after it can
+     * still be redone; any other move forgets them.
+     */
+    public void make(int cell, int player) {
+        board.place(cell, player);
+
+        boolean redone = size < end && cells[size] == cell && players[size] == player;
+
+        cells[size] = cell;
+        players[size] = (byte) player;
+
+        size++;
+
+        if (!redone) {
+            end = size;
+        }
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @return the cell of the undone move, or -1 if there is none
+     */
+    public int unmake() {
+        if (size == 0) {
+            return -1;
+        }
+
+        size--;
+
+        board.remove(cells[size], players[size]);
+
+        return cells[size];
+    }
+
+    /**
+     * Makes the last undone move again.
+     *
+     * @return the cell of the redone move, or -1 if there is none
+     */
+    public int redo() {
+        if (size == end) {
+            return -1;
+        }
+
+        board.place(cells[size], players[size]);
+
+        return cells[size++];
+    }
+
+    /**
+     * Undoes or redoes moves until {@code moveCount} moves are on the board.
+     *
+     * @param moveCount between 0 and {@link #size()} + {@link #redoCount()}
+     */
+    public void rewind(int moveCount) {
+        if (moveCount < 0 || moveCount > end) {
+            throw new IllegalArgumentException("Cannot rewind to move " + moveCount + " of " + end);
+        }
+
+        while (size > moveCount) {
+            unmake();
+        }
+
+        while (size < moveCount) {
+            redo();
+        }
+    }
+
+    /**
+     * Returns the number of moves on the board.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of undone moves that can be redone.
+     */
+    public int redoCount() {
+        return end - size;
+    }
+
+    /**
+     * Returns the cell of the move with the given index, counted from the first move.
+     */
+    public int cell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Returns the player of the move with the given index.
+     */
+    public int player(int index) {
+        return players[index];
+    }
+
+    /**
+     * Returns the cells of the moves in play order; the first {@link #size()} entries are on the board. The
+     * array is the stack's own and changes with it.
+     */
+    public int[] cells() {
+        return cells;
+    }
+}
@@ -0,0 +1,305 @@
+package com.xowin.engine;
+
+import com.xowin.TicTacToeRules;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Precomputed best moves for the first plies of a game on any m,n,k board, probed from a memory-mapped file.
+ *
+ * Positions are keyed by the smallest {@link Zobrist} hash among the board's symmetries, so each class of
+ * equivalent positions is stored once. The file holds the sorted keys with the best move in the orientation
+ * of the key: 10 bytes per entry. A probe hashes the few stones of the position under every symmetry and
+ * binary-searches the mapped entries in place.
+ *
+ * The generator walks the game tree from the empty board up to {@code plies} stones. In every position it runs
+ * a deep {@link AlphaBetaMoveChooser} search and stores the answer, then follows the best {@code breadth}
+ * candidate moves, so the book covers the likely replies of either side. Generate with {@code java -cp
+ * target/classes com.xowin.engine.OpeningBook board=15x15x5 plies=3 breadth=6 timeMs=200 file=book.bin}.
+ */
+public final class OpeningBook implements MoveChooser {
+
+    private static final int MAGIC = 0x58_4F_4F_42; // "XOOB"
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int ENTRY_SIZE = 10;
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int plies;
+
+    private final int size;
+
+    private final MappedByteBuffer entries;
+
+    private final BoardSymmetry symmetry;
+
+    private OpeningBook(int width, int height, int winLength, int plies, int size, MappedByteBuffer entries) {
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.plies = plies;
+        this.size = size;
+        this.entries = entries;
+        this.symmetry = new BoardSymmetry(width, height);
+    }
+
+    /**
+     * Maps an opening book file.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an opening book");
+            }
+
+            int size = buffer.getInt(8);
+
+            if (buffer.limit() != HEADER_SIZE + (long) size * ENTRY_SIZE) {
+                throw new IOException("Truncated opening book " + file);
+            }
+
+            return new OpeningBook(buffer.get(4) & 0xFF, buffer.get(5) & 0xFF, buffer.get(6) & 0xFF,
+                    buffer.get(7) & 0xFF, size, buffer);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the book was built for the board's geometry.
+     */
+    public boolean covers(Board board) {
+        return board.getWidth() == width && board.getHeight() == height && board.getWinLength() == winLength;
+    }
+
+    /**
+     * Returns the book move, or -1 if the position is not in the book.
+     */
+    @Override
+    public int chooseMove(Board board, int player) {
+        if (!covers(board) || board.getMoveCount() >= plies) {
+            return -1;
+        }
+
+        long best = 0;
+
+        int bestTransform = -1;
+
+        for (int t = 0; t < symmetry.count(); t++) {
+            long key = key(board, symmetry, t);
+
+            if (bestTransform < 0 || key < best) {
+                best = key;
+                bestTransform = t;
+            }
+        }
+
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            long midKey = entries.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+
+            if (midKey < best) {
+                low = mid + 1;
+            } else if (midKey > best) {
+                high = mid - 1;
+            } else {
+                int move = symmetry.inverse(bestTransform, entries.getShort(HEADER_SIZE + mid * ENTRY_SIZE + 8));
+
+                return board.isEmpty(move) ? move : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static long key(Board board, BoardSymmetry symmetry, int transform) {
+        long key = 0L;
+
+        for (int c = board.nextStone(0); c >= 0; c = board.nextStone(c + 1)) {
+            key ^= Zobrist.key(board.get(c), symmetry.map(transform, c));
+        }
+
+        return key;
+    }
+
+    /**
+     * Builds an opening book by deep searches and writes it to a file.
+     *
+     * @param plies     positions with fewer stones than this are covered
+     * @param breadth   candidate moves followed in every position
+     * @param timeMs    search budget per position
+     * @return the number of entries written
+     */
+    public static int generate(int width, int height, int winLength, int plies, int breadth, long timeMs, Path file)
+            throws IOException {
+        if (plies < 1 || plies > AlphaBetaMoveChooser.MAX_DEPTH) {
+            throw new IllegalArgumentException("Unsupported book depth " + plies);
+        }
+
+        Builder builder = new Builder(new Board(width, height, winLength), breadth, timeMs);
+
+        builder.expand(1, 0, plies);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        header.putInt(MAGIC);
+        header.put((byte) width);
+        header.put((byte) height);
+        header.put((byte) winLength);
+        header.put((byte) plies);
+        header.putInt(builder.book.size());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+
+            ByteBuffer entries = ByteBuffer.allocate(builder.book.size() * ENTRY_SIZE);
+
+            // TreeMap iterates in signed key order, the order the probes binary-search in
+            for (Map.Entry<Long, Integer> entry : builder.book.entrySet()) {
+                entries.putLong(entry.getKey());
+                entries.putShort((short) (int) entry.getValue());
+            }
+
+            entries.flip();
+
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+        }
+
+        return builder.book.size();
+    }
+
+    /**
+     * Usage: {@code OpeningBook board=15x15x5 plies=3 breadth=6 timeMs=200 file=book.bin}
+     */
+    public static void main(String[] args) throws IOException {
+        int[] board = {15, 15, 5};
+        int plies = 3;
+        int breadth = 6;
+        long timeMs = 200;
+        String file = null;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(0, eq)) {
+                case "board" -> board = TicTacToeRules.parseBoard(value);
+                case "plies" -> plies = Integer.parseInt(value);
+                case "breadth" -> breadth = Integer.parseInt(value);
+                case "timeMs" -> timeMs = Long.parseLong(value);
+                case "file" -> file = value;
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        Path target = Paths.get(file != null ? file : "book" + board[0] + "x" + board[1] + "x" + board[2] + ".bin");
+
+        long start = System.nanoTime();
+
+        int count = generate(board[0], board[1], board[2], plies, breadth, timeMs, target);
+
+        System.out.printf("Wrote %d book positions to %s in %.1fs%n", count, target, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Walks the opening tree and collects the searched moves by canonical key.
+     */
+    private static final class Builder {
+
+        private final Board board;
+
+        private final BoardSymmetry symmetry;
+
+        private final MoveGenerator generator;
+
+        private final AlphaBetaMoveChooser engine;
+
+        private final int breadth;
+
+        private final TreeMap<Long, Integer> book = new TreeMap<>();
+
+        Builder(Board board, int breadth, long timeMs) {
+            this.board = board;
+            this.symmetry = new BoardSymmetry(board.getWidth(), board.getHeight());
+            this.generator = new MoveGenerator(board);
+            this.engine = new AlphaBetaMoveChooser(AlphaBetaMoveChooser.MAX_DEPTH, timeMs);
+            this.breadth = breadth;
+        }
+
+        void expand(int player, int ply, int plies) {
+            if (ply >= plies || !board.hasEmptyCell()) {
+                return;
+            }
+
+            long best = 0;
+
+            int bestTransform = -1;
+
+            for (int t = 0; t < symmetry.count(); t++) {
+                long key = key(board, symmetry, t);
+
+                if (bestTransform < 0 || key < best) {
+                    best = key;
+                    bestTransform = t;
+                }
+            }
+
+            if (book.containsKey(best)) {
+                return;
+            }
+
+            int move = engine.chooseMove(board, player);
+
+            book.put(best, symmetry.map(bestTransform, move));
+
+            int count = Math.min(breadth, generator.generate(ply, move, player));
+
+            int[] candidates = generator.moves(ply);
+
+            for (int i = 0; i < count; i++) {
+                int candidate = candidates[i];
+
+                if (board.completesLine(candidate, player)) {
+                    continue; // the game ends here
+                }
+
+                board.place(candidate, player);
+
+                expand(3 - player, ply + 1, plies);
+
+                board.remove(candidate, player);
+            }
+        }
+    }
+}
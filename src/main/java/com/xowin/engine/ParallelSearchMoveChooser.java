@@ -0,0 +1,560 @@
+package com.xowin.engine;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel negamax for large m,n,k boards: the search of {@link AlphaBetaMoveChooser} spread over a
+ * {@link ForkJoinPool} with "young brothers wait" splitting.
+ *
+ * At the nodes of the first {@value #SPLIT_PLIES} plies the first (best-ordered) move is searched alone to
+ * get a bound, then all its siblings are forked as tasks that idle workers steal. Siblings that start later
+ * search with the best bound found so far, and once one of them refutes the node the remaining ones are
+ * skipped. All threads share one {@link StripedTranspositionTable}; every task gets a searcher with its own
+ * board and move buffers from a pool, so tasks never share mutable state besides the table.
+ *
+ * Iterative deepening runs until the maximum depth, a proven result or the wall-clock budget. When the budget
+ * runs out, every task stops within a few microseconds and the best move of the deepest finished iteration,
+ * improved by any root moves of the interrupted iteration that were searched to the end, is returned.
+ *
+ * Instances keep their searchers and table between calls; one {@link #chooseMove(Board, int)} call may run
+ * at a time.
+ */
+public class ParallelSearchMoveChooser implements StoppableMoveChooser {
+
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+
+    /**
+     * Nodes this close to the root search their siblings in parallel.
+     */
+    private static final int SPLIT_PLIES = 3;
+
+    /**
+     * Nodes with less depth left are not worth the cost of a split.
+     */
+    private static final int MIN_SPLIT_DEPTH = 2;
+
+    private static final int INFINITY = Integer.MAX_VALUE - 1;
+
+    /**
+     * Returned instead of a score by searches cut short by the budget.
+     */
+    private static final int ABORTED = Integer.MIN_VALUE;
+
+    /**
+     * Nodes on big boards are expensive and tasks are short, so the clock is read more often than in the
+     * sequential search.
+     */
+    private static final int TIME_CHECK_MASK = 63;
+
+    private final ForkJoinPool pool;
+
+    private final int maxDepth;
+
+    private final StripedTranspositionTable table;
+
+    private final ConcurrentLinkedQueue<Searcher> idleSearchers = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder nodes = new LongAdder();
+
+    private volatile long timeBudgetNanos;
+
+    private volatile long deadline;
+
+    private volatile boolean aborted;
+
+    private volatile boolean stopped;
+
+    private Board root;
+
+    private int rootBestMove;
+
+    private int lastScore;
+
+    private int lastDepth;
+
+    /**
+     * @param maxDepth          maximum search depth in plies, capped at {@link AlphaBetaMoveChooser#MAX_DEPTH}
+     * @param timeBudgetMillis  wall-clock budget per move, 0 for none
+     * @param threads           number of worker threads
+     */
+    public ParallelSearchMoveChooser(int maxDepth, long timeBudgetMillis, int threads) {
+        this(maxDepth, timeBudgetMillis, threads, 22);
+    }
+
+    /**
+     * @param maxDepth          maximum search depth in plies, capped at {@link AlphaBetaMoveChooser#MAX_DEPTH}
+     * @param timeBudgetMillis  wall-clock budget per move, 0 for none
+     * @param threads           number of worker threads
+     * @param tableSizeLog2     log2 of the shared transposition table slot count
+     */
+    public ParallelSearchMoveChooser(int maxDepth, long timeBudgetMillis, int threads, int tableSizeLog2) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Depth must be positive: " + maxDepth);
+        }
+
+        this.maxDepth = Math.min(maxDepth, AlphaBetaMoveChooser.MAX_DEPTH);
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.pool = new ForkJoinPool(threads);
+        this.table = new StripedTranspositionTable(tableSizeLog2);
+    }
+
+    /**
+     * Changes the wall-clock budget of the following moves, for example to the game's turn timer.
+     *
+     * @param timeBudgetMillis budget per move, 0 for none
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    @Override
+    public void setStopped(boolean stopped) {
+        this.stopped = stopped;
+    }
+
+    @Override
+    public int chooseMove(Board position, int player) {
+        if (!position.hasEmptyCell()) {
+            return -1;
+        }
+
+        prepare(position);
+
+        long budget = timeBudgetNanos;
+
+        deadline = budget > 0 ? System.nanoTime() + budget : Long.MAX_VALUE;
+        aborted = false;
+        lastDepth = 0;
+
+        nodes.reset();
+
+        int bestMove = -1;
+
+        int depthLimit = Math.min(maxDepth, root.getCellCount() - root.getMoveCount());
+
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            rootBestMove = -1;
+
+            int score = pool.invoke(new RootTask(depth, player));
+
+            if (score == ABORTED) {
+                // root moves are only reported once searched to the end, so this is never worse
+                if (rootBestMove >= 0) {
+                    bestMove = rootBestMove;
+                }
+
+                break;
+            }
+
+            bestMove = rootBestMove;
+            lastScore = score;
+            lastDepth = depth;
+
+            if (Math.abs(score) >= AlphaBetaMoveChooser.PROVEN_SCORE) {
+                break;
+            }
+        }
+
+        if (bestMove < 0) {
+            Searcher searcher = acquire();
+
+            searcher.board.copyFrom(root);
+
+            bestMove = searcher.generator.generate(0, -1, player) > 0 ? searcher.generator.moves(0)[0] : root.nextEmpty(0);
+
+            release(searcher);
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Returns the score of the last finished iteration, from the point of view of the player that moved.
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Returns the depth of the last finished iteration.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns the number of nodes visited by all threads in the last {@link #chooseMove(Board, int)} call.
+     */
+    public long getLastNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public void newGame(long seed) {
+        reset();
+    }
+
+    /**
+     * Forgets everything learned in previous searches.
+     */
+    public void reset() {
+        table.clear();
+        idleSearchers.clear();
+    }
+
+    /**
+     * Stops the worker threads; the chooser cannot be used afterwards.
+     */
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Static evaluation of a quiet position at the search horizon, from the point of view of the player to
+     * move. Called from all worker threads at once, each with its own board and evaluator. Positive values
+     * favour that player and must stay below {@link AlphaBetaMoveChooser#PROVEN_SCORE}.
+     */
+    protected int evaluate(Board board, ThreatEvaluator threats, int player) {
+        return threats.evaluate(player);
+    }
+
+    private void prepare(Board position) {
+        if (root == null || root.getWidth() != position.getWidth() || root.getHeight() != position.getHeight()
+                || root.getWinLength() != position.getWinLength()) {
+            root = position.copy();
+
+            idleSearchers.clear();
+            table.clear();
+        } else {
+            root.copyFrom(position);
+        }
+    }
+
+    private Searcher acquire() {
+        Searcher searcher = idleSearchers.poll();
+
+        return searcher != null ? searcher : new Searcher(root);
+    }
+
+    private void release(Searcher searcher) {
+        nodes.add(searcher.nodes);
+
+        searcher.nodes = 0;
+
+        idleSearchers.add(searcher);
+    }
+
+    /**
+     * One thread's search state: a private board, evaluator and move buffers.
+     */
+    private final class Searcher {
+
+        private final Board board;
+
+        private final MoveGenerator generator;
+
+        private final ThreatEvaluator threats;
+
+        private long nodes;
+
+        /**
+         * Counts nodes across tasks, unlike {@link #nodes}, so short tasks still reach a time check.
+         */
+        private int clockCounter;
+
+        Searcher(Board position) {
+            this.board = position.copy();
+            this.generator = new MoveGenerator(board);
+            this.threats = new ThreatEvaluator(board.getWidth(), board.getHeight(), board.getWinLength());
+        }
+
+        void setPosition(Board position) {
+            board.copyFrom(position);
+            threats.reset(board);
+        }
+
+        int negamax(int depth, int ply, int alpha, int beta, int player) {
+            nodes++;
+
+            if ((++clockCounter & TIME_CHECK_MASK) == 0 && (stopped || System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+
+            if (aborted) {
+                return ABORTED;
+            }
+
+            long key = board.hash() ^ (player == 2 ? Zobrist.SIDE_TO_MOVE : 0L);
+
+            long entry = table.probe(key);
+
+            int ttMove = -1;
+
+            if (entry != 0L) {
+                ttMove = TranspositionTable.entryMove(entry);
+
+                if (ply > 0 && TranspositionTable.entryDepth(entry) >= depth) {
+                    int score = AlphaBetaMoveChooser.fromTable(TranspositionTable.entryScore(entry), ply);
+
+                    int bound = TranspositionTable.entryBound(entry);
+
+                    if (bound == TranspositionTable.EXACT) {
+                        return score;
+                    }
+
+                    if (bound == TranspositionTable.LOWER) {
+                        alpha = Math.max(alpha, score);
+                    } else {
+                        beta = Math.min(beta, score);
+                    }
+
+                    if (alpha >= beta) {
+                        return score;
+                    }
+                }
+            }
+
+            if (depth == 0) {
+                return evaluate(board, threats, player);
+            }
+
+            int count = generator.generate(ply, ttMove, player);
+
+            if (count == 0) {
+                return 0;
+            }
+
+            int[] candidates = generator.moves(ply);
+
+            int alphaOrig = alpha;
+
+            int best = -INFINITY;
+
+            int bestMove = -1;
+
+            for (int i = 0; i < count; i++) {
+                int move = candidates[i];
+
+                if (i == 1 && ply < SPLIT_PLIES && depth >= MIN_SPLIT_DEPTH) {
+                    Split split = new Split(board, depth, ply, alpha, beta, player, best, bestMove);
+
+                    MoveTask[] tasks = new MoveTask[count - 1];
+
+                    for (int j = 1; j < count; j++) {
+                        tasks[j - 1] = new MoveTask(split, candidates[j]);
+                    }
+
+                    ForkJoinTask.invokeAll(tasks);
+
+                    if (ply == 0) {
+                        rootBestMove = split.bestMove;
+                    }
+
+                    if (split.aborted) {
+                        return ABORTED;
+                    }
+
+                    best = split.best;
+                    bestMove = split.bestMove;
+                    alpha = split.alpha;
+
+                    if (alpha >= beta) {
+                        generator.addHistory(bestMove, depth);
+                    }
+
+                    break;
+                }
+
+                int score = searchMove(move, depth, ply, alpha, beta, player);
+
+                if (score == ABORTED) {
+                    return ABORTED;
+                }
+
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+
+                    if (ply == 0) {
+                        rootBestMove = move;
+                    }
+                }
+
+                if (best > alpha) {
+                    alpha = best;
+                }
+
+                if (alpha >= beta) {
+                    generator.addHistory(move, depth);
+
+                    break;
+                }
+            }
+
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+
+            table.store(key, AlphaBetaMoveChooser.toTable(best, ply), bestMove, depth, bound);
+
+            return best;
+        }
+
+        /**
+         * Returns the score of playing the move in the current position, or {@link #ABORTED}.
+         */
+        int searchMove(int move, int depth, int ply, int alpha, int beta, int player) {
+            if (board.completesLine(move, player)) {
+                return AlphaBetaMoveChooser.WIN_SCORE - ply - 1;
+            }
+
+            board.place(move, player);
+            threats.place(move, player);
+
+            int score = negamax(depth - 1, ply + 1, -beta, -alpha, 3 - player);
+
+            board.remove(move, player);
+            threats.remove(move, player);
+
+            return score == ABORTED ? ABORTED : -score;
+        }
+    }
+
+    /**
+     * A node whose remaining moves are searched in parallel, collecting their results.
+     */
+    private static final class Split {
+
+        final Board position;
+
+        final int depth;
+
+        final int ply;
+
+        final int beta;
+
+        final int player;
+
+        int alpha;
+
+        int best;
+
+        int bestMove;
+
+        boolean aborted;
+
+        volatile boolean cutoff;
+
+        Split(Board position, int depth, int ply, int alpha, int beta, int player, int best, int bestMove) {
+            this.position = position;
+            this.depth = depth;
+            this.ply = ply;
+            this.alpha = Math.max(alpha, best);
+            this.beta = beta;
+            this.player = player;
+            this.best = best;
+            this.bestMove = bestMove;
+        }
+
+        synchronized int alpha() {
+            return alpha;
+        }
+
+        synchronized void report(int move, int score) {
+            if (score == ABORTED) {
+                aborted = true;
+
+                return;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+
+            if (best > alpha) {
+                alpha = best;
+            }
+
+            if (alpha >= beta) {
+                cutoff = true;
+            }
+        }
+    }
+
+    /**
+     * Searches one sibling of a split node on a pooled searcher.
+     */
+    private final class MoveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Split split;
+
+        private final int move;
+
+        MoveTask(Split split, int move) {
+            this.split = split;
+            this.move = move;
+        }
+
+        @Override
+        protected void compute() {
+            if (aborted) {
+                split.report(move, ABORTED);
+
+                return;
+            }
+
+            if (split.cutoff) {
+                return;
+            }
+
+            Searcher searcher = acquire();
+
+            try {
+                // the parent waits for all siblings, so its board holds the split position meanwhile
+                searcher.setPosition(split.position);
+
+                split.report(move, searcher.searchMove(move, split.depth, split.ply, split.alpha(), split.beta, split.player));
+            } finally {
+                release(searcher);
+            }
+        }
+    }
+
+    /**
+     * One iteration of the root search, run inside the pool so that it can fork.
+     */
+    private final class RootTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int depth;
+
+        private final int player;
+
+        RootTask(int depth, int player) {
+            this.depth = depth;
+            this.player = player;
+        }
+
+        @Override
+        protected Integer compute() {
+            Searcher searcher = acquire();
+
+            try {
+                searcher.setPosition(root);
+
+                return searcher.negamax(depth, 0, -INFINITY, INFINITY, player);
+            } finally {
+                release(searcher);
+            }
+        }
+    }
+}
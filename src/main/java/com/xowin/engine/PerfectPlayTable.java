@@ -0,0 +1,354 @@
+package com.xowin.engine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Perfect-play lookup table for 3x3 tic-tac-toe.
+ *
+ * Positions are encoded in base 3, one digit per cell, with the player to move always written as 1 and the
+ * opponent as 2. Each position is folded onto its canonical form, the smallest code among its 8 rotations and
+ * reflections, which leaves 765 reachable positions. The table keeps them as two primitive arrays: the sorted
+ * canonical codes and one byte per code with the best move (in canonical orientation) and the game value.
+ *
+ * The table ships as the {@value #RESOURCE} resource, generated by {@link #main(String[])}. A lookup is one
+ * canonicalization and one binary search over the 765 codes, with no allocation.
+ */
+public final class PerfectPlayTable implements MoveChooser {
+
+    public static final String RESOURCE = "perfect3x3.bin";
+
+    public static final int LOSS = 0;
+
+    public static final int DRAW = 1;
+
+    public static final int WIN = 2;
+
+    private static final int MAGIC = 0x58_4F_54_33; // "XOT3"
+
+    private static final int CELLS = 9;
+
+    private static final int[] POW3 = {1, 3, 9, 27, 81, 243, 729, 2187, 6561};
+
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8},
+            {0, 3, 6}, {1, 4, 7}, {2, 5, 8},
+            {0, 4, 8}, {2, 4, 6}
+    };
+
+    /**
+     * {@code SYMMETRIES[t][c]} is the cell that {@code c} moves to under transform {@code t}.
+     */
+    private static final int[][] SYMMETRIES = new int[8][CELLS];
+
+    private static final int[][] INVERSE = new int[8][CELLS];
+
+    static {
+        for (int t = 0; t < 8; t++) {
+            for (int c = 0; c < CELLS; c++) {
+                int x = c % 3;
+                int y = c / 3;
+
+                // t & 3 quarter turns, then a mirror if t >= 4
+                for (int r = 0; r < (t & 3); r++) {
+                    int rotated = 2 - y;
+
+                    y = x;
+                    x = rotated;
+                }
+
+                if (t >= 4) {
+                    x = 2 - x;
+                }
+
+                SYMMETRIES[t][c] = y * 3 + x;
+                INVERSE[t][y * 3 + x] = c;
+            }
+        }
+    }
+
+    private static volatile PerfectPlayTable instance;
+
+    private final short[] codes;
+
+    private final byte[] entries;
+
+    private PerfectPlayTable(short[] codes, byte[] entries) {
+        this.codes = codes;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the table loaded from the {@value #RESOURCE} resource; it is read once per JVM.
+     */
+    public static PerfectPlayTable getInstance() {
+        PerfectPlayTable table = instance;
+
+        if (table == null) {
+            synchronized (PerfectPlayTable.class) {
+                table = instance;
+
+                if (table == null) {
+                    table = load();
+                    instance = table;
+                }
+            }
+        }
+
+        return table;
+    }
+
+    private static PerfectPlayTable load() {
+        InputStream resource = Thread.currentThread().getContextClassLoader().getResourceAsStream(RESOURCE);
+
+        if (resource == null) {
+            throw new IllegalStateException("Missing resource " + RESOURCE);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(resource))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Resource " + RESOURCE + " is not a perfect-play table");
+            }
+
+            int size = in.readInt();
+
+            short[] codes = new short[size];
+
+            byte[] entries = new byte[size];
+
+            for (int i = 0; i < size; i++) {
+                codes[i] = in.readShort();
+            }
+
+            in.readFully(entries);
+
+            return new PerfectPlayTable(codes, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    @Override
+    public int chooseMove(Board board, int player) {
+        if (board.getWidth() != 3 || board.getHeight() != 3 || board.getWinLength() != 3) {
+            throw new IllegalArgumentException("The perfect-play table only covers 3x3 boards");
+        }
+
+        int code = encode(board, player);
+
+        int transform = canonicalTransform(code);
+
+        int entry = entry(transform(code, transform));
+
+        int move = (entry & 0x0F) - 1;
+
+        return move < 0 ? -1 : INVERSE[transform][move];
+    }
+
+    /**
+     * Returns the game value under perfect play for the player to move: {@link #WIN}, {@link #DRAW} or
+     * {@link #LOSS}.
+     */
+    public int value(Board board, int player) {
+        int code = encode(board, player);
+
+        return entry(transform(code, canonicalTransform(code))) >>> 4;
+    }
+
+    private int entry(int canonicalCode) {
+        int index = Arrays.binarySearch(codes, (short) canonicalCode);
+
+        if (index < 0) {
+            throw new IllegalArgumentException("Position is not reachable in a legal game");
+        }
+
+        return entries[index] & 0x7F;
+    }
+
+    private static int encode(Board board, int player) {
+        int code = 0;
+
+        for (int c = 0; c < CELLS; c++) {
+            int owner = board.get(c);
+
+            if (owner != Board.EMPTY) {
+                code += (owner == player ? 1 : 2) * POW3[c];
+            }
+        }
+
+        return code;
+    }
+
+    private static int transform(int code, int t) {
+        int result = 0;
+
+        for (int c = 0; c < CELLS; c++) {
+            result += (code / POW3[c] % 3) * POW3[SYMMETRIES[t][c]];
+        }
+
+        return result;
+    }
+
+    private static int canonicalTransform(int code) {
+        int best = 0;
+
+        int bestCode = code;
+
+        for (int t = 1; t < 8; t++) {
+            int candidate = transform(code, t);
+
+            if (candidate < bestCode) {
+                bestCode = candidate;
+                best = t;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Regenerates the table by exhaustive search and writes it to the given file, by default
+     * {@code src/main/resources/perfect3x3.bin}.
+     */
+    public static void main(String[] args) throws IOException {
+        Path target = Paths.get(args.length > 0 ? args[0] : "src/main/resources/" + RESOURCE);
+
+        Generator generator = new Generator();
+
+        generator.solve(0, 0);
+
+        int size = 0;
+
+        for (int code = 0; code < generator.entries.length; code++) {
+            if (generator.entries[code] != 0) {
+                size++;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(target))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+
+            for (int code = 0; code < generator.entries.length; code++) {
+                if (generator.entries[code] != 0) {
+                    out.writeShort(code);
+                }
+            }
+
+            for (int code = 0; code < generator.entries.length; code++) {
+                if (generator.entries[code] != 0) {
+                    out.writeByte(generator.entries[code] & 0xFF);
+                }
+            }
+        }
+
+        System.out.println("Wrote " + size + " canonical positions to " + target);
+    }
+
+    /**
+     * Exhaustive negamax over canonical positions. Scores prefer quick wins and slow losses.
+     */
+    private static final class Generator {
+
+        /**
+         * Indexed by canonical code; the value is {@code 0x80 | value << 4 | (move + 1)} for solved positions so
+         * that a non-zero byte marks a reachable position.
+         */
+        private final byte[] entries = new byte[POW3[8] * 3];
+
+        private final int[] scores = new int[POW3[8] * 3];
+
+        private int solve(int code, int ply) {
+            int canonical = canonical(code);
+
+            if (entries[canonical] != 0) {
+                return scores[canonical];
+            }
+
+            int best = Integer.MIN_VALUE;
+
+            int bestMove = -1;
+
+            int empty = 0;
+
+            for (int c = 0; c < CELLS; c++) {
+                if (canonical / POW3[c] % 3 != 0) {
+                    continue;
+                }
+
+                empty++;
+
+                int next = canonical + POW3[c];
+
+                int score;
+
+                if (wins(next, c)) {
+                    score = 10 - ply;
+
+                    // the finished position is lost for the side to move there and has no move
+                    entries[canonical(swapSides(next))] = (byte) (0x80 | LOSS << 4);
+                } else {
+                    score = -solve(swapSides(next), ply + 1);
+                }
+
+                if (score > best) {
+                    best = score;
+                    bestMove = c;
+                }
+            }
+
+            if (empty == 0) {
+                best = 0;
+            }
+
+            int value = best > 0 ? WIN : best < 0 ? LOSS : DRAW;
+
+            entries[canonical] = (byte) (0x80 | value << 4 | (bestMove + 1));
+            scores[canonical] = best;
+
+            return best;
+        }
+
+        private static int canonical(int code) {
+            return transform(code, canonicalTransform(code));
+        }
+
+        private static boolean wins(int code, int cell) {
+            for (int[] line : LINES) {
+                if (line[0] != cell && line[1] != cell && line[2] != cell) {
+                    continue;
+                }
+
+                if (code / POW3[line[0]] % 3 == 1 && code / POW3[line[1]] % 3 == 1 && code / POW3[line[2]] % 3 == 1) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static int swapSides(int code) {
+            int result = 0;
+
+            for (int c = 0; c < CELLS; c++) {
+                int digit = code / POW3[c] % 3;
+
+                result += (digit == 0 ? 0 : 3 - digit) * POW3[c];
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.xowin.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thinks on the opponent's time: after the computer has moved, {@link #ponder(Board, int)} searches the
+ * opponent's likely replies on a background thread, most promising first (in {@link MoveGenerator} order),
+ * and caches the answer to each. When the opponent has replied, {@link #chooseMove(Board, int)} returns the
+ * cached answer at once. If the reply is the one being searched right now it waits for that search, which has
+ * already used part of its time; otherwise it stops pondering and searches itself, with the transposition
+ * table warmed by the ponder searches.
+ *
+ * Pondering and the normal search share the wrapped chooser, one at a time. A {@link StoppableMoveChooser} is
+ * stopped mid-search when pondering is cancelled; other choosers are expected to be fast and are let finish.
+ * Answers of a cancelled ponder search are never cached.
+ */
+public final class PonderingMoveChooser implements MoveChooser {
+
+    private final MoveChooser search;
+
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread ponder = new Thread(runnable, "ponder");
+
+        ponder.setDaemon(true);
+
+        return ponder;
+    });
+
+    private final Object lock = new Object();
+
+    // Guarded by lock: answers of the current ponder run, keyed like the transposition table
+    private long[] answerKeys = new long[0];
+
+    private int[] answers = new int[0];
+
+    private int answerCount;
+
+    /**
+     * Bumped by every {@link #ponder(Board, int)} and cancellation; a ponder run ends when it changes.
+     */
+    private int generation;
+
+    private boolean searching;
+
+    private long searchingKey;
+
+    private int hits;
+
+    private int misses;
+
+    public PonderingMoveChooser(MoveChooser search) {
+        this.search = search;
+    }
+
+    public MoveChooser getSearch() {
+        return search;
+    }
+
+    /**
+     * Starts searching the replies of the player to move in the background, replacing any earlier ponder run.
+     *
+     * @param position the position after the computer's move; copied, so the caller may change it
+     * @param player   the opponent, who is to move
+     */
+    public void ponder(Board position, int player) {
+        Board board = position.copy();
+
+        int run;
+
+        synchronized (lock) {
+            cancelAndWait();
+
+            run = generation;
+
+            answerCount = 0;
+
+            if (answerKeys.length < board.getCellCount()) {
+                answerKeys = new long[board.getCellCount()];
+                answers = new int[board.getCellCount()];
+            }
+        }
+
+        thread.execute(() -> ponderReplies(board, player, run));
+    }
+
+    @Override
+    public int chooseMove(Board board, int player) {
+        long key = key(board, player);
+
+        int answer = -1;
+
+        synchronized (lock) {
+            int run = generation;
+
+            while (searching && searchingKey == key && generation == run) {
+                awaitChange();
+            }
+
+            for (int i = 0; i < answerCount; i++) {
+                if (answerKeys[i] == key) {
+                    answer = answers[i];
+                }
+            }
+
+            cancelAndWait();
+
+            if (answer >= 0) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        return answer >= 0 ? answer : search.chooseMove(board, player);
+    }
+
+    @Override
+    public void newGame(long seed) {
+        stopPondering();
+
+        search.newGame(seed);
+    }
+
+    /**
+     * Stops pondering, e.g. when a new game starts, and waits until the background search has returned.
+     */
+    public void stopPondering() {
+        synchronized (lock) {
+            cancelAndWait();
+        }
+    }
+
+    /**
+     * Returns how many moves were answered from the ponder cache.
+     */
+    public int getHits() {
+        synchronized (lock) {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns how many moves had to be searched after the opponent's reply.
+     */
+    public int getMisses() {
+        synchronized (lock) {
+            return misses;
+        }
+    }
+
+    /**
+     * Stops the background thread and the wrapped chooser's threads.
+     */
+    @Override
+    public void shutdown() {
+        stopPondering();
+
+        thread.shutdownNow();
+
+        search.shutdown();
+    }
+
+    private void ponderReplies(Board board, int player, int run) {
+        MoveGenerator generator = new MoveGenerator(board);
+
+        int count = generator.generate(0, -1, player);
+
+        int[] replies = generator.moves(0);
+
+        int opponent = 3 - player;
+
+        for (int i = 0; i < count; i++) {
+            int reply = replies[i];
+
+            if (board.isWinningMove(reply, player)) {
+                continue; // the game would be over
+            }
+
+            board.place(reply, player);
+
+            if (board.hasEmptyCell()) {
+                long key = key(board, opponent);
+
+                synchronized (lock) {
+                    if (generation != run) {
+                        return;
+                    }
+
+                    searching = true;
+                    searchingKey = key;
+                }
+
+                int answer = -1;
+
+                try {
+                    answer = search.chooseMove(board, opponent);
+                } finally {
+                    synchronized (lock) {
+                        searching = false;
+
+                        if (generation == run && answer >= 0) {
+                            answerKeys[answerCount] = key;
+                            answers[answerCount++] = answer;
+                        }
+
+                        lock.notifyAll();
+                    }
+                }
+            }
+
+            board.remove(reply, player);
+        }
+    }
+
+    /**
+     * Ends the current ponder run; must hold the lock.
+     */
+    private void cancel() {
+        generation++;
+
+        if (searching) {
+            setStopped(true);
+        }
+
+        lock.notifyAll();
+    }
+
+    /**
+     * Ends the current ponder run and waits until its search has returned; must hold the lock.
+     */
+    private void cancelAndWait() {
+        cancel();
+
+        while (searching) {
+            awaitChange();
+        }
+
+        setStopped(false);
+    }
+
+    private void setStopped(boolean stopped) {
+        if (search instanceof StoppableMoveChooser stoppable) {
+            stoppable.setStopped(stopped);
+        }
+    }
+
+    private void awaitChange() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for pondering to stop", e);
+        }
+    }
+
+    private static long key(Board board, int player) {
+        return board.hash() ^ (player == 2 ? Zobrist.SIDE_TO_MOVE : 0L);
+    }
+}
@@ -0,0 +1,67 @@
+package com.xowin.engine;
+
+/**
+ * Picks a uniformly random empty cell. Uses an inline SplitMix64 generator so it can be reseeded per game
+ * without allocation; one instance per thread.
+ */
+public class RandomMoveChooser implements MoveChooser {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public RandomMoveChooser(long seed) {
+        this.state = seed;
+    }
+
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public void newGame(long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public int chooseMove(Board board, int player) {
+        int free = board.getCellCount() - board.getMoveCount();
+
+        if (free == 0) {
+            return -1;
+        }
+
+        int skip = nextInt(free);
+
+        int cell = board.nextEmpty(0);
+
+        while (skip-- > 0) {
+            cell = board.nextEmpty(cell + 1);
+        }
+
+        return cell;
+    }
+
+    /**
+     * Returns a uniformly distributed value in {@code [0, bound)}.
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+
+        return mix64(state);
+    }
+
+    /**
+     * SplitMix64 finalizer; turns a counter such as {@code seed + gameIndex} into a well-spread seed.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,14 @@
+package com.xowin.engine;
+
+/**
+ * A {@link MoveChooser} whose search can be cut short from another thread.
+ */
+public interface StoppableMoveChooser extends MoveChooser {
+
+    /**
+     * While stopped, a running {@link #chooseMove(Board, int)} returns its best move so far within a few
+     * thousand nodes, and new calls return after a shallow search. Stays in effect until cleared again, so a
+     * stop issued just before a search starts is not lost.
+     */
+    void setStopped(boolean stopped);
+}
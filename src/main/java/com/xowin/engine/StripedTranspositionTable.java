@@ -0,0 +1,78 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+
+/**
+ * A {@link TranspositionTable} that many search threads can share. Slots are guarded by a fixed set of lock
+ * stripes, so two threads only contend when they touch slots of the same stripe. Entries use the
+ * {@link TranspositionTable} packing and accessors.
+ */
+public final class StripedTranspositionTable {
+
+    private static final int STRIPES_LOG2 = 12;
+
+    private final long[] keys;
+
+    private final long[] entries;
+
+    private final int mask;
+
+    private final Object[] locks;
+
+    private final int lockMask;
+
+    /**
+     * @param sizeLog2 log2 of the number of slots, each slot takes 16 bytes
+     */
+    public StripedTranspositionTable(int sizeLog2) {
+        if (sizeLog2 < 4 || sizeLog2 > 28) {
+            throw new IllegalArgumentException("Unsupported table size 2^" + sizeLog2);
+        }
+
+        int stripes = 1 << Math.min(sizeLog2, STRIPES_LOG2);
+
+        this.keys = new long[1 << sizeLog2];
+        this.entries = new long[1 << sizeLog2];
+        this.mask = (1 << sizeLog2) - 1;
+        this.locks = new Object[stripes];
+        this.lockMask = stripes - 1;
+
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Empties the table; must not run concurrently with a search.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    /**
+     * Returns the packed entry for the key, or 0 if the table has none.
+     */
+    public long probe(long key) {
+        int slot = (int) key & mask;
+
+        synchronized (locks[slot & lockMask]) {
+            return keys[slot] == key ? entries[slot] : 0L;
+        }
+    }
+
+    public void store(long key, int score, int move, int depth, int bound) {
+        int slot = (int) key & mask;
+
+        long entry = TranspositionTable.pack(score, move, depth, bound);
+
+        synchronized (locks[slot & lockMask]) {
+            if (keys[slot] != key && TranspositionTable.entryDepth(entries[slot]) > depth) {
+                return;
+            }
+
+            keys[slot] = key;
+            entries[slot] = entry;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+
+/**
+ * Incremental static evaluation for k-in-a-row.
+ *
+ * The evaluator tracks every line segment of {@code winLength} cells on the board (a "window") with the
+ * number of stones each player has in it and the number of its two end cells, just outside the segment, that
+ * are empty. A move only touches the windows through its cell (at most {@code 4 * winLength}) and the at most
+ * eight windows it ends, so {@link #place(int, int)} and {@link #remove(int, int)} are O(k) and keep a
+ * running score and threat counters up to date; {@link #evaluate(int)} is O(1).
+ *
+ * A window that holds stones of only one player is live for that player and is worth more the fewer stones
+ * it is missing, and more with open ends. Live windows missing one stone are "fours", an immediate win for
+ * the player to move; live windows missing two stones with both ends open are "open threes". A full window is
+ * a win. The values are tuned for 3x3 and five-in-a-row and stay far below
+ * {@link AlphaBetaMoveChooser#PROVEN_SCORE}.
+ */
+public final class ThreatEvaluator {
+
+    /**
+     * Returned by {@link #evaluate(int)} when the player to move has a four, i.e. wins with the next move.
+     */
+    public static final int THREAT_WIN_SCORE = 1_000_000;
+
+    /**
+     * Value of a live window by the number of stones it is missing, before the open-end factor.
+     */
+    private static final int[] MISSING_VALUE = {0, 10_000, 1_000, 100, 10, 1};
+
+    private static final int[] DX = {1, 0, 1, 1};
+
+    private static final int[] DY = {0, 1, 1, -1};
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int windowCount;
+
+    /**
+     * Stones of player 1 and 2 in each window, at {@code 2 * window} and {@code 2 * window + 1}.
+     */
+    private final byte[] stones;
+
+    private final byte[] openEnds;
+
+    /**
+     * Number of end cells of each window that are on the board.
+     */
+    private final byte[] boardEnds;
+
+    /**
+     * Windows through each cell: {@code cellWindows[cellStart[c]] .. cellWindows[cellStart[c + 1] - 1]}.
+     */
+    private final int[] cellStart;
+
+    private final int[] cellWindows;
+
+    /**
+     * Windows each cell is an end cell of, laid out like {@link #cellWindows}.
+     */
+    private final int[] endStart;
+
+    private final int[] endWindows;
+
+    private final long[] score = new long[2];
+
+    private final int[] fours = new int[2];
+
+    private final int[] openThrees = new int[2];
+
+    private final int[] wins = new int[2];
+
+    public ThreatEvaluator(int width, int height, int winLength) {
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+
+        int cells = width * height;
+
+        int[] count = new int[1];
+
+        forEachWindow((window, first, step, before, after) -> count[0]++);
+
+        this.windowCount = count[0];
+        this.stones = new byte[2 * windowCount];
+        this.openEnds = new byte[windowCount];
+        this.boardEnds = new byte[windowCount];
+        this.cellStart = new int[cells + 1];
+        this.endStart = new int[cells + 1];
+
+        // two passes over all windows: count the entries per cell, then fill them in
+        int[] cellCounts = new int[cells];
+        int[] endCounts = new int[cells];
+
+        forEachWindow((window, first, step, before, after) -> {
+            for (int i = 0; i < winLength; i++) {
+                cellCounts[first + i * step]++;
+            }
+
+            if (before >= 0) {
+                endCounts[before]++;
+            }
+
+            if (after >= 0) {
+                endCounts[after]++;
+            }
+        });
+
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] = cellStart[c] + cellCounts[c];
+            endStart[c + 1] = endStart[c] + endCounts[c];
+        }
+
+        this.cellWindows = new int[cellStart[cells]];
+        this.endWindows = new int[endStart[cells]];
+
+        Arrays.fill(cellCounts, 0);
+        Arrays.fill(endCounts, 0);
+
+        forEachWindow((window, first, step, before, after) -> {
+            for (int i = 0; i < winLength; i++) {
+                int c = first + i * step;
+
+                cellWindows[cellStart[c] + cellCounts[c]++] = window;
+            }
+
+            if (before >= 0) {
+                endWindows[endStart[before] + endCounts[before]++] = window;
+                boardEnds[window]++;
+            }
+
+            if (after >= 0) {
+                endWindows[endStart[after] + endCounts[after]++] = window;
+                boardEnds[window]++;
+            }
+        });
+
+        clear();
+    }
+
+    /**
+     * A 1-long window is the same in every direction, so it is only counted once.
+     */
+    private int directions() {
+        return winLength == 1 ? 1 : 4;
+    }
+
+    private interface WindowVisitor {
+
+        void visit(int window, int first, int step, int before, int after);
+    }
+
+    private void forEachWindow(WindowVisitor visitor) {
+        int window = 0;
+
+        for (int d = 0; d < directions(); d++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int endX = x + DX[d] * (winLength - 1);
+                    int endY = y + DY[d] * (winLength - 1);
+
+                    if (!contains(endX, endY)) {
+                        continue;
+                    }
+
+                    int before = contains(x - DX[d], y - DY[d]) ? cell(x - DX[d], y - DY[d]) : -1;
+                    int after = contains(endX + DX[d], endY + DY[d]) ? cell(endX + DX[d], endY + DY[d]) : -1;
+
+                    visitor.visit(window++, cell(x, y), DY[d] * width + DX[d], before, after);
+                }
+            }
+        }
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Forgets all stones.
+     */
+    public void clear() {
+        Arrays.fill(stones, (byte) 0);
+
+        System.arraycopy(boardEnds, 0, openEnds, 0, windowCount);
+
+        Arrays.fill(score, 0);
+        Arrays.fill(fours, 0);
+        Arrays.fill(openThrees, 0);
+        Arrays.fill(wins, 0);
+    }
+
+    /**
+     * Rebuilds the counters from the stones of a board with the same geometry.
+     */
+    public void reset(Board board) {
+        clear();
+
+        for (int c = board.nextStone(0); c >= 0; c = board.nextStone(c + 1)) {
+            place(c, board.get(c));
+        }
+    }
+
+    /**
+     * Accounts for a stone of the player on an empty cell.
+     */
+    public void place(int cell, int player) {
+        update(cell, player, 1);
+    }
+
+    /**
+     * Takes back a stone of the player; the inverse of {@link #place(int, int)}.
+     */
+    public void remove(int cell, int player) {
+        update(cell, player, -1);
+    }
+
+    private void update(int cell, int player, int delta) {
+        int index = player - 1;
+
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int window = cellWindows[i];
+
+            forget(window);
+
+            stones[2 * window + index] += (byte) delta;
+
+            account(window);
+        }
+
+        for (int i = endStart[cell]; i < endStart[cell + 1]; i++) {
+            int window = endWindows[i];
+
+            forget(window);
+
+            openEnds[window] -= (byte) delta;
+
+            account(window);
+        }
+    }
+
+    private void forget(int window) {
+        track(window, -1);
+    }
+
+    private void account(int window) {
+        track(window, 1);
+    }
+
+    private void track(int window, int sign) {
+        int first = stones[2 * window];
+        int second = stones[2 * window + 1];
+
+        if ((first == 0) == (second == 0)) {
+            return; // empty or dead
+        }
+
+        int owner = first != 0 ? 0 : 1;
+
+        int own = first + second;
+
+        int missing = winLength - own;
+
+        if (missing == 0) {
+            wins[owner] += sign;
+        } else if (missing == 1) {
+            fours[owner] += sign;
+        } else if (missing == 2 && openEnds[window] == 2) {
+            openThrees[owner] += sign;
+        }
+
+        score[owner] += sign * value(window, owner);
+    }
+
+    private int value(int window, int owner) {
+        int own = stones[2 * window + owner];
+
+        if (own == 0 || stones[2 * window + 1 - owner] != 0) {
+            return 0;
+        }
+
+        int missing = winLength - own;
+
+        return missing < MISSING_VALUE.length ? MISSING_VALUE[missing] * (1 + openEnds[window]) : 1;
+    }
+
+    /**
+     * Scores the position for the player to move: the weighted live windows of that player minus the ones of
+     * the opponent, or {@link #THREAT_WIN_SCORE} if the player can win with the next move.
+     */
+    public int evaluate(int player) {
+        int index = player - 1;
+
+        if (fours[index] > 0) {
+            return THREAT_WIN_SCORE;
+        }
+
+        long diff = score[index] - score[1 - index];
+
+        return (int) Math.max(1 - THREAT_WIN_SCORE, Math.min(THREAT_WIN_SCORE - 1, diff));
+    }
+
+    /**
+     * Returns whether the player has a full line.
+     */
+    public boolean hasWon(int player) {
+        return wins[player - 1] > 0;
+    }
+
+    /**
+     * Returns the number of the player's windows that one more stone would complete.
+     */
+    public int fours(int player) {
+        return fours[player - 1];
+    }
+
+    /**
+     * Returns the number of the player's windows that two more stones would complete and that are open at
+     * both ends.
+     */
+    public int openThrees(int player) {
+        return openThrees[player - 1];
+    }
+}
@@ -0,0 +1,84 @@
+package com.xowin.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, power-of-two transposition table keyed by Zobrist hash. Each slot holds the full key and one
+ * packed {@code long}: score (32 bits), best move (16 bits), depth (8 bits) and bound type (8 bits).
+ * Replacement prefers deeper entries; a slot for the same key is always overwritten.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+
+    public static final int LOWER = 2;
+
+    public static final int UPPER = 3;
+
+    private final long[] keys;
+
+    private final long[] entries;
+
+    private final int mask;
+
+    /**
+     * @param sizeLog2 log2 of the number of slots, each slot takes 16 bytes
+     */
+    public TranspositionTable(int sizeLog2) {
+        if (sizeLog2 < 4 || sizeLog2 > 28) {
+            throw new IllegalArgumentException("Unsupported table size 2^" + sizeLog2);
+        }
+
+        this.keys = new long[1 << sizeLog2];
+        this.entries = new long[1 << sizeLog2];
+        this.mask = (1 << sizeLog2) - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    /**
+     * Returns the packed entry for the key, or 0 if the table has none.
+     */
+    public long probe(long key) {
+        int slot = (int) key & mask;
+
+        return keys[slot] == key ? entries[slot] : 0L;
+    }
+
+    public void store(long key, int score, int move, int depth, int bound) {
+        int slot = (int) key & mask;
+
+        if (keys[slot] != key && entryDepth(entries[slot]) > depth) {
+            return;
+        }
+
+        keys[slot] = key;
+        entries[slot] = pack(score, move, depth, bound);
+    }
+
+    static long pack(int score, int move, int depth, int bound) {
+        return ((long) score << 32) | ((long) (move + 1) & 0xFFFF) << 16 | (depth & 0xFF) << 8 | (bound & 0xFF);
+    }
+
+    public static int entryScore(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * Returns the best move stored in the entry, or -1 if none.
+     */
+    public static int entryMove(long entry) {
+        return (int) ((entry >>> 16) & 0xFFFF) - 1;
+    }
+
+    public static int entryDepth(long entry) {
+        return (int) ((entry >>> 8) & 0xFF);
+    }
+
+    public static int entryBound(long entry) {
+        return (int) (entry & 0xFF);
+    }
+}
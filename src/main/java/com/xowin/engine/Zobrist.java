@@ -0,0 +1,38 @@
+package com.xowin.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for {@link Board} hashing: one random 64-bit key per (player, cell) pair, shared by all
+ * board sizes. The keys come from a fixed seed, so hashes are stable between runs and JVMs.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private static final int MAX_CELLS = Board.MAX_SIDE * Board.MAX_SIDE;
+
+    private static final long[] KEYS = new long[2 * MAX_CELLS];
+
+    /**
+     * Mixed into a position hash when the second player is to move.
+     */
+    public static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = random.nextLong();
+        }
+
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long key(int player, int cell) {
+        return KEYS[(player - 1) * MAX_CELLS + cell];
+    }
+}
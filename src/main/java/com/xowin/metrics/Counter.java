@@ -0,0 +1,49 @@
+package com.xowin.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter. Backed by a {@link LongAdder}, so concurrent increments do not contend on one cache
+ * line and never allocate once the adder's cells exist.
+ */
+public final class Counter {
+
+    private final String name;
+
+    private final String help;
+
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * @param name the metric name, without the {@code _total} suffix
+     * @param help one line describing the metric
+     */
+    public Counter(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    public void reset() {
+        value.reset();
+    }
+}
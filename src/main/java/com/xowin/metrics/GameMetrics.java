@@ -0,0 +1,149 @@
+package com.xowin.metrics;
+
+/**
+ * Standard MBean over the static {@link Metrics}; registered by {@link Metrics#registerMBean()}.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+    private static final long NANOS_PER_MICRO = 1_000;
+
+    @Override
+    public long getMoves() {
+        return Metrics.MOVES.get();
+    }
+
+    @Override
+    public long getGames() {
+        return Metrics.GAMES.get();
+    }
+
+    @Override
+    public long getRepaints() {
+        return Metrics.REPAINTS.get();
+    }
+
+    @Override
+    public long getSoundPlays() {
+        return Metrics.SOUNDS.get();
+    }
+
+    @Override
+    public long getAiMoveCount() {
+        return Metrics.AI_MOVE.getCount();
+    }
+
+    @Override
+    public long getAiMoveMeanMicros() {
+        return Metrics.AI_MOVE.getMeanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getAiMoveP50Micros() {
+        return Metrics.AI_MOVE.getQuantileNanos(0.5) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getAiMoveP99Micros() {
+        return Metrics.AI_MOVE.getQuantileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getAiMoveMaxMicros() {
+        return Metrics.AI_MOVE.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getInputToPaintCount() {
+        return Metrics.INPUT_TO_PAINT.getCount();
+    }
+
+    @Override
+    public long getInputToPaintMeanMicros() {
+        return Metrics.INPUT_TO_PAINT.getMeanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getInputToPaintP50Micros() {
+        return Metrics.INPUT_TO_PAINT.getQuantileNanos(0.5) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getInputToPaintP99Micros() {
+        return Metrics.INPUT_TO_PAINT.getQuantileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getInputToPaintMaxMicros() {
+        return Metrics.INPUT_TO_PAINT.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getTicks() {
+        return Metrics.TICKS.get();
+    }
+
+    @Override
+    public long getMissedTicks() {
+        return Metrics.MISSED_TICKS.get();
+    }
+
+    @Override
+    public long getFrames() {
+        return Metrics.FRAMES.get();
+    }
+
+    @Override
+    public long getSkippedFrames() {
+        return Metrics.SKIPPED_FRAMES.get();
+    }
+
+    @Override
+    public long getTickJitterP50Micros() {
+        return Metrics.TICK_JITTER.getQuantileNanos(0.5) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getTickJitterP99Micros() {
+        return Metrics.TICK_JITTER.getQuantileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getTickJitterMaxMicros() {
+        return Metrics.TICK_JITTER.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getRenderMeanMicros() {
+        return Metrics.RENDER.getMeanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getRenderP99Micros() {
+        return Metrics.RENDER.getQuantileNanos(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getRenderMaxMicros() {
+        return Metrics.RENDER.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getTimeToFirstFrameMicros() {
+        return StartupTimer.getTimeToFirstFrameNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public String getStartupReport() {
+        return StartupTimer.report();
+    }
+
+    @Override
+    public String getPrometheusText() {
+        return Metrics.prometheusText();
+    }
+
+    @Override
+    public void reset() {
+        Metrics.reset();
+    }
+}
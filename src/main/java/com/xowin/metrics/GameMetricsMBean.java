@@ -0,0 +1,63 @@
+package com.xowin.metrics;
+
+/**
+ * JMX view of {@link Metrics}; latencies are in microseconds.
+ */
+public interface GameMetricsMBean {
+
+    long getMoves();
+
+    long getGames();
+
+    long getRepaints();
+
+    long getSoundPlays();
+
+    long getAiMoveCount();
+
+    long getAiMoveMeanMicros();
+
+    long getAiMoveP50Micros();
+
+    long getAiMoveP99Micros();
+
+    long getAiMoveMaxMicros();
+
+    long getInputToPaintCount();
+
+    long getInputToPaintMeanMicros();
+
+    long getInputToPaintP50Micros();
+
+    long getInputToPaintP99Micros();
+
+    long getInputToPaintMaxMicros();
+
+    long getTicks();
+
+    long getMissedTicks();
+
+    long getFrames();
+
+    long getSkippedFrames();
+
+    long getTickJitterP50Micros();
+
+    long getTickJitterP99Micros();
+
+    long getTickJitterMaxMicros();
+
+    long getRenderMeanMicros();
+
+    long getRenderP99Micros();
+
+    long getRenderMaxMicros();
+
+    long getTimeToFirstFrameMicros();
+
+    String getStartupReport();
+
+    String getPrometheusText();
+
+    void reset();
+}
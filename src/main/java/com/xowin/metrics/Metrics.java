@@ -0,0 +1,153 @@
+package com.xowin.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+/**
+ * The game's built-in metrics.
+ *
+ * All recorders are created once, here, and recording into them neither locks nor allocates, so they can sit
+ * on the game thread, the EDT and the AI threads. They are read through the {@code com.xowin:type=Metrics}
+ * MBean ({@link #registerMBean()}) and, optionally, as Prometheus text ({@link #writePrometheus(StringBuilder)},
+ * see {@link MetricsExporter}).
+ */
+public final class Metrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String OBJECT_NAME = "com.xowin:type=Metrics";
+
+    public static final LatencyHistogram AI_MOVE = new LatencyHistogram("xowin_ai_move",
+            "Time the computer took to choose a move");
+
+    public static final LatencyHistogram INPUT_TO_PAINT = new LatencyHistogram("xowin_input_to_paint",
+            "Time from a mouse click or key press to the next paint of the board");
+
+    public static final LatencyHistogram TICK_JITTER = new LatencyHistogram("xowin_tick_jitter",
+            "How late each turn tick ran after its scheduled time");
+
+    public static final LatencyHistogram RENDER = new LatencyHistogram("xowin_render",
+            "Time to paint one frame of the board");
+
+    public static final Counter TICKS = new Counter("xowin_ticks", "Turn ticks run");
+
+    public static final Counter MISSED_TICKS = new Counter("xowin_missed_ticks",
+            "Turn ticks dropped because the loop fell too far behind");
+
+    public static final Counter FRAMES = new Counter("xowin_frames", "Frames rendered by the game loop");
+
+    public static final Counter SKIPPED_FRAMES = new Counter("xowin_skipped_frames",
+            "Frames skipped by the game loop to catch up with overdue ticks");
+
+    public static final Counter MOVES = new Counter("xowin_moves", "Stones placed by either side");
+
+    public static final Counter GAMES = new Counter("xowin_games", "Games finished with a win or a draw");
+
+    public static final Counter REPAINTS = new Counter("xowin_repaints", "Paints of the game root panel");
+
+    public static final Counter SOUNDS = new Counter("xowin_sound_plays", "Sound playback requests");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {AI_MOVE, INPUT_TO_PAINT, TICK_JITTER, RENDER};
+
+    private static final Counter[] COUNTERS = {MOVES, GAMES, REPAINTS, SOUNDS, TICKS, MISSED_TICKS, FRAMES,
+            SKIPPED_FRAMES};
+
+    /**
+     * Bucket bounds of the exported histograms, in seconds.
+     */
+    private static final double[] EXPORT_BOUNDS = {
+            1e-6, 1e-5, 1e-4, 2.5e-4, 5e-4, 1e-3, 2.5e-3, 5e-3, 1e-2, 2.5e-2, 5e-2, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers the metrics MBean with the platform MBean server; later calls do nothing.
+     */
+    public static synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+
+        registered = true;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            server.registerMBean(new GameMetrics(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.error("Failed to register metrics MBean: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+
+        for (Counter counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Appends all metrics in the Prometheus text exposition format: histograms in seconds with cumulative
+     * {@code _bucket}, {@code _sum} and {@code _count} series, counters as {@code _total}, the
+     * {@link StartupTimer} phases as gauges.
+     */
+    public static void writePrometheus(StringBuilder out) {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            String name = histogram.getName() + "_seconds";
+
+            out.append("# HELP ").append(name).append(' ').append(histogram.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+
+            long count = histogram.getCount();
+
+            for (double bound : EXPORT_BOUNDS) {
+                long cumulative = Math.min(count, histogram.countAtMost((long) (bound * 1e9)));
+
+                out.append(name).append("_bucket{le=\"").append(format(bound)).append("\"} ").append(cumulative)
+                        .append('\n');
+            }
+
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(count).append('\n');
+            out.append(name).append("_sum ").append(format(histogram.getSumNanos() / 1e9)).append('\n');
+            out.append(name).append("_count ").append(count).append('\n');
+        }
+
+        for (Counter counter : COUNTERS) {
+            String name = counter.getName() + "_total";
+
+            out.append("# HELP ").append(name).append(' ').append(counter.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.get()).append('\n');
+        }
+
+        StartupTimer.writePrometheus(out);
+    }
+
+    public static String prometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+
+        writePrometheus(out);
+
+        return out.toString();
+    }
+
+    static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,158 @@
+package com.xowin.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link Metrics} as Prometheus text, if asked to by system properties:
+ * {@code -Dxowin.metrics.file=<path>} rewrites the file every {@code xowin.metrics.interval} milliseconds
+ * (default 5000) and on shutdown; {@code -Dxowin.metrics.port=<port>} serves {@code /metrics} over HTTP on the
+ * loopback interface only. Both run on daemon threads.
+ */
+public final class MetricsExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExporter.class);
+
+    public static final String FILE_PROPERTY = "xowin.metrics.file";
+
+    public static final String INTERVAL_PROPERTY = "xowin.metrics.interval";
+
+    public static final String PORT_PROPERTY = "xowin.metrics.port";
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static boolean started;
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Registers the MBean and starts the exporters configured by system properties; later calls do nothing.
+     *
+     * The work is done on a daemon thread: loading the platform MBean server alone takes longer than the rest
+     * of the game's startup, and nothing on the launch path needs it.
+     */
+    public static synchronized void startFromSystemProperties() {
+        if (started) {
+            return;
+        }
+
+        started = true;
+
+        Thread thread = new Thread(MetricsExporter::startConfigured, "metrics-start");
+
+        thread.setDaemon(true);
+
+        thread.start();
+    }
+
+    private static void startConfigured() {
+        Metrics.registerMBean();
+
+        String file = System.getProperty(FILE_PROPERTY);
+
+        if (file != null) {
+            startFileDump(Paths.get(file), Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MILLIS));
+        }
+
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+
+        if (port != null) {
+            startHttp(port);
+        }
+    }
+
+    /**
+     * Rewrites the file with the current metrics at a fixed rate and once more when the JVM exits.
+     */
+    public static void startFileDump(Path file, long intervalMillis) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        executor.scheduleAtFixedRate(() -> dump(file), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "metrics-final-dump"));
+    }
+
+    /**
+     * Writes the current metrics to a temporary file and moves it over the target, so scrapers never read a
+     * half-written file.
+     */
+    public static void dump(Path file) {
+        try {
+            Path absolute = file.toAbsolutePath();
+
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+            Files.writeString(temp, Metrics.prometheusText(), StandardCharsets.UTF_8);
+
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Serves {@code GET /metrics} on {@code 127.0.0.1:port}.
+     *
+     * @return the server, or {@code null} if it could not be started
+     */
+    public static HttpServer startHttp(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+            server.createContext("/metrics", exchange -> {
+                try (exchange) {
+                    byte[] body = Metrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+
+                    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                    exchange.sendResponseHeaders(200, body.length);
+
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            });
+
+            server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-http");
+
+                thread.setDaemon(true);
+
+                return thread;
+            }));
+
+            server.start();
+
+            LOGGER.info("Serving metrics on http://{}:{}/metrics", server.getAddress().getHostString(),
+                    server.getAddress().getPort());
+
+            return server;
+        } catch (IOException e) {
+            LOGGER.error("Failed to serve metrics on port {}: {}", port, e.getMessage());
+
+            return null;
+        }
+    }
+}
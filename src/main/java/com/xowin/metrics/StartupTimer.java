@@ -0,0 +1,178 @@
+package com.xowin.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times the phases of a launch, from the start of the JVM to the first frame on screen.
+ *
+ * The launch code marks the end of every phase with {@link #mark(String)}; the renderer calls
+ * {@link #firstFrame()} on every paint, which only does something the first time. The time to first frame is
+ * exported with the other {@link Metrics}, and with {@code -Dxowin.startup.report=true} the phases are printed
+ * to standard error once the first frame is painted.
+ */
+public final class StartupTimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimer.class);
+
+    public static final String REPORT_PROPERTY = "xowin.startup.report";
+
+    private static final int MAX_PHASES = 16;
+
+    private static final String[] PHASES = new String[MAX_PHASES];
+
+    /**
+     * {@link System#nanoTime()} at the end of each phase.
+     */
+    private static final long[] ENDS = new long[MAX_PHASES];
+
+    private static int phaseCount;
+
+    /**
+     * {@link System#nanoTime()} and {@link System#currentTimeMillis()} at {@link #begin()}, 0 before.
+     */
+    private static long beginNanos;
+
+    private static long beginMillis;
+
+    /**
+     * Start of the JVM on the {@link System#nanoTime()} scale, 0 until first needed.
+     */
+    private static long launchNanos;
+
+    private static volatile boolean painted;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Starts timing, at the beginning of the launch code; everything before counts as the {@code jvm} phase.
+     * Later calls do nothing.
+     */
+    public static synchronized void begin() {
+        if (beginNanos != 0) {
+            return;
+        }
+
+        beginNanos = System.nanoTime();
+        beginMillis = System.currentTimeMillis();
+
+        PHASES[0] = "jvm";
+        ENDS[0] = beginNanos;
+
+        phaseCount = 1;
+    }
+
+    /**
+     * Ends the current phase and names it.
+     */
+    public static synchronized void mark(String phase) {
+        if (beginNanos == 0 || painted || phaseCount == MAX_PHASES) {
+            return;
+        }
+
+        PHASES[phaseCount] = phase;
+        ENDS[phaseCount++] = System.nanoTime();
+    }
+
+    /**
+     * Records the time to first frame when called for the first time after {@link #begin()}.
+     */
+    public static void firstFrame() {
+        if (painted) {
+            return;
+        }
+
+        synchronized (StartupTimer.class) {
+            if (painted || beginNanos == 0) {
+                return;
+            }
+
+            mark("first frame");
+
+            painted = true;
+        }
+
+        // the first frame is on screen, so looking up the JVM start time no longer delays it
+
+        String report = report();
+
+        LOGGER.info(report);
+
+        if (Boolean.getBoolean(REPORT_PROPERTY)) {
+            System.err.println(report);
+        }
+    }
+
+    /**
+     * Returns the time from the start of the JVM to the first frame, or 0 until it has been painted.
+     */
+    public static synchronized long getTimeToFirstFrameNanos() {
+        return painted ? ENDS[phaseCount - 1] - launchNanos() : 0;
+    }
+
+    /**
+     * Returns the duration of every phase so far, in milliseconds, e.g.
+     * {@code "Startup: jvm 180 ms, initialize 4 ms, ..., first frame 41 ms; 390 ms to first frame"}.
+     */
+    public static synchronized String report() {
+        StringBuilder report = new StringBuilder("Startup:");
+
+        long start = launchNanos();
+
+        for (int i = 0; i < phaseCount; i++) {
+            report.append(i == 0 ? " " : ", ").append(PHASES[i]).append(' ').append(millis(ENDS[i] - start))
+                    .append(" ms");
+
+            start = ENDS[i];
+        }
+
+        if (painted) {
+            report.append("; ").append(millis(getTimeToFirstFrameNanos())).append(" ms to first frame");
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Appends the phases and the time to first frame as Prometheus gauges, in seconds.
+     */
+    static synchronized void writePrometheus(StringBuilder out) {
+        out.append("# HELP xowin_startup_phase_seconds Duration of each phase of the launch\n");
+        out.append("# TYPE xowin_startup_phase_seconds gauge\n");
+
+        long start = launchNanos();
+
+        for (int i = 0; i < phaseCount; i++) {
+            out.append("xowin_startup_phase_seconds{phase=\"").append(PHASES[i]).append("\"} ")
+                    .append(Metrics.format((ENDS[i] - start) / 1e9)).append('\n');
+
+            start = ENDS[i];
+        }
+
+        out.append("# HELP xowin_time_to_first_frame_seconds Time from the start of the JVM to the first frame\n");
+        out.append("# TYPE xowin_time_to_first_frame_seconds gauge\n");
+        out.append("xowin_time_to_first_frame_seconds ").append(Metrics.format(getTimeToFirstFrameNanos() / 1e9)).append('\n');
+    }
+
+    /**
+     * Returns the start of the JVM on the {@link System#nanoTime()} scale. The JVM's own start time is only
+     * available through the runtime MXBean, whose first use costs tens of milliseconds, so it is looked up
+     * after the launch rather than in {@link #begin()}.
+     */
+    private static long launchNanos() {
+        if (launchNanos == 0 && beginNanos != 0) {
+            long startMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+            launchNanos = beginNanos - Math.max(0, beginMillis - startMillis) * 1_000_000;
+        }
+
+        return launchNanos;
+    }
+
+    private static long millis(long nanos) {
+        return Math.round(nanos / 1e6);
+    }
+}
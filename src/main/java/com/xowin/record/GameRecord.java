@@ -0,0 +1,64 @@
+package com.xowin.record;
+
+/**
+ * Binary layout of one finished game in the record log.
+ *
+ * <pre>
+ * header  1 byte   move count (high nibble, bit 3 for 16) | seed flag (bit 2) | outcome (bits 0-1)
+ * moves   n/2 B    one nibble per move, cell index y * width + x, first move in the low nibble
+ * seed    8 bytes  only if the seed flag is set
+ * </pre>
+ *
+ * A 3x3 game without a seed takes at most 6 bytes. Boards of up to 16 cells fit the format, including a full
+ * 4x4 game: 16 moves are written as a move count of 0 with bit 3 set, so logs without such games read the same.
+ * A header byte of 0 never starts a record: it marks the unused tail of a log segment.
+ */
+public final class GameRecord {
+
+    public static final int DRAW = 0;
+
+    public static final int X_WON = 1;
+
+    public static final int O_WON = 2;
+
+    /**
+     * The game was abandoned before it ended.
+     */
+    public static final int UNFINISHED = 3;
+
+    public static final int MAX_MOVES = 16;
+
+    public static final int MAX_SIZE = 1 + (MAX_MOVES + 1) / 2 + Long.BYTES;
+
+    static final int SEED_FLAG = 4;
+
+    private static final int MOVE_COUNT_HIGH_BIT = 8;
+
+    private GameRecord() {
+    }
+
+    static int header(int outcome, int moveCount, boolean hasSeed) {
+        int high = moveCount > 0xF ? MOVE_COUNT_HIGH_BIT : 0;
+
+        return (moveCount & 0xF) << 4 | high | (hasSeed ? SEED_FLAG : 0) | outcome;
+    }
+
+    public static int outcome(int header) {
+        return header & 3;
+    }
+
+    public static int moveCount(int header) {
+        return header >>> 4 | ((header & MOVE_COUNT_HIGH_BIT) != 0 ? 16 : 0);
+    }
+
+    public static boolean hasSeed(int header) {
+        return (header & SEED_FLAG) != 0;
+    }
+
+    /**
+     * Returns the cell of the {@code index}-th move from moves packed as by {@link GameRecordReader}.
+     */
+    public static int move(long packedMoves, int index) {
+        return (int) (packedMoves >>> (index * 4)) & 0xF;
+    }
+}
@@ -0,0 +1,134 @@
+package com.xowin.record;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+/**
+ * Streams the records of a {@link GameRecordWriter} log straight out of the mapped segments. Records are
+ * handed to a {@link Visitor} as primitives, so reading millions of them creates no objects.
+ */
+public final class GameRecordReader {
+
+    private GameRecordReader() {
+    }
+
+    /**
+     * Receives one record at a time.
+     */
+    public interface Visitor {
+
+        /**
+         * @param outcome     one of the {@link GameRecord} outcomes
+         * @param moveCount   the number of moves
+         * @param packedMoves the moves, one nibble each; see {@link GameRecord#move(long, int)}
+         * @param seed        the seed, or 0 if the record has none
+         */
+        void visit(int outcome, int moveCount, long packedMoves, long seed);
+    }
+
+    /**
+     * Reads every record of the log in append order.
+     *
+     * @return the number of records read
+     */
+    public static long read(Path directory, Visitor visitor) throws IOException {
+        long count = 0;
+
+        for (Path segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                while (buffer.hasRemaining()) {
+                    int header = buffer.get() & 0xFF;
+
+                    if (header == 0) {
+                        break;
+                    }
+
+                    int moveCount = GameRecord.moveCount(header);
+
+                    long packedMoves = 0L;
+
+                    for (int i = 0; i < moveCount; i += 2) {
+                        packedMoves |= (long) (buffer.get() & 0xFF) << (i * 4);
+                    }
+
+                    long seed = GameRecord.hasSeed(header) ? buffer.getLong() : 0L;
+
+                    visitor.visit(GameRecord.outcome(header), moveCount, packedMoves, seed);
+
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    static Path[] segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new Path[0];
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("games-\\d{6}\\.log"))
+                    .sorted()
+                    .toArray(Path[]::new);
+        }
+    }
+
+    static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Integer.parseInt(name.substring("games-".length(), name.length() - ".log".length()));
+    }
+
+    /**
+     * Returns the position right after the last record of a mapped segment.
+     */
+    static int endOfRecords(MappedByteBuffer buffer) {
+        int position = 0;
+
+        while (position < buffer.limit()) {
+            int header = buffer.get(position) & 0xFF;
+
+            if (header == 0) {
+                break;
+            }
+
+            position += 1 + (GameRecord.moveCount(header) + 1) / 2 + (GameRecord.hasSeed(header) ? Long.BYTES : 0);
+        }
+
+        return position;
+    }
+
+    /**
+     * Prints the number of records, the outcome distribution and the average game length of a log.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: GameRecordReader <record directory>");
+        }
+
+        long[] outcomes = new long[4];
+
+        long[] moves = new long[1];
+
+        long start = System.nanoTime();
+
+        long count = read(Paths.get(args[0]), (outcome, moveCount, packedMoves, seed) -> {
+            outcomes[outcome]++;
+            moves[0] += moveCount;
+        });
+
+        System.out.printf("records=%d time=%.3fs X=%d O=%d draw=%d unfinished=%d moves/game=%.2f%n",
+                count, (System.nanoTime() - start) / 1e9, outcomes[GameRecord.X_WON], outcomes[GameRecord.O_WON],
+                outcomes[GameRecord.DRAW], outcomes[GameRecord.UNFINISHED], (double) moves[0] / Math.max(1, count));
+    }
+}
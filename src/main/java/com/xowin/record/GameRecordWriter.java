@@ -0,0 +1,152 @@
+package com.xowin.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends {@link GameRecord}s to a log of memory-mapped segment files {@code games-000000.log},
+ * {@code games-000001.log}, ... in one directory.
+ *
+ * An append is a few bytes copied into the mapped segment, with no system call; the OS writes the pages back
+ * in the background and {@link #flush()} forces them out. When a record does not fit in the current segment
+ * the writer maps the next one. Reopening a log continues after its last record.
+ */
+public final class GameRecordWriter implements Closeable {
+
+    /**
+     * System property naming the record directory of the desktop game; no records are kept if it is unset.
+     */
+    public static final String PROPERTY = "xowin.records";
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private int segmentIndex;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    public GameRecordWriter(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public GameRecordWriter(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < GameRecord.MAX_SIZE + 1) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+
+        Path[] segments = GameRecordReader.segments(directory);
+
+        segmentIndex = segments.length == 0 ? 0 : GameRecordReader.segmentIndex(segments[segments.length - 1]);
+
+        openSegment();
+
+        buffer.position(GameRecordReader.endOfRecords(buffer));
+    }
+
+    /**
+     * Opens the writer selected by the {@value #PROPERTY} system property.
+     *
+     * @return the writer, or {@code null} if the property is not set
+     */
+    public static GameRecordWriter fromSystemProperty() throws IOException {
+        String directory = System.getProperty(PROPERTY);
+
+        return directory == null ? null : new GameRecordWriter(Paths.get(directory));
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("games-%06d.log", index));
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(segmentPath(directory, segmentIndex),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    /**
+     * Appends a game without a seed.
+     */
+    public void append(int outcome, int[] moves, int moveCount) throws IOException {
+        append(outcome, moves, moveCount, false, 0L);
+    }
+
+    /**
+     * Appends a game together with the seed that reproduces it.
+     */
+    public void append(int outcome, int[] moves, int moveCount, long seed) throws IOException {
+        append(outcome, moves, moveCount, true, seed);
+    }
+
+    private synchronized void append(int outcome, int[] moves, int moveCount, boolean hasSeed, long seed) throws IOException {
+        if (moveCount == 0) {
+            return;
+        }
+
+        if (moveCount > GameRecord.MAX_MOVES) {
+            throw new IllegalArgumentException("Too many moves for a game record: " + moveCount);
+        }
+
+        for (int i = 0; i < moveCount; i++) {
+            if (moves[i] >>> 4 != 0) {
+                throw new IllegalArgumentException("Cell " + moves[i] + " does not fit a game record");
+            }
+        }
+
+        if (buffer.remaining() < GameRecord.MAX_SIZE) {
+            // the zeroed tail of the full segment tells readers to move on
+            nextSegment();
+        }
+
+        buffer.put((byte) GameRecord.header(outcome, moveCount, hasSeed));
+
+        for (int i = 0; i < moveCount; i += 2) {
+            int high = i + 1 < moveCount ? moves[i + 1] : 0;
+
+            buffer.put((byte) (high << 4 | moves[i]));
+        }
+
+        if (hasSeed) {
+            buffer.putLong(seed);
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        buffer.force();
+        channel.close();
+
+        segmentIndex++;
+
+        openSegment();
+    }
+
+    /**
+     * Forces all appended records to disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
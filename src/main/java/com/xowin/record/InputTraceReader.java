@@ -0,0 +1,165 @@
+package com.xowin.record;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads an input trace written by {@link InputTraceWriter}, one event at a time:
+ * <pre>
+ * while (reader.next()) {
+ *     handle(reader.getTick(), reader.getType(), reader.getFirst(), reader.getSecond(), reader.getChecksum());
+ * }
+ * long lastTick = reader.getTick();
+ * </pre>
+ * A trace cut short by a crash reads up to its last complete event.
+ */
+public final class InputTraceReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private final long seed;
+
+    private final String gameClass;
+
+    private final Map<String, String> properties;
+
+    private long tick;
+
+    private int type;
+
+    private int first;
+
+    private int second;
+
+    private int checksum;
+
+    private boolean complete;
+
+    public InputTraceReader(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+
+        if (in.readInt() != InputTraceWriter.MAGIC) {
+            in.close();
+
+            throw new IOException("Not an input trace: " + file);
+        }
+
+        this.seed = in.readLong();
+        this.gameClass = in.readUTF();
+
+        Map<String, String> properties = new TreeMap<>();
+
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            properties.put(in.readUTF(), in.readUTF());
+        }
+
+        this.properties = Collections.unmodifiableMap(properties);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getGameClass() {
+        return gameClass;
+    }
+
+    /**
+     * Returns the game properties of the traced session ({@link InputTraceWriter#gameProperties()}).
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Moves to the next event.
+     *
+     * @return false at the end of the trace; {@link #getTick()} is then the last tick of the session
+     */
+    public boolean next() throws IOException {
+        int nextType = in.read();
+
+        if (nextType < 0) {
+            return false; // no end marker: the game did not exit normally
+        }
+
+        try {
+            long nextTick = tick + readVarLong();
+
+            if (nextType == InputTraceWriter.END) {
+                tick = nextTick;
+                complete = true;
+
+                return false;
+            }
+
+            int nextFirst = (int) readVarLong();
+            int nextSecond = (int) readVarLong();
+            int nextChecksum = in.readInt();
+
+            tick = nextTick;
+            type = nextType;
+            first = nextFirst;
+            second = nextSecond;
+            checksum = nextChecksum;
+
+            return true;
+        } catch (EOFException e) {
+            return false; // the last event was cut off
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getSecond() {
+        return second;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Returns whether the end marker was read, i.e. the traced game exited normally.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
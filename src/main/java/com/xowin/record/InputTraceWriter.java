@@ -0,0 +1,158 @@
+package com.xowin.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes an input trace: every mouse click and key event a game received, with the logical tick it arrived
+ * in and a checksum of the game state after it was handled, so that {@link InputTraceReader} can feed the
+ * session to a new game instance and check that it ends up in the same states.
+ *
+ * File layout, big-endian:
+ * <pre>
+ * int     magic "XIT1"
+ * long    seed of the game's random numbers
+ * UTF     game class name
+ * short   property count, then UTF key and UTF value per game property
+ * events  byte type (1-4), varint tick delta, varint first, varint second, int checksum
+ * end     byte 0, varint tick delta to the last tick
+ * </pre>
+ * An event takes 8 bytes for a typical click. Every event is flushed to the file as it is written, so a trace
+ * survives a crash of the game; it then just lacks the end marker.
+ */
+public final class InputTraceWriter implements Closeable {
+
+    /**
+     * System property naming the trace file of the desktop game; nothing is traced if it is unset.
+     */
+    public static final String PROPERTY = "xowin.trace";
+
+    static final int MAGIC = 0x58495431; // "XIT1"
+
+    static final int END = 0;
+
+    private final DataOutputStream out;
+
+    private long lastTick;
+
+    private boolean finished;
+
+    /**
+     * @param file       the trace file, replaced if it exists
+     * @param seed       seed of the game's random numbers
+     * @param gameClass  class of the traced game, instantiated again by the replayer
+     * @param properties the configuration to restore before replaying, e.g. the AI strategy
+     */
+    public InputTraceWriter(Path file, long seed, String gameClass, Map<String, String> properties)
+            throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+
+        out.writeInt(MAGIC);
+        out.writeLong(seed);
+        out.writeUTF(gameClass);
+        out.writeShort(properties.size());
+
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            out.writeUTF(property.getKey());
+            out.writeUTF(property.getValue());
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Opens the writer selected by the {@value #PROPERTY} system property, recording the
+     * {@link #gameProperties() game properties}.
+     *
+     * @return the writer, or {@code null} if the property is not set
+     */
+    public static InputTraceWriter fromSystemProperty(long seed, String gameClass) throws IOException {
+        String file = System.getProperty(PROPERTY);
+
+        return file == null ? null : new InputTraceWriter(Paths.get(file), seed, gameClass, gameProperties());
+    }
+
+    /**
+     * Returns the system properties that change how the game plays, sorted by key: the board, the computer
+     * player and its engine. Properties of the environment, such as the score files and metrics exporters,
+     * are left out so that a replay does not write to them.
+     */
+    public static Map<String, String> gameProperties() {
+        Map<String, String> properties = new TreeMap<>();
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.equals("xowin.board") || key.equals("xowin.player") || key.startsWith("xowin.ai")) {
+                properties.put(key, System.getProperty(key));
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Appends an input event.
+     *
+     * @param tick     number of turn ticks before the event, never less than for the previous event
+     * @param type     event type, 1 to 4
+     * @param first    x of a click or key ordinal, not negative
+     * @param second   y of a click, 0 for keys
+     * @param checksum checksum of the game state after the event was handled
+     */
+    public synchronized void append(long tick, int type, int first, int second, int checksum) throws IOException {
+        if (type < 1 || type > 4 || tick < lastTick) {
+            throw new IllegalArgumentException("Invalid event " + type + " at tick " + tick);
+        }
+
+        if (finished) {
+            return;
+        }
+
+        out.writeByte(type);
+        writeVarLong(tick - lastTick);
+        writeVarLong(first);
+        writeVarLong(second);
+        out.writeInt(checksum);
+        out.flush();
+
+        lastTick = tick;
+    }
+
+    /**
+     * Writes the end marker with the final tick; later events are ignored.
+     */
+    public synchronized void finish(long tick) throws IOException {
+        if (finished) {
+            return;
+        }
+
+        finished = true;
+
+        out.writeByte(END);
+        writeVarLong(Math.max(0, tick - lastTick));
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        finished = true;
+
+        out.close();
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,75 @@
+package com.xowin.score;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The best players by points, kept sorted as scores change.
+ *
+ * Points never decrease, so an updated player can only move up: an update is one upward insertion step over
+ * at most {@code capacity} entries, and nothing is ever re-sorted. Ties are broken by name. Not thread-safe;
+ * {@link ScoreStore} guards it with its own lock.
+ */
+final class Leaderboard {
+
+    private final PlayerScore[] entries;
+
+    private int size;
+
+    Leaderboard(int capacity) {
+        this.entries = new PlayerScore[capacity];
+    }
+
+    /**
+     * Repositions a player whose points have just grown.
+     */
+    void update(PlayerScore player) {
+        int index = indexOf(player);
+
+        if (index < 0) {
+            if (size < entries.length) {
+                index = size++;
+            } else if (ranksAbove(player, entries[size - 1])) {
+                index = size - 1;
+            } else {
+                return;
+            }
+        }
+
+        while (index > 0 && ranksAbove(player, entries[index - 1])) {
+            entries[index] = entries[index - 1];
+            index--;
+        }
+
+        entries[index] = player;
+    }
+
+    private int indexOf(PlayerScore player) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i] == player) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean ranksAbove(PlayerScore a, PlayerScore b) {
+        long diff = a.getPoints() - b.getPoints();
+
+        return diff > 0 || (diff == 0 && a.getName().compareTo(b.getName()) < 0);
+    }
+
+    /**
+     * Returns copies of the entries, best first.
+     */
+    List<PlayerScore> top() {
+        List<PlayerScore> top = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            top.add(new PlayerScore(entries[i]));
+        }
+
+        return top;
+    }
+}
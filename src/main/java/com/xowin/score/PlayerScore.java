@@ -0,0 +1,72 @@
+package com.xowin.score;
+
+import com.xowin.TicTacToeRules;
+
+/**
+ * Win, draw and loss totals of one player, kept by a {@link ScoreStore}.
+ */
+public final class PlayerScore {
+
+    private final String name;
+
+    private long wins;
+
+    private long draws;
+
+    private long losses;
+
+    PlayerScore(String name) {
+        this.name = name;
+    }
+
+    PlayerScore(PlayerScore other) {
+        this(other.name);
+
+        this.wins = other.wins;
+        this.draws = other.draws;
+        this.losses = other.losses;
+    }
+
+    void add(int result) {
+        switch (result) {
+            case ScoreStore.WIN -> wins++;
+            case ScoreStore.DRAW -> draws++;
+            case ScoreStore.LOSS -> losses++;
+            default -> throw new IllegalArgumentException("Unknown result " + result);
+        }
+    }
+
+    void set(long wins, long draws, long losses) {
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    /**
+     * Returns the points the totals are worth under the game's scoring.
+     */
+    public long getPoints() {
+        return wins * TicTacToeRules.WIN_POINTS + draws * TicTacToeRules.DRAW_POINTS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s points=%d wins=%d draws=%d losses=%d", name, getPoints(), wins, draws, losses);
+    }
+}
@@ -0,0 +1,478 @@
+package com.xowin.score;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent per-player win, draw and loss totals with a top-N leaderboard.
+ *
+ * Every result is appended to a write-ahead log, {@code scores.wal}, by a background thread. The thread takes
+ * everything queued since its last write, writes it in one go and syncs the file once for the whole batch
+ * (group commit), so {@link #record(String, int)} never waits for the disk. The in-memory totals and the
+ * leaderboard are updated right away. {@link #flush()} waits until all earlier results are durable.
+ *
+ * On {@link #close()}, and when opening a store whose log is not empty, the totals are written to
+ * {@code scores.snapshot} and the log is emptied, so startup reads one small snapshot and replays at most the
+ * results since the last checkpoint. Every log record carries a sequence number and a CRC: records already in
+ * the snapshot are skipped, and a record torn by a crash ends the replay and is cut off.
+ */
+public final class ScoreStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScoreStore.class);
+
+    /**
+     * System property naming the score directory of the desktop game; scores are not persisted if it is unset.
+     */
+    public static final String PROPERTY = "xowin.scores";
+
+    public static final int WIN = 0;
+
+    public static final int DRAW = 1;
+
+    public static final int LOSS = 2;
+
+    public static final int DEFAULT_LEADERBOARD_SIZE = 10;
+
+    private static final String LOG_FILE = "scores.wal";
+
+    private static final String SNAPSHOT_FILE = "scores.snapshot";
+
+    /**
+     * Sequence (8), result (1), name length (2) before the name; CRC (4) after it.
+     */
+    private static final int RECORD_OVERHEAD = 8 + 1 + 2 + 4;
+
+    private static final int MAX_NAME_BYTES = 1024;
+
+    private static final Entry CLOSE = new Entry(-1, -1, new byte[0]);
+
+    private final Path directory;
+
+    private final FileChannel log;
+
+    private final Map<String, PlayerScore> players = new HashMap<>();
+
+    private final Leaderboard leaderboard;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    private final Thread writer;
+
+    private long lastSequence;
+
+    private long durableSequence;
+
+    private boolean closed;
+
+    public ScoreStore(Path directory) throws IOException {
+        this(directory, DEFAULT_LEADERBOARD_SIZE);
+    }
+
+    public ScoreStore(Path directory, int leaderboardSize) throws IOException {
+        this.directory = directory;
+        this.leaderboard = new Leaderboard(leaderboardSize);
+
+        Files.createDirectories(directory);
+
+        long snapshotSequence = readSnapshot();
+
+        this.log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean replayed = replayLog(snapshotSequence);
+
+        for (PlayerScore player : players.values()) {
+            leaderboard.update(player);
+        }
+
+        durableSequence = lastSequence;
+
+        if (replayed) {
+            checkpoint();
+        }
+
+        this.writer = new Thread(this::writeLoop, "score-log");
+
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the store selected by the {@value #PROPERTY} system property.
+     *
+     * @return the store, or {@code null} if the property is not set
+     */
+    public static ScoreStore fromSystemProperty() throws IOException {
+        String directory = System.getProperty(PROPERTY);
+
+        return directory == null ? null : new ScoreStore(Paths.get(directory));
+    }
+
+    /**
+     * Adds a game result to a player's totals. The result is durable after the next group commit.
+     *
+     * @param result {@link #WIN}, {@link #DRAW} or {@link #LOSS}
+     */
+    public void record(String name, int result) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Player name too long: " + name);
+        }
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Score store is closed");
+            }
+
+            apply(name, result);
+
+            queue.add(new Entry(++lastSequence, result, nameBytes));
+        }
+    }
+
+    private void apply(String name, int result) {
+        PlayerScore player = players.computeIfAbsent(name, PlayerScore::new);
+
+        player.add(result);
+
+        leaderboard.update(player);
+    }
+
+    /**
+     * Returns a copy of the player's totals, or {@code null} if the player has no results.
+     */
+    public synchronized PlayerScore get(String name) {
+        PlayerScore player = players.get(name);
+
+        return player == null ? null : new PlayerScore(player);
+    }
+
+    /**
+     * Returns copies of the leaderboard entries, best first.
+     */
+    public synchronized List<PlayerScore> getLeaderboard() {
+        return leaderboard.top();
+    }
+
+    /**
+     * Blocks until every result recorded so far has been synced to disk.
+     */
+    public synchronized void flush() throws InterruptedException {
+        long target = lastSequence;
+
+        while (durableSequence < target && writer.isAlive()) {
+            wait(100);
+        }
+    }
+
+    private void writeLoop() {
+        ByteBuffer batch = ByteBuffer.allocate(64 << 10);
+
+        List<Entry> pending = new ArrayList<>();
+
+        CRC32 crc = new CRC32();
+
+        boolean running = true;
+
+        while (running) {
+            try {
+                pending.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            queue.drainTo(pending);
+
+            long batchSequence = 0;
+
+            try {
+                for (Entry entry : pending) {
+                    if (entry == CLOSE) {
+                        running = false;
+
+                        continue;
+                    }
+
+                    if (batch.remaining() < RECORD_OVERHEAD + entry.name.length) {
+                        writeFully(batch);
+                    }
+
+                    int start = batch.position();
+
+                    batch.putLong(entry.sequence);
+                    batch.put((byte) entry.result);
+                    batch.putShort((short) entry.name.length);
+                    batch.put(entry.name);
+
+                    crc.reset();
+                    crc.update(batch.array(), start, batch.position() - start);
+
+                    batch.putInt((int) crc.getValue());
+
+                    batchSequence = entry.sequence;
+                }
+
+                if (batchSequence != 0) {
+                    writeFully(batch);
+
+                    log.force(false);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to write score log, keeping scores in memory only: {}", e.getMessage());
+
+                running = false;
+            }
+
+            pending.clear();
+
+            synchronized (this) {
+                durableSequence = Math.max(durableSequence, batchSequence);
+
+                notifyAll();
+            }
+        }
+
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private void writeFully(ByteBuffer batch) throws IOException {
+        batch.flip();
+
+        while (batch.hasRemaining()) {
+            log.write(batch);
+        }
+
+        batch.clear();
+    }
+
+    /**
+     * Loads the snapshot, if any.
+     *
+     * @return the sequence number of the last result in the snapshot
+     */
+    private long readSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+
+        if (data.limit() < 16) {
+            throw new IOException("Corrupt score snapshot " + snapshot);
+        }
+
+        CRC32 crc = new CRC32();
+
+        crc.update(data.array(), 0, data.limit() - 4);
+
+        if (data.getInt(data.limit() - 4) != (int) crc.getValue()) {
+            throw new IOException("Corrupt score snapshot " + snapshot);
+        }
+
+        long sequence = data.getLong();
+
+        int count = data.getInt();
+
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[data.getShort() & 0xFFFF];
+
+            data.get(name);
+
+            PlayerScore player = new PlayerScore(new String(name, StandardCharsets.UTF_8));
+
+            player.set(data.getLong(), data.getLong(), data.getLong());
+
+            players.put(player.getName(), player);
+        }
+
+        lastSequence = sequence;
+
+        return sequence;
+    }
+
+    /**
+     * Applies the log records that are newer than the snapshot and cuts off a torn tail.
+     *
+     * @return whether the log held any records
+     */
+    private boolean replayLog(long snapshotSequence) throws IOException {
+        long size = log.size();
+
+        if (size == 0) {
+            return false;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(size));
+
+        while (data.hasRemaining() && log.read(data, data.position()) >= 0) {
+            // read until the buffer is full
+        }
+
+        data.flip();
+
+        CRC32 crc = new CRC32();
+
+        int end = 0;
+
+        while (data.remaining() >= RECORD_OVERHEAD) {
+            int start = data.position();
+
+            long sequence = data.getLong();
+
+            int result = data.get();
+
+            int nameLength = data.getShort() & 0xFFFF;
+
+            if (nameLength > MAX_NAME_BYTES || data.remaining() < nameLength + 4) {
+                break;
+            }
+
+            byte[] name = new byte[nameLength];
+
+            data.get(name);
+
+            crc.reset();
+            crc.update(data.array(), start, data.position() - start);
+
+            if (data.getInt() != (int) crc.getValue() || result < WIN || result > LOSS) {
+                break;
+            }
+
+            if (sequence > snapshotSequence) {
+                PlayerScore player = players.computeIfAbsent(new String(name, StandardCharsets.UTF_8), PlayerScore::new);
+
+                player.add(result);
+
+                lastSequence = sequence;
+            }
+
+            end = data.position();
+        }
+
+        if (end < size) {
+            LOGGER.error("Dropping {} bytes of torn score log records", size - end);
+
+            log.truncate(end);
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes all totals to a new snapshot, atomically replaces the old one and empties the log.
+     */
+    private void checkpoint() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(16 + players.size() * (2 + MAX_NAME_BYTES + 24));
+
+        data.putLong(lastSequence);
+        data.putInt(players.size());
+
+        for (PlayerScore player : players.values()) {
+            byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+
+            data.putShort((short) name.length);
+            data.put(name);
+            data.putLong(player.getWins());
+            data.putLong(player.getDraws());
+            data.putLong(player.getLosses());
+        }
+
+        CRC32 crc = new CRC32();
+
+        crc.update(data.array(), 0, data.position());
+
+        data.putInt((int) crc.getValue());
+        data.flip();
+
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+
+            channel.force(true);
+        }
+
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        // a crash before this point replays records the snapshot already has; their sequence numbers skip them
+        log.truncate(0);
+        log.force(true);
+    }
+
+    /**
+     * Writes out all pending results, checkpoints and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+        }
+
+        queue.add(CLOSE);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            synchronized (this) {
+                checkpoint();
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Prints the leaderboard of a score directory.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ScoreStore <score directory>");
+        }
+
+        try (ScoreStore store = new ScoreStore(Paths.get(args[0]))) {
+            List<PlayerScore> leaderboard = store.getLeaderboard();
+
+            for (int i = 0; i < leaderboard.size(); i++) {
+                System.out.println((i + 1) + ". " + leaderboard.get(i));
+            }
+        }
+    }
+
+    private record Entry(long sequence, int result, byte[] name) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.xowin.server;
+
+import com.xowin.engine.MoveChoosers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent Tic Tac Toe sessions in one JVM over local TCP.
+ *
+ * An acceptor thread hands every new connection to one of the {@link SessionWorker} selector threads in turn;
+ * each connection gets its own {@link GameSession}. The frame format is described in {@link Protocol}.
+ *
+ * Usage: {@code java -cp target/classes com.xowin.server.GameServer port=7777 workers=4}; the computer's
+ * strategy is picked with {@code -Dxowin.ai} like in the desktop game, without pondering.
+ */
+public class GameServer implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameServer.class);
+
+    private final ServerSocketChannel serverChannel;
+
+    private final SessionWorker[] workers;
+
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private volatile boolean running;
+
+    public GameServer(int port, int workerCount) throws IOException {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.workers = new SessionWorker[workerCount];
+
+        // every worker has its own chooser; multi-threaded ones share the cores, and none ponders
+        int searchThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new SessionWorker(MoveChoosers.fromSystemProperties(searchThreads), sessionCount);
+        }
+    }
+
+    public void start() {
+        running = true;
+
+        for (int i = 0; i < workers.length; i++) {
+            Thread thread = new Thread(workers[i], "session-worker-" + i);
+
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread acceptor = new Thread(this::acceptLoop, "session-acceptor");
+
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+
+                channel.socket().setTcpNoDelay(true);
+
+                workers[next].assign(channel);
+
+                next = (next + 1) % workers.length;
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Failed to accept connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected sessions.
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+
+        serverChannel.close();
+
+        for (SessionWorker worker : workers) {
+            worker.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            switch (arg.substring(0, eq)) {
+                case "port" -> port = Integer.parseInt(arg.substring(eq + 1));
+                case "workers" -> workerCount = Integer.parseInt(arg.substring(eq + 1));
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        GameServer server = new GameServer(port, workerCount);
+
+        server.start();
+
+        System.out.println("Serving on 127.0.0.1:" + server.getPort() + " with " + workerCount + " workers");
+
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,109 @@
+package com.xowin.server;
+
+import com.xowin.TicTacToeRules;
+import com.xowin.engine.Board;
+import com.xowin.engine.MoveChooser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One player's game on the server: nothing but the rules object with its model, turn state and score.
+ * The move chooser is shared by all sessions of the worker thread that owns the session.
+ */
+final class GameSession {
+
+    private final TicTacToeRules rules;
+
+    private int status = Protocol.PLAYING;
+
+    GameSession(MoveChooser moveChooser) {
+        this.rules = new TicTacToeRules(3, 3, 3, moveChooser);
+        this.rules.resetScores();
+        this.rules.startGame();
+    }
+
+    /**
+     * Applies one client frame and writes the answer frame to {@code out}.
+     */
+    void handle(int opcode, int argument, ByteBuffer out) {
+        switch (opcode) {
+            case Protocol.NEW_GAME -> {
+                rules.startGame();
+
+                status = Protocol.PLAYING;
+
+                writeState(Protocol.NO_CELL, out);
+            }
+            case Protocol.MOVE -> move(argument, out);
+            default -> writeError(Protocol.BAD_FRAME, out);
+        }
+    }
+
+    /**
+     * The same flow as {@code TicTacToeGame.onMouseLeftClick}: the player's move, then the computer's reply.
+     */
+    private void move(int cell, ByteBuffer out) {
+        Board model = rules.getModel();
+
+        if (cell >= model.getCellCount()) {
+            writeError(Protocol.OUT_OF_RANGE, out);
+
+            return;
+        }
+
+        if (rules.isGameStopped()) {
+            writeError(Protocol.GAME_OVER, out);
+
+            return;
+        }
+
+        if (!model.isEmpty(cell)) {
+            writeError(Protocol.OCCUPIED, out);
+
+            return;
+        }
+
+        int computerCell = Protocol.NO_CELL;
+
+        int outcome = rules.setSignAndCheck(model.cellX(cell), model.cellY(cell));
+
+        if (outcome == TicTacToeRules.PLAYING) {
+            rules.switchPlayer();
+
+            int reply = rules.chooseComputerMove();
+
+            if (reply >= 0) {
+                computerCell = reply;
+
+                outcome = rules.setSignAndCheck(model.cellX(reply), model.cellY(reply));
+
+                if (outcome == TicTacToeRules.WIN) {
+                    status = Protocol.COMPUTER_WON;
+                }
+            }
+
+            rules.switchPlayer();
+        } else if (outcome == TicTacToeRules.WIN) {
+            status = Protocol.PLAYER_WON;
+        }
+
+        if (outcome == TicTacToeRules.DRAW) {
+            status = Protocol.DRAW;
+        }
+
+        writeState(computerCell, out);
+    }
+
+    private void writeState(int computerCell, ByteBuffer out) {
+        out.put((byte) Protocol.STATE)
+                .put((byte) status)
+                .put((byte) computerCell)
+                .put((byte) 0)
+                .putShort((short) rules.getPlayerScore())
+                .putShort((short) rules.getComputerScore());
+    }
+
+    private static void writeError(int code, ByteBuffer out) {
+        out.put((byte) Protocol.ERROR).put((byte) code).putShort((short) 0).putInt(0);
+    }
+}
@@ -0,0 +1,51 @@
+package com.xowin.server;
+
+/**
+ * Wire format of the game server.
+ *
+ * A client sends 2-byte frames: {@code [opcode][argument]}. The server answers every frame with one 8-byte
+ * frame: {@code [STATE][status][computer cell][0][player score: short][computer score: short]} or
+ * {@code [ERROR][error code][0][0][0][0][0][0]}. Cells are numbered {@code y * 3 + x}; a computer cell of
+ * {@link #NO_CELL} means the computer did not move.
+ */
+public final class Protocol {
+
+    public static final int CLIENT_FRAME_SIZE = 2;
+
+    public static final int SERVER_FRAME_SIZE = 8;
+
+    /**
+     * Starts a new game in the session; the scores are kept. The argument is ignored.
+     */
+    public static final int NEW_GAME = 1;
+
+    /**
+     * Marks the cell given as argument for the player; the computer answers in the same round trip.
+     */
+    public static final int MOVE = 2;
+
+    public static final int STATE = 0x10;
+
+    public static final int ERROR = 0x11;
+
+    public static final int PLAYING = 0;
+
+    public static final int PLAYER_WON = 1;
+
+    public static final int COMPUTER_WON = 2;
+
+    public static final int DRAW = 3;
+
+    public static final int NO_CELL = 0xFF;
+
+    public static final int BAD_FRAME = 1;
+
+    public static final int GAME_OVER = 2;
+
+    public static final int OCCUPIED = 3;
+
+    public static final int OUT_OF_RANGE = 4;
+
+    private Protocol() {
+    }
+}
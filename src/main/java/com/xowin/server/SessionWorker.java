@@ -0,0 +1,226 @@
+package com.xowin.server;
+
+import com.xowin.engine.MoveChooser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One selector thread serving many connections with non-blocking I/O. Every connection owns one
+ * {@link GameSession}; all sessions of the worker share its move chooser, which is safe because the worker
+ * handles one frame at a time.
+ */
+final class SessionWorker implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionWorker.class);
+
+    private static final int INPUT_BUFFER_SIZE = 256;
+
+    private static final int OUTPUT_BUFFER_SIZE = 4096;
+
+    private final Selector selector;
+
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+    private final MoveChooser moveChooser;
+
+    private final AtomicInteger sessionCount;
+
+    private volatile boolean running = true;
+
+    SessionWorker(MoveChooser moveChooser, AtomicInteger sessionCount) throws IOException {
+        this.selector = Selector.open();
+        this.moveChooser = moveChooser;
+        this.sessionCount = sessionCount;
+    }
+
+    /**
+     * Hands a freshly accepted connection to this worker; callable from any thread.
+     */
+    void assign(SocketChannel channel) {
+        pending.add(channel);
+
+        selector.wakeup();
+    }
+
+    /**
+     * Asks the worker to close all its connections, shut its move chooser down and stop.
+     */
+    void close() {
+        running = false;
+
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                registerPending();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+
+                    keys.remove();
+
+                    Connection connection = (Connection) key.attachment();
+
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+
+                        if (key.isValid() && key.isWritable()) {
+                            connection.answer();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Session worker failed: {}", e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close selector: {}", e.getMessage());
+            }
+
+            moveChooser.shutdown(); // here rather than in close(), so that no search is running on it
+        }
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+
+        while ((channel = pending.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+
+                key.attach(new Connection(channel, key, new GameSession(moveChooser)));
+
+                sessionCount.incrementAndGet();
+            } catch (IOException e) {
+                LOGGER.error("Failed to register connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One client's buffers and session. Package-private so that the frame handling can be driven without a
+     * selector.
+     */
+    final class Connection {
+
+        private final ByteChannel channel;
+
+        private final SelectionKey key;
+
+        private final GameSession session;
+
+        private final ByteBuffer in = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+
+        private final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+
+        private boolean closed;
+
+        Connection(ByteChannel channel, SelectionKey key, GameSession session) {
+            this.channel = channel;
+            this.key = key;
+            this.session = session;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+
+                return;
+            }
+
+            answer();
+        }
+
+        /**
+         * Answers the buffered frames and writes the replies. Frames left over because the output was full are
+         * answered as soon as a write drains it, so they do not wait for the client to send more.
+         */
+        void answer() throws IOException {
+            do {
+                processFrames();
+            } while (flush() && in.position() >= Protocol.CLIENT_FRAME_SIZE);
+        }
+
+        private void processFrames() {
+            in.flip();
+
+            while (in.remaining() >= Protocol.CLIENT_FRAME_SIZE) {
+                if (out.remaining() < Protocol.SERVER_FRAME_SIZE) {
+                    // the client sends faster than it reads; leave the rest until the output drains
+                    break;
+                }
+
+                session.handle(in.get() & 0xFF, in.get() & 0xFF, out);
+            }
+
+            in.compact();
+        }
+
+        /**
+         * Writes as much of the output as the socket takes.
+         *
+         * @return whether all of it was written
+         */
+        private boolean flush() throws IOException {
+            out.flip();
+
+            channel.write(out);
+
+            boolean drained = !out.hasRemaining();
+
+            out.compact();
+
+            key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+            return drained;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            sessionCount.decrementAndGet();
+
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to close connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.xowin.sim;
+
+import com.xowin.TicTacToeRules;
+import com.xowin.engine.Board;
+import com.xowin.engine.MoveChooser;
+import com.xowin.engine.MoveChoosers;
+import com.xowin.engine.RandomMoveChooser;
+import com.xowin.record.GameRecord;
+import com.xowin.record.GameRecordWriter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless self-play: runs batches of games on {@link TicTacToeRules} with no Swing, sound or rendering,
+ * spread over all cores.
+ *
+ * Every game gets its own seed derived from the run seed and the game index, and the strategies are reseeded
+ * from it before the game ({@link MoveChooser#newGame(long)}), so results do not depend on the thread count or
+ * on which games a worker played before. Multi-threaded strategies get an equal share of the cores per worker.
+ * Strategies limited by wall-clock time stay timing dependent. The first {@code randomPlies} moves of a game are random to vary the openings; the rest are
+ * played by the configured strategies. Games can be appended, with their seeds, to a
+ * {@link GameRecordWriter} log.
+ *
+ * Usage: {@code java -cp target/classes com.xowin.sim.SelfPlaySimulator games=1000000 seed=42 x=heuristic
+ * o=table randomPlies=2 board=3x3x3 threads=8 records=games}
+ */
+public class SelfPlaySimulator {
+
+    private static final int CHUNK = 4096;
+
+    private final String xStrategy;
+
+    private final String oStrategy;
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int randomPlies;
+
+    private final int threads;
+
+    private final long seed;
+
+    private GameRecordWriter recordWriter;
+
+    public SelfPlaySimulator(String xStrategy, String oStrategy, int width, int height, int winLength,
+                             int randomPlies, int threads, long seed) {
+        this.xStrategy = xStrategy;
+        this.oStrategy = oStrategy;
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.randomPlies = randomPlies;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Appends every simulated game to the log; {@code null} turns recording off. Records hold one nibble per
+     * move, so only boards of up to 16 cells can be recorded.
+     */
+    public void setRecordWriter(GameRecordWriter recordWriter) {
+        if (recordWriter != null && width * height > 16) {
+            throw new IllegalArgumentException("Cannot record games on a " + width + "x" + height + " board");
+        }
+
+        this.recordWriter = recordWriter;
+    }
+
+    public Result run(long games) throws InterruptedException {
+        AtomicLong nextChunk = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        long start = System.nanoTime();
+
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> runWorker(games, nextChunk)));
+            }
+
+            long[] totals = new long[4];
+
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+
+            return new Result(games, totals[0], totals[1], totals[2], totals[3], System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return draws, X wins, O wins and moves played by this worker
+     */
+    private long[] runWorker(long games, AtomicLong nextChunk) throws IOException {
+        TicTacToeRules rules = new TicTacToeRules(width, height, winLength, null);
+
+        RandomMoveChooser random = new RandomMoveChooser(seed);
+
+        MoveChooser[] choosers = {chooser(xStrategy, random), chooser(oStrategy, random)};
+
+        try {
+            return runGames(games, nextChunk, rules, random, choosers);
+        } finally {
+            for (MoveChooser chooser : choosers) {
+                chooser.shutdown();
+            }
+        }
+    }
+
+    private long[] runGames(long games, AtomicLong nextChunk, TicTacToeRules rules, RandomMoveChooser random,
+                            MoveChooser[] choosers) throws IOException {
+        Board board = rules.getModel();
+
+        long[] counts = new long[4];
+
+        long chunk;
+
+        while ((chunk = nextChunk.getAndIncrement()) * CHUNK < games) {
+            long end = Math.min(games, (chunk + 1) * CHUNK);
+
+            for (long game = chunk * CHUNK; game < end; game++) {
+                long gameSeed = RandomMoveChooser.mix64(seed + game);
+
+                random.setSeed(gameSeed);
+
+                for (int i = 0; i < choosers.length; i++) {
+                    if (choosers[i] != random) {
+                        choosers[i].newGame(RandomMoveChooser.mix64(gameSeed + 1 + i));
+                    }
+                }
+
+                rules.startGame();
+
+                int outcome;
+
+                int ply = 0;
+
+                do {
+                    int player = rules.getCurrentPlayer();
+
+                    MoveChooser chooser = ply++ < randomPlies ? random : choosers[player - 1];
+
+                    int cell = chooser.chooseMove(board, player);
+
+                    outcome = rules.setSignAndCheck(board.cellX(cell), board.cellY(cell));
+
+                    if (outcome == TicTacToeRules.PLAYING) {
+                        rules.switchPlayer();
+                    }
+                } while (outcome == TicTacToeRules.PLAYING);
+
+                counts[outcome == TicTacToeRules.WIN ? rules.getCurrentPlayer() : 0]++;
+                counts[3] += ply;
+
+                if (recordWriter != null) {
+                    int recordOutcome = outcome == TicTacToeRules.WIN
+                            ? (rules.getCurrentPlayer() == 1 ? GameRecord.X_WON : GameRecord.O_WON)
+                            : GameRecord.DRAW;
+
+                    recordWriter.append(recordOutcome, rules.getMoves(), ply, gameSeed);
+                }
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * The "random" strategy shares the per-game seeded generator so that it stays reproducible; multi-threaded
+     * strategies search on the cores divided among the workers.
+     */
+    private MoveChooser chooser(String name, RandomMoveChooser random) {
+        int engineThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+
+        return MoveChoosers.RANDOM.equals(name) ? random : MoveChoosers.byName(name, engineThreads);
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        long games = 1_000_000;
+        long seed = System.nanoTime();
+        String x = MoveChoosers.HEURISTIC;
+        String o = MoveChoosers.HEURISTIC;
+        int[] board = {3, 3, 3};
+        int randomPlies = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String records = null;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(0, eq)) {
+                case "games" -> games = Long.parseLong(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "x" -> x = value;
+                case "o" -> o = value;
+                case "randomPlies" -> randomPlies = Integer.parseInt(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "records" -> records = value;
+                case "board" -> board = TicTacToeRules.parseBoard(value);
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        SelfPlaySimulator simulator = new SelfPlaySimulator(x, o, board[0], board[1], board[2], randomPlies, threads, seed);
+
+        System.out.println("seed=" + seed + " x=" + x + " o=" + o + " board=" + board[0] + "x" + board[1] + "x" + board[2]
+                + " threads=" + threads);
+
+        if (records == null) {
+            System.out.println(simulator.run(games));
+
+            return;
+        }
+
+        try (GameRecordWriter recordWriter = new GameRecordWriter(Paths.get(records))) {
+            simulator.setRecordWriter(recordWriter);
+
+            System.out.println(simulator.run(games));
+        }
+    }
+
+    /**
+     * Outcome distribution and throughput of one simulation run.
+     */
+    public static final class Result {
+
+        private final long games;
+
+        private final long draws;
+
+        private final long xWins;
+
+        private final long oWins;
+
+        private final long moves;
+
+        private final long elapsedNanos;
+
+        Result(long games, long draws, long xWins, long oWins, long moves, long elapsedNanos) {
+            this.games = games;
+            this.draws = draws;
+            this.xWins = xWins;
+            this.oWins = oWins;
+            this.moves = moves;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        public long getXWins() {
+            return xWins;
+        }
+
+        public long getOWins() {
+            return oWins;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double gamesPerSecond() {
+            return games * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d time=%.3fs games/sec=%.0f X=%.2f%% O=%.2f%% draw=%.2f%% moves/game=%.2f",
+                    games, elapsedNanos / 1e9, gamesPerSecond(), percent(xWins), percent(oWins), percent(draws),
+                    (double) moves / Math.max(1, games));
+        }
+
+        private double percent(long count) {
+            return 100.0 * count / Math.max(1, games);
+        }
+    }
+}
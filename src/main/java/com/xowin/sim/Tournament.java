@@ -0,0 +1,429 @@
+package com.xowin.sim;
+
+import com.xowin.TicTacToeRules;
+import com.xowin.engine.Board;
+import com.xowin.engine.MoveChooser;
+import com.xowin.engine.MoveChoosers;
+import com.xowin.engine.RandomMoveChooser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays two move strategies against each other and rates them: win/draw/loss, the Elo difference with a
+ * confidence interval, and how many moves per second each engine chooses.
+ *
+ * Games are played in pairs with the same random opening ({@code randomPlies} moves), A playing X in the first
+ * game of a pair and O in the second, so neither the opening nor the first move favours one side. Pairs are
+ * spread over {@code threads} workers; every worker has its own engines and random generator, and reseeds them for each
+ * game from the run seed and the game index ({@link MoveChooser#newGame(long)}). A game therefore does not
+ * depend on the thread that played it or on the games before it, and {@code replay=<game>} plays it again and
+ * prints its moves. Engines limited by wall-clock time rather than depth or playouts are only reproducible as
+ * far as their timing is. Multi-threaded engines ({@code parallel}, {@code mcts}) get an equal share of the
+ * cores per worker, so that their moves per second are not skewed by more search threads than cores.
+ *
+ * Usage: {@code java -cp target/classes com.xowin.sim.Tournament a=alphabeta b=heuristic games=10000 seed=42
+ * randomPlies=2 board=3x3x3 threads=8}
+ */
+public class Tournament {
+
+    /**
+     * Normal quantile of the two-sided 95% confidence interval.
+     */
+    public static final double Z_95 = 1.959964;
+
+    private static final int CHUNK = 256;
+
+    private final String a;
+
+    private final String b;
+
+    private final int width;
+
+    private final int height;
+
+    private final int winLength;
+
+    private final int randomPlies;
+
+    private final int threads;
+
+    private final long seed;
+
+    public Tournament(String a, String b, int width, int height, int winLength, int randomPlies, int threads,
+                      long seed) {
+        this.a = a;
+        this.b = b;
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.randomPlies = randomPlies;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public Result run(long games) throws InterruptedException {
+        AtomicLong nextChunk = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Worker> workers = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                Worker worker = new Worker();
+
+                workers.add(worker);
+
+                futures.add(executor.submit(() -> worker.run(games, nextChunk)));
+            }
+
+            long[] totals = new long[Worker.STATS];
+
+            for (Future<long[]> future : futures) {
+                long[] stats = future.get();
+
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += stats[i];
+                }
+            }
+
+            return new Result(a, b, totals, System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+
+            for (Worker worker : workers) {
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Plays one game of the tournament again.
+     *
+     * @return the moves as {@code x,y} pairs, X first, followed by the outcome
+     */
+    public String replay(long game) {
+        Worker worker = new Worker();
+
+        int outcome;
+
+        try {
+            outcome = worker.play(game, new long[Worker.STATS]);
+        } finally {
+            worker.shutdown();
+        }
+
+        Board board = worker.rules.getModel();
+
+        StringBuilder moves = new StringBuilder();
+
+        moves.append("game=").append(game).append(" x=").append(game % 2 == 0 ? a : b).append(" o=")
+                .append(game % 2 == 0 ? b : a).append(" moves=");
+
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            int cell = worker.rules.getMoves()[i];
+
+            moves.append(i == 0 ? "" : " ").append(board.cellX(cell)).append(',').append(board.cellY(cell));
+        }
+
+        return moves.append(" result=").append(outcome == 1 ? "X" : outcome == 2 ? "O" : "draw").toString();
+    }
+
+    /**
+     * One thread's rules, engines and random generator.
+     */
+    private final class Worker {
+
+        static final int A_WINS = 0;
+
+        static final int DRAWS = 1;
+
+        static final int B_WINS = 2;
+
+        static final int A_WINS_AS_X = 3;
+
+        static final int B_WINS_AS_X = 4;
+
+        static final int A_MOVES = 5;
+
+        static final int A_NANOS = 6;
+
+        static final int B_MOVES = 7;
+
+        static final int B_NANOS = 8;
+
+        static final int STATS = 9;
+
+        final TicTacToeRules rules = new TicTacToeRules(width, height, winLength, null);
+
+        final RandomMoveChooser opening = new RandomMoveChooser(seed);
+
+        final MoveChooser engineA = MoveChoosers.byName(a, engineThreads());
+
+        final MoveChooser engineB = MoveChoosers.byName(b, engineThreads());
+
+        void shutdown() {
+            engineA.shutdown();
+            engineB.shutdown();
+        }
+
+        long[] run(long games, AtomicLong nextChunk) {
+            long[] stats = new long[STATS];
+
+            long chunk;
+
+            while ((chunk = nextChunk.getAndIncrement()) * CHUNK < games) {
+                long end = Math.min(games, (chunk + 1) * CHUNK);
+
+                for (long game = chunk * CHUNK; game < end; game++) {
+                    play(game, stats);
+                }
+            }
+
+            return stats;
+        }
+
+        /**
+         * Plays game {@code game} and adds it to the stats.
+         *
+         * @return 1 or 2 for the winning player, 0 for a draw
+         */
+        int play(long game, long[] stats) {
+            // both games of a pair share the opening; the engines get seeds of their own per game
+            long pairSeed = RandomMoveChooser.mix64(seed + game / 2);
+
+            opening.setSeed(pairSeed);
+
+            long gameSeed = RandomMoveChooser.mix64(pairSeed + 1 + game % 2);
+
+            engineA.newGame(gameSeed);
+            engineB.newGame(RandomMoveChooser.mix64(gameSeed));
+
+            boolean aIsX = game % 2 == 0;
+
+            Board board = rules.getModel();
+
+            rules.startGame();
+
+            int outcome;
+
+            int ply = 0;
+
+            do {
+                int player = rules.getCurrentPlayer();
+
+                int cell;
+
+                if (ply++ < randomPlies) {
+                    cell = opening.chooseMove(board, player);
+                } else {
+                    boolean aMoves = (player == 1) == aIsX;
+
+                    long start = System.nanoTime();
+
+                    cell = (aMoves ? engineA : engineB).chooseMove(board, player);
+
+                    long nanos = System.nanoTime() - start;
+
+                    stats[aMoves ? A_MOVES : B_MOVES]++;
+                    stats[aMoves ? A_NANOS : B_NANOS] += nanos;
+                }
+
+                outcome = rules.setSignAndCheck(board.cellX(cell), board.cellY(cell));
+
+                if (outcome == TicTacToeRules.PLAYING) {
+                    rules.switchPlayer();
+                }
+            } while (outcome == TicTacToeRules.PLAYING);
+
+            if (outcome != TicTacToeRules.WIN) {
+                stats[DRAWS]++;
+
+                return 0;
+            }
+
+            int winner = rules.getCurrentPlayer();
+
+            boolean aWon = (winner == 1) == aIsX;
+
+            stats[aWon ? A_WINS : B_WINS]++;
+
+            if (winner == 1) {
+                stats[aWon ? A_WINS_AS_X : B_WINS_AS_X]++;
+            }
+
+            return winner;
+        }
+    }
+
+    /**
+     * Returns the search threads of a multi-threaded engine: the cores divided among the workers.
+     */
+    private int engineThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long games = 10_000;
+        long seed = System.nanoTime();
+        String a = MoveChoosers.ALPHA_BETA;
+        String b = MoveChoosers.HEURISTIC;
+        int[] board = {3, 3, 3};
+        int randomPlies = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long replay = -1;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+
+            String value = arg.substring(eq + 1);
+
+            switch (arg.substring(0, eq)) {
+                case "games" -> games = Long.parseLong(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "a" -> a = value;
+                case "b" -> b = value;
+                case "randomPlies" -> randomPlies = Integer.parseInt(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "board" -> board = TicTacToeRules.parseBoard(value);
+                case "replay" -> replay = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option '" + arg + "'");
+            }
+        }
+
+        Tournament tournament = new Tournament(a, b, board[0], board[1], board[2], randomPlies, threads, seed);
+
+        System.out.println("seed=" + seed + " a=" + a + " b=" + b + " board=" + board[0] + "x" + board[1] + "x"
+                + board[2] + " randomPlies=" + randomPlies + " threads=" + threads);
+
+        System.out.println(replay >= 0 ? tournament.replay(replay) : tournament.run(games));
+    }
+
+    /**
+     * Outcome of a tournament, from A's point of view.
+     */
+    public static final class Result {
+
+        private final String a;
+
+        private final String b;
+
+        private final long[] stats;
+
+        private final long elapsedNanos;
+
+        Result(String a, String b, long[] stats, long elapsedNanos) {
+            this.a = a;
+            this.b = b;
+            this.stats = stats;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGames() {
+            return getWins() + getDraws() + getLosses();
+        }
+
+        public long getWins() {
+            return stats[Worker.A_WINS];
+        }
+
+        public long getDraws() {
+            return stats[Worker.DRAWS];
+        }
+
+        public long getLosses() {
+            return stats[Worker.B_WINS];
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns A's average points per game, a win counting 1 and a draw 1/2.
+         */
+        public double getScore() {
+            return (getWins() + 0.5 * getDraws()) / Math.max(1, getGames());
+        }
+
+        /**
+         * Returns the Elo difference of A over B implied by the score; infinite if one side won every game.
+         */
+        public double getElo() {
+            return elo(getScore());
+        }
+
+        /**
+         * Returns the bounds of the Elo difference at the given normal quantile, e.g. {@link #Z_95}, from the
+         * standard error of the per-game score.
+         */
+        public double[] getEloInterval(double z) {
+            long games = Math.max(1, getGames());
+
+            double score = getScore();
+
+            double variance = (getWins() * (1 - score) * (1 - score) + getDraws() * (0.5 - score) * (0.5 - score)
+                    + getLosses() * score * score) / games;
+
+            double margin = z * Math.sqrt(variance / games);
+
+            return new double[]{elo(score - margin), elo(score + margin)};
+        }
+
+        /**
+         * Returns the moves per second of A's or B's thinking time.
+         */
+        public double getMovesPerSecond(boolean engineA) {
+            long moves = stats[engineA ? Worker.A_MOVES : Worker.B_MOVES];
+
+            long nanos = stats[engineA ? Worker.A_NANOS : Worker.B_NANOS];
+
+            return moves * 1e9 / Math.max(1, nanos);
+        }
+
+        @Override
+        public String toString() {
+            double[] interval = getEloInterval(Z_95);
+
+            long aGamesAsX = (getGames() + 1) / 2;
+
+            return String.format("games=%d time=%.3fs games/sec=%.0f%n"
+                            + "%s vs %s: +%d =%d -%d score=%.2f%% Elo=%+.1f [%+.1f, %+.1f] (95%%)%n"
+                            + "wins as X: %s %d/%d, %s %d/%d%n"
+                            + "moves/sec: %s %.0f, %s %.0f",
+                    getGames(), elapsedNanos / 1e9, getGames() * 1e9 / Math.max(1, elapsedNanos),
+                    a, b, getWins(), getDraws(), getLosses(), 100 * getScore(), getElo(), interval[0], interval[1],
+                    a, stats[Worker.A_WINS_AS_X], aGamesAsX, b, stats[Worker.B_WINS_AS_X], getGames() - aGamesAsX,
+                    a, getMovesPerSecond(true), b, getMovesPerSecond(false));
+        }
+
+        private static double elo(double score) {
+            if (score <= 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+
+            if (score >= 1) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            // an even score gives -0.0, which would print as "-0.0"
+            return -400 * Math.log10(1 / score - 1) + 0.0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.xowin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameLoopTest {
+
+    private static final long PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+
+    private final AtomicInteger ticks = new AtomicInteger();
+
+    private final CountDownLatch firstTick = new CountDownLatch(1);
+
+    private final GameLoop loop = new GameLoop(event -> {
+        if (GameLoop.type(event) == GameLoop.TURN) {
+            ticks.incrementAndGet();
+            firstTick.countDown();
+        }
+    });
+
+    @AfterEach
+    void tearDown() {
+        loop.stop();
+    }
+
+    @Test
+    void settingTheSamePeriodAgainRestartsTheSchedule() throws InterruptedException {
+        loop.setTickPeriod(PERIOD_NANOS);
+        loop.start();
+
+        // re-armed well within every period, the timer never comes due
+        for (int i = 0; i < 12; i++) {
+            Thread.sleep(50);
+
+            loop.setTickPeriod(PERIOD_NANOS);
+        }
+
+        assertEquals(0, ticks.get());
+
+        long rearmed = System.nanoTime();
+
+        assertTrue(firstTick.await(5, TimeUnit.SECONDS));
+
+        assertTrue(System.nanoTime() - rearmed >= PERIOD_NANOS - TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void zeroPeriodStopsTheTicks() throws InterruptedException {
+        loop.setTickPeriod(TimeUnit.MILLISECONDS.toNanos(20));
+        loop.start();
+
+        assertTrue(firstTick.await(5, TimeUnit.SECONDS));
+
+        loop.setTickPeriod(0);
+
+        Thread.sleep(100); // lets a tick that was already being handled finish
+
+        int stopped = ticks.get();
+
+        Thread.sleep(200);
+
+        assertEquals(stopped, ticks.get());
+    }
+}
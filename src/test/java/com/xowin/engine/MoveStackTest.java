@@ -0,0 +1,108 @@
+package com.xowin.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoveStackTest {
+
+    private Board board;
+
+    private MoveStack stack;
+
+    @BeforeEach
+    void setUp() {
+        board = new Board(3, 3, 3);
+        stack = new MoveStack(board);
+
+        stack.make(4, 1);
+        stack.make(0, 2);
+        stack.make(8, 1);
+    }
+
+    @Test
+    void undoAndRedoRestoreTheBoard() {
+        long hash = board.hash();
+
+        assertEquals(8, stack.unmake());
+        assertEquals(0, stack.unmake());
+
+        assertEquals(1, stack.size());
+        assertEquals(2, stack.redoCount());
+        assertTrue(board.isEmpty(0));
+        assertTrue(board.isEmpty(8));
+
+        assertEquals(0, stack.redo());
+        assertEquals(8, stack.redo());
+        assertEquals(-1, stack.redo());
+
+        assertEquals(3, stack.size());
+        assertEquals(0, stack.redoCount());
+        assertEquals(hash, board.hash());
+    }
+
+    @Test
+    void unmakeOnEmptyStackReturnsNoCell() {
+        stack.rewind(0);
+
+        assertEquals(-1, stack.unmake());
+        assertEquals(0, board.getMoveCount());
+    }
+
+    @Test
+    void makingTheNextRedoMoveKeepsTheRest() {
+        stack.unmake();
+        stack.unmake();
+
+        stack.make(0, 2);
+
+        assertEquals(2, stack.size());
+        assertEquals(1, stack.redoCount());
+        assertEquals(8, stack.redo());
+    }
+
+    @Test
+    void makingAnotherMoveDiscardsTheRedoMoves() {
+        stack.unmake();
+        stack.unmake();
+
+        stack.make(2, 2);
+
+        assertEquals(2, stack.size());
+        assertEquals(0, stack.redoCount());
+        assertEquals(-1, stack.redo());
+        assertEquals(2, stack.cell(1));
+    }
+
+    @Test
+    void sameCellByTheOtherPlayerDiscardsTheRedoMoves() {
+        stack.unmake();
+        stack.unmake();
+
+        stack.make(0, 1);
+
+        assertEquals(0, stack.redoCount());
+        assertEquals(1, stack.player(1));
+    }
+
+    @Test
+    void rewindMovesBothWays() {
+        long hash = board.hash();
+
+        stack.rewind(0);
+
+        assertEquals(0, board.getMoveCount());
+        assertEquals(3, stack.redoCount());
+
+        stack.rewind(3);
+
+        assertEquals(3, board.getMoveCount());
+        assertEquals(hash, board.hash());
+
+        assertThrows(IllegalArgumentException.class, () -> stack.rewind(4));
+        assertThrows(IllegalArgumentException.class, () -> stack.rewind(-1));
+    }
+}
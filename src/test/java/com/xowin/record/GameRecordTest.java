@@ -0,0 +1,88 @@
+package com.xowin.record;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameRecordTest {
+
+    private static final int[] FULL_4X4 = {0, 5, 10, 15, 1, 4, 11, 14, 2, 7, 8, 13, 3, 6, 9, 12};
+
+    private static final int[] SHORT_3X3 = {4, 0, 8, 2, 6};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullFourByFourGameRoundTrips() throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(directory)) {
+            writer.append(GameRecord.DRAW, FULL_4X4, FULL_4X4.length);
+            writer.append(GameRecord.DRAW, FULL_4X4, FULL_4X4.length, 0x0123456789ABCDEFL);
+            writer.append(GameRecord.X_WON, SHORT_3X3, SHORT_3X3.length, 42L);
+        }
+
+        List<long[]> records = readAll();
+
+        assertEquals(3, records.size());
+
+        assertRecord(records.get(0), GameRecord.DRAW, FULL_4X4, 0L);
+        assertRecord(records.get(1), GameRecord.DRAW, FULL_4X4, 0x0123456789ABCDEFL);
+        assertRecord(records.get(2), GameRecord.X_WON, SHORT_3X3, 42L);
+    }
+
+    @Test
+    void reopenedLogContinuesAfterFullGame() throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(directory)) {
+            writer.append(GameRecord.O_WON, FULL_4X4, FULL_4X4.length, 7L);
+        }
+
+        try (GameRecordWriter writer = new GameRecordWriter(directory)) {
+            writer.append(GameRecord.UNFINISHED, SHORT_3X3, 2);
+        }
+
+        List<long[]> records = readAll();
+
+        assertEquals(2, records.size());
+
+        assertRecord(records.get(0), GameRecord.O_WON, FULL_4X4, 7L);
+        assertRecord(records.get(1), GameRecord.UNFINISHED, new int[]{4, 0}, 0L);
+    }
+
+    @Test
+    void rejectsMoreThanSixteenMoves() throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(directory)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.append(GameRecord.DRAW, new int[17], 17));
+        }
+    }
+
+    private List<long[]> readAll() throws IOException {
+        List<long[]> records = new ArrayList<>();
+
+        GameRecordReader.read(directory, (outcome, moveCount, packedMoves, seed) ->
+                records.add(new long[]{outcome, moveCount, packedMoves, seed}));
+
+        return records;
+    }
+
+    private static void assertRecord(long[] record, int outcome, int[] moves, long seed) {
+        assertEquals(outcome, record[0]);
+        assertEquals(moves.length, record[1]);
+
+        int[] read = new int[moves.length];
+
+        for (int i = 0; i < read.length; i++) {
+            read[i] = GameRecord.move(record[2], i);
+        }
+
+        assertArrayEquals(moves, read);
+        assertEquals(seed, record[3]);
+    }
+}
@@ -0,0 +1,119 @@
+package com.xowin.score;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScoreStoreTest {
+
+    private static final String LOG_FILE = "scores.wal";
+
+    private static final String SNAPSHOT_FILE = "scores.snapshot";
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path crashed;
+
+    @Test
+    void tornTailIsCutOffAndTheRestReplayed() throws Exception {
+        try (ScoreStore store = new ScoreStore(directory)) {
+            store.record("ann", ScoreStore.WIN);
+            store.record("ann", ScoreStore.LOSS);
+            store.record("computer", ScoreStore.DRAW);
+
+            store.flush();
+
+            // the process dies here: the log is synced, no snapshot has been written
+            Files.copy(directory.resolve(LOG_FILE), crashed.resolve(LOG_FILE));
+        }
+
+        byte[] log = Files.readAllBytes(crashed.resolve(LOG_FILE));
+
+        // the start of a fourth record, as left by a write that was cut short
+        Files.write(crashed.resolve(LOG_FILE), Arrays.copyOf(log, 10), StandardOpenOption.APPEND);
+
+        try (ScoreStore store = new ScoreStore(crashed)) {
+            assertScore(store, "ann", 1, 0, 1);
+            assertScore(store, "computer", 0, 1, 0);
+
+            // recovery checkpoints the replayed records and empties the log
+            assertEquals(0, Files.size(crashed.resolve(LOG_FILE)));
+
+            store.record("ann", ScoreStore.WIN);
+        }
+
+        try (ScoreStore store = new ScoreStore(crashed)) {
+            assertScore(store, "ann", 2, 0, 1);
+            assertScore(store, "computer", 0, 1, 0);
+        }
+    }
+
+    @Test
+    void recordsAlreadyInTheSnapshotAreSkipped() throws Exception {
+        byte[] checkpointed;
+
+        try (ScoreStore store = new ScoreStore(directory)) {
+            store.record("ann", ScoreStore.WIN);
+            store.record("ann", ScoreStore.DRAW);
+
+            store.flush();
+
+            checkpointed = Files.readAllBytes(directory.resolve(LOG_FILE));
+        }
+
+        try (ScoreStore store = new ScoreStore(directory)) {
+            store.record("ann", ScoreStore.LOSS);
+
+            store.flush();
+
+            // the process dies after replacing the snapshot but before emptying the log
+            Files.copy(directory.resolve(SNAPSHOT_FILE), crashed.resolve(SNAPSHOT_FILE));
+            Files.write(crashed.resolve(LOG_FILE), checkpointed);
+            Files.write(crashed.resolve(LOG_FILE), Files.readAllBytes(directory.resolve(LOG_FILE)),
+                    StandardOpenOption.APPEND);
+        }
+
+        try (ScoreStore store = new ScoreStore(crashed)) {
+            assertScore(store, "ann", 1, 1, 1);
+        }
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws Exception {
+        try (ScoreStore store = new ScoreStore(directory)) {
+            store.record("ann", ScoreStore.WIN);
+        }
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+
+        byte[] data = Files.readAllBytes(snapshot);
+
+        data[data.length / 2] ^= 1;
+
+        Files.write(snapshot, data);
+
+        assertThrows(IOException.class, () -> new ScoreStore(directory));
+
+        Files.write(snapshot, new byte[8]);
+
+        assertThrows(IOException.class, () -> new ScoreStore(directory));
+    }
+
+    private static void assertScore(ScoreStore store, String name, long wins, long draws, long losses) {
+        PlayerScore player = store.get(name);
+
+        assertEquals(wins, player.getWins());
+        assertEquals(draws, player.getDraws());
+        assertEquals(losses, player.getLosses());
+    }
+}
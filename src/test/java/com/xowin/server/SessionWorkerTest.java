@@ -0,0 +1,181 @@
+package com.xowin.server;
+
+import com.xowin.engine.HeuristicMoveChooser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionWorkerTest {
+
+    private SessionWorker worker;
+
+    private FakeChannel channel;
+
+    private FakeKey key;
+
+    private SessionWorker.Connection connection;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        worker = new SessionWorker(new HeuristicMoveChooser(), new AtomicInteger());
+        channel = new FakeChannel();
+        key = new FakeKey();
+        connection = worker.new Connection(channel, key, new GameSession(new HeuristicMoveChooser()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.close();
+    }
+
+    @Test
+    void framesLeftWhileTheOutputIsFullAreAnsweredOnceItDrains() throws IOException {
+        channel.writable = 0; // the client does not read
+
+        int frames = 0;
+
+        // 4096 bytes of output hold 512 answers; the fifth batch of 128 frames stays in the input buffer
+        for (int batch = 0; batch < 5; batch++) {
+            channel.send(128);
+            frames += 128;
+
+            connection.read();
+        }
+
+        assertEquals(0, channel.received.position());
+        assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, key.interestOps());
+
+        // the client starts reading but sends nothing more: only the write path runs
+        channel.writable = Integer.MAX_VALUE;
+
+        connection.answer();
+
+        assertEquals(frames * Protocol.SERVER_FRAME_SIZE, channel.received.position());
+        assertEquals(SelectionKey.OP_READ, key.interestOps());
+    }
+
+    @Test
+    void slowReaderGetsEveryAnswer() throws IOException {
+        channel.send(640);
+
+        channel.writable = 0;
+
+        connection.read();
+
+        // the client reads a little at a time; the worker reads whatever is still pending and answers
+        for (int round = 0; round < 1000 && channel.received.position() < 640 * Protocol.SERVER_FRAME_SIZE; round++) {
+            channel.writable = 1000;
+
+            connection.answer();
+
+            connection.read();
+        }
+
+        assertEquals(0, channel.pending.position());
+        assertEquals(640 * Protocol.SERVER_FRAME_SIZE, channel.received.position());
+    }
+
+    /**
+     * A client connection: bytes sent by the client wait in {@code pending}, and writes take at most
+     * {@code writable} bytes per call.
+     */
+    private static final class FakeChannel implements ByteChannel {
+
+        final ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+
+        final ByteBuffer received = ByteBuffer.allocate(1 << 16);
+
+        int writable;
+
+        void send(int frames) {
+            for (int i = 0; i < frames; i++) {
+                pending.put((byte) Protocol.NEW_GAME).put((byte) 0);
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            pending.flip();
+
+            int count = Math.min(dst.remaining(), pending.remaining());
+
+            dst.put(pending.slice(pending.position(), count));
+
+            pending.position(pending.position() + count);
+            pending.compact();
+
+            return count;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int count = Math.min(writable, src.remaining());
+
+            received.put(src.slice(src.position(), count));
+
+            src.position(src.position() + count);
+
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FakeKey extends SelectionKey {
+
+        private int interestOps = OP_READ;
+
+        @Override
+        public SelectableChannel channel() {
+            return null;
+        }
+
+        @Override
+        public Selector selector() {
+            return null;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public int interestOps() {
+            return interestOps;
+        }
+
+        @Override
+        public SelectionKey interestOps(int ops) {
+            interestOps = ops;
+
+            return this;
+        }
+
+        @Override
+        public int readyOps() {
+            return 0;
+        }
+    }
+}